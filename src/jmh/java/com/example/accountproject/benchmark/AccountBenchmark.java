@@ -0,0 +1,73 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 생성 벤치마크
+ * 사용자 당 계좌는 10개까지이므로 스레드마다 10번에 한 번 새 사용자를 만든다.
+ * contended : 모든 스레드가 동시에 계좌를 생성
+ * uncontended : 단일 스레드로 계좌를 생성
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AccountBenchmark {
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
+    @State(Scope.Benchmark)
+    public static class Context {
+        ConfigurableApplicationContext context;
+        AccountService accountService;
+        AccountUserRepository accountUserRepository;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            context = BenchmarkApplication.start();
+            accountService = context.getBean(AccountService.class);
+            accountUserRepository = context.getBean(AccountUserRepository.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            context.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UserState {
+        Long userId;
+        int created = MAX_ACCOUNT_PER_USER;
+
+        Long nextUserId(Context context) {
+            if (created == MAX_ACCOUNT_PER_USER) {
+                userId = context.accountUserRepository.save(AccountUser.builder()
+                        .name("bench")
+                        .build()).getId();
+                created = 0;
+            }
+            created++;
+            return userId;
+        }
+    }
+
+    @Benchmark
+    @Threads(4)
+    public AccountDto createAccountContended(Context context, UserState user) {
+        return context.accountService.createAccount(user.nextUserId(context), 1000L);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public AccountDto createAccountUncontended(Context context, UserState user) {
+        return context.accountService.createAccount(user.nextUserId(context), 1000L);
+    }
+}
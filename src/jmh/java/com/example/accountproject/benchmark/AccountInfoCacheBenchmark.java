@@ -0,0 +1,50 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.benchmark.BenchmarkApplication.AccountFixture;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 목록 조회(GET /account) 캐시 사용 여부 별 처리량 비교
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class AccountInfoCacheBenchmark {
+    private static final int ACCOUNTS = 1000;
+
+    @Param({"true", "false"})
+    public boolean cacheEnabled;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private List<AccountFixture> accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("account.cache.accounts.enabled=" + cacheEnabled);
+        accountService = context.getBean(AccountService.class);
+        accounts = BenchmarkApplication.createAccounts(context, ACCOUNTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<AccountDto> getAccountsInfo() {
+        AccountFixture account = accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+        return accountService.getAccountsInfo(account.getUserId());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.benchmark.BenchmarkApplication.AccountFixture;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 한 계좌에 POST /transaction/use 를 몰아서 보내는 동안 GET /account 지연 시간 비교
+ * Tomcat 작업 스레드를 hotAccountUse 스레드 수보다 적게 두어서,
+ * 동기 모드(async=false)에서는 Lock 을 기다리는 요청이 작업 스레드를 모두 차지하고
+ * 비동기 모드(async=true)에서는 GET /account 지연 시간이 그대로 유지되는지 본다.
+ * 결과는 그룹 안의 메서드 별로 따로 기록된다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Group)
+public class AsyncLockBenchmark {
+    private static final long AMOUNT = 10L;
+    private static final int TOMCAT_THREADS = 16;
+
+    @Param({"false", "true"})
+    public String async;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private HttpRequest hotAccountUseRequest;
+    private HttpRequest getAccountsRequest;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.builder(
+                "server.port=0",
+                "server.tomcat.threads.max=" + TOMCAT_THREADS,
+                "account.lock.async.enabled=" + async
+        ).run();
+        List<AccountFixture> accounts = BenchmarkApplication.createAccounts(context, 2);
+        AccountFixture hotAccount = accounts.get(0);
+
+        String baseUri = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        hotAccountUseRequest = HttpRequest.newBuilder(URI.create(baseUri + "/transaction/use"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"userId\":" + hotAccount.getUserId()
+                        + ",\"accountNumber\":\"" + hotAccount.getAccountNumber()
+                        + "\",\"amount\":" + AMOUNT + "}"))
+                .build();
+        getAccountsRequest = HttpRequest.newBuilder(URI.create(baseUri + "/account?user_id=" + accounts.get(1).getUserId()))
+                .GET()
+                .build();
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("saturated")
+    @GroupThreads(32)
+    public int hotAccountUse() throws IOException, InterruptedException {
+        return httpClient.send(hotAccountUseRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Group("saturated")
+    @GroupThreads(4)
+    public int getAccounts() throws IOException, InterruptedException {
+        return httpClient.send(getAccountsRequest, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
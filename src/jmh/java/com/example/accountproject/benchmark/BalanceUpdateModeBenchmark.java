@@ -0,0 +1,91 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.benchmark.BenchmarkApplication.AccountFixture;
+import com.example.accountproject.controller.BalanceController;
+import com.example.accountproject.dto.CancelBalance;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.exception.AccountException;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 변경 방식(account.balance.update-mode) 별 처리량 비교
+ * accountCount 로 경합 정도를 조절한다. (1 : 모든 스레드가 한 계좌 사용)
+ * useBalance : 사용만, useAndCancel : 사용 후 바로 취소하는 혼합 부하
+ * Lock 대기 시간 초과나 재시도 소진으로 실패한 요청 수는 failures 보조 지표로 기록된다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class BalanceUpdateModeBenchmark {
+    private static final long AMOUNT = 10L;
+
+    @Param({"LOCKED", "OPTIMISTIC", "ATOMIC"})
+    public String updateMode;
+
+    @Param({"1", "16", "1024"})
+    public int accountCount;
+
+    private ConfigurableApplicationContext context;
+    private BalanceController balanceController;
+    private List<AccountFixture> accounts;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Failures {
+        public long failures;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start("account.balance.update-mode=" + updateMode);
+        balanceController = context.getBean(BalanceController.class);
+        accounts = BenchmarkApplication.createAccounts(context, accountCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UseBalance.Response useBalance(Failures failures) {
+        AccountFixture account = nextAccount();
+        try {
+            return use(account);
+        } catch (AccountException e) {
+            failures.failures++;
+            return null;
+        }
+    }
+
+    @Benchmark
+    public CancelBalance.Response useAndCancel(Failures failures) {
+        AccountFixture account = nextAccount();
+        try {
+            UseBalance.Response used = use(account);
+            return balanceController.cancelBalance(new CancelBalance.Request(
+                    used.getTransactionId(), account.getAccountNumber(), AMOUNT));
+        } catch (AccountException e) {
+            failures.failures++;
+            return null;
+        }
+    }
+
+    private UseBalance.Response use(AccountFixture account) {
+        return balanceController.useBalance(
+                new UseBalance.Request(account.getUserId(), account.getAccountNumber(), AMOUNT));
+    }
+
+    private AccountFixture nextAccount() {
+        return accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.AccountProjectApplication;
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.service.AccountService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 벤치마크용 애플리케이션 컨텍스트와 테스트 데이터를 준비하는 헬퍼
+ * H2 메모리 DB 와 LocalRedisConfig 의 임베디드 Redis 를 그대로 사용한다.
+ */
+public final class BenchmarkApplication {
+    public static final long INITIAL_BALANCE = 1_000_000_000_000L;
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
+    private BenchmarkApplication() {
+    }
+
+    public static ConfigurableApplicationContext start(String... properties) {
+        return builder(properties)
+                .web(WebApplicationType.NONE)
+                .run();
+    }
+
+    /**
+     * properties 는 application.yml 보다 우선한다.
+     * SpringApplicationBuilder.properties 는 기본값이라 application.yml 에 있는 키를 덮어쓰지 못하므로 맨 앞 property source 로 넣는다.
+     */
+    public static SpringApplicationBuilder builder(String... properties) {
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        overrides.put("spring.jpa.properties.hibernate.show_sql", "false");
+        overrides.put("spring.jpa.properties.hibernate.format_sql", "false");
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            overrides.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        return new SpringApplicationBuilder(AccountProjectApplication.class)
+                .properties("logging.level.root=WARN")
+                .initializers(context -> context.getEnvironment().getPropertySources()
+                        .addFirst(new MapPropertySource("benchmark", overrides)));
+    }
+
+    /**
+     * 계좌를 count 개 만든다. 사용자 당 계좌 수 제한 때문에 사용자도 함께 만든다.
+     * @return 생성된 계좌 번호와 소유자 아이디
+     */
+    public static List<AccountFixture> createAccounts(ConfigurableApplicationContext context, int count) {
+        AccountUserRepository accountUserRepository = context.getBean(AccountUserRepository.class);
+        AccountService accountService = context.getBean(AccountService.class);
+
+        List<AccountFixture> accounts = new ArrayList<>(count);
+        AccountUser accountUser = null;
+        for (int i = 0; i < count; i++) {
+            if (i % MAX_ACCOUNT_PER_USER == 0) {
+                accountUser = accountUserRepository.save(AccountUser.builder()
+                        .name("bench-" + i)
+                        .build());
+            }
+            String accountNumber = accountService.createAccount(accountUser.getId(), INITIAL_BALANCE)
+                    .getAccountNumber();
+            accounts.add(new AccountFixture(accountUser.getId(), accountNumber));
+        }
+        return accounts;
+    }
+
+    public static final class AccountFixture {
+        private final Long userId;
+        private final String accountNumber;
+
+        public AccountFixture(Long userId, String accountNumber) {
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public String getAccountNumber() {
+            return accountNumber;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.benchmark.BenchmarkApplication.AccountFixture;
+import com.example.accountproject.controller.BalanceController;
+import com.example.accountproject.dto.UseBalance;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * group commit window 별 처리량과 응답 시간
+ * windowMicros 가 off 이면 요청마다 커밋하고, 그 밖에는 해당 window 로 묶어서 커밋한다.
+ * Throughput 은 초당 잔액 사용 수, SampleTime 은 요청 당 응답 시간 분포(p50/p99)이다.
+ * 계좌를 충분히 많이 두어 계좌 Lock 경합 없이 커밋 비용만 비교한다.
+ * 커밋 비용이 있도록 build/jmh-h2 아래 파일 DB 를 사용한다. 커밋마다 fsync 하는 DB 에서는 차이가 더 크다.
+ * cachesEnabled 가 true 이면 계좌 목록 캐시 삭제와 거래 아이디 Bloom filter 추가의 Redis 왕복이 함께 측정된다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class GroupCommitBenchmark {
+    private static final int ACCOUNTS = 1024;
+    private static final long AMOUNT = 10L;
+    private static final Path DB_DIR = Paths.get("build", "jmh-h2");
+
+    @Param({"off", "0", "500", "1000", "2000"})
+    public String windowMicros;
+
+    @Param({"true", "false"})
+    public boolean cachesEnabled;
+
+    private ConfigurableApplicationContext context;
+    private BalanceController balanceController;
+    private List<AccountFixture> accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        deleteDirectory(DB_DIR);
+        boolean enabled = !"off".equals(windowMicros);
+        context = BenchmarkApplication.start(
+                "spring.datasource.url=jdbc:h2:file:" + DB_DIR.toAbsolutePath() + "/group-commit",
+                "account.balance.group-commit.enabled=" + enabled,
+                "account.balance.group-commit.window-micros=" + (enabled ? windowMicros : "0"),
+                "account.cache.accounts.enabled=" + cachesEnabled,
+                "account.cache.transactions.enabled=" + cachesEnabled);
+        balanceController = context.getBean(BalanceController.class);
+        accounts = BenchmarkApplication.createAccounts(context, ACCOUNTS);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        deleteDirectory(DB_DIR);
+    }
+
+    @Benchmark
+    public UseBalance.Response useBalance() {
+        AccountFixture account = accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+        return balanceController.useBalance(
+                new UseBalance.Request(account.getUserId(), account.getAccountNumber(), AMOUNT));
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.benchmark.BenchmarkApplication.AccountFixture;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock 구현체(account.lock.type) 별 POST /transaction/use 지연 시간 비교
+ * SampleTime 모드이므로 결과 JSON 에 p50, p99 등의 백분위 값이 함께 기록된다.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class LockBackendBenchmark {
+    private static final long AMOUNT = 10L;
+
+    @Param({"redis", "local", "database", "none"})
+    public String lockType;
+
+    @Param({"1", "1000"})
+    public int accountCount;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private URI useUri;
+    private List<AccountFixture> accounts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.builder(
+                "server.port=0",
+                "account.lock.type=" + lockType
+        ).run();
+        accounts = BenchmarkApplication.createAccounts(context, accountCount);
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        useUri = URI.create("http://localhost:" + port + "/transaction/use");
+        httpClient = HttpClient.newHttpClient();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int useBalance() throws IOException, InterruptedException {
+        AccountFixture account = accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+        String body = "{\"userId\":" + account.getUserId()
+                + ",\"accountNumber\":\"" + account.getAccountNumber()
+                + "\",\"amount\":" + AMOUNT + "}";
+
+        HttpRequest request = HttpRequest.newBuilder(useUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.service.AccountLockExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 인스턴스 내부 대기열(account.lock.coalescing) 유무에 따른 계좌 Lock 처리량과 지연 시간
+ * 같은 JVM 에 애플리케이션 컨텍스트 4개(인스턴스 4대)를 띄우고 첫 번째 인스턴스의 내장 Redis 를 함께 쓴다.
+ * 스레드는 인스턴스에 고르게 나뉘고, accounts 개 계좌 중 하나의 Lock 안에서 WORK_TOKENS 만큼 CPU 를 쓴다.
+ * Lock 대기 시간(1초) 안에 잡지 못한 요청은 보조 지표 failures 로 센다.
+ * coalescing=true 이면 끝날 때 인스턴스 별로 Redis 에서 직접 잡은 Lock 수와 넘겨받은 Lock 수를 출력한다.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class LockCoalescingBenchmark {
+    private static final int NODES = 4;
+    private static final long WORK_TOKENS = 1000L;
+
+    @Param({"false", "true"})
+    public boolean coalescing;
+
+    @Param({"1", "16"})
+    public int accounts;
+
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private ConfigurableApplicationContext[] nodes;
+    private String[] accountNumbers;
+
+    @State(Scope.Thread)
+    public static class Node {
+        private AccountLockExecutor accountLockExecutor;
+
+        @Setup(Level.Trial)
+        public void setUp(LockCoalescingBenchmark benchmark) {
+            int index = benchmark.nextNode.getAndIncrement() % NODES;
+            accountLockExecutor = benchmark.nodes[index].getBean(AccountLockExecutor.class);
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class LockFailures {
+        public long failures;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        nodes = new ConfigurableApplicationContext[NODES];
+        for (int i = 0; i < NODES; i++) {
+            // 첫 번째 인스턴스만 내장 Redis 를 띄운다
+            nodes[i] = BenchmarkApplication.start(
+                    "spring.datasource.url=jdbc:h2:mem:coalescing-node-" + i,
+                    "account.redis.embedded.enabled=" + (i == 0),
+                    "account.lock.coalescing.enabled=" + coalescing,
+                    "account.cache.accounts.enabled=false",
+                    "account.cache.transactions.enabled=false"
+            );
+        }
+        accountNumbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountNumbers[i] = String.valueOf(3_000_000_000L + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        for (int i = NODES - 1; i >= 0; i--) {
+            if (coalescing) {
+                MeterRegistry meterRegistry = nodes[i].getBean(MeterRegistry.class);
+                System.out.printf("node %d : redis acquisitions %.0f, handoffs %.0f%n", i,
+                        meterRegistry.counter("account.lock.coalescing.redis.acquisitions").count(),
+                        meterRegistry.counter("account.lock.coalescing.handoffs").count());
+            }
+            nodes[i].close();
+        }
+    }
+
+    @Benchmark
+    public String lockedWork(Node node, LockFailures lockFailures) {
+        String accountNumber = accountNumbers[ThreadLocalRandom.current().nextInt(accounts)];
+        try {
+            return node.accountLockExecutor.execute(accountNumber, () -> {
+                Blackhole.consumeCPU(WORK_TOKENS);
+                return accountNumber;
+            });
+        } catch (AccountException e) {
+            lockFailures.failures++;
+            return null;
+        }
+    }
+}
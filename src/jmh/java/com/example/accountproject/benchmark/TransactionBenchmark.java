@@ -0,0 +1,104 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.benchmark.BenchmarkApplication.AccountFixture;
+import com.example.accountproject.controller.BalanceController;
+import com.example.accountproject.controller.TransactionController;
+import com.example.accountproject.dto.CancelBalance;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.dto.UseBalanceBatch;
+import com.example.accountproject.service.TransactionService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 잔액 사용/취소/거래 확인 벤치마크
+ * contended : 모든 스레드가 하나의 계좌를 사용 (계좌 Lock 경합)
+ * uncontended : 스레드마다 여러 계좌 중 임의의 계좌를 사용
+ * 사용/취소는 컨트롤러 빈을 통해 호출하므로 LockAopAspect, LockService 비용까지 포함된다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class TransactionBenchmark {
+    private static final long AMOUNT = 10L;
+    private static final int UNCONTENDED_ACCOUNTS = 1000;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"contended", "uncontended"})
+    public String scenario;
+
+    private ConfigurableApplicationContext context;
+    private BalanceController balanceController;
+    private TransactionController transactionController;
+    private TransactionService transactionService;
+    private List<AccountFixture> accounts;
+    private List<String> transactionIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start();
+        balanceController = context.getBean(BalanceController.class);
+        transactionController = context.getBean(TransactionController.class);
+        transactionService = context.getBean(TransactionService.class);
+
+        int accountCount = "contended".equals(scenario) ? 1 : UNCONTENDED_ACCOUNTS;
+        accounts = BenchmarkApplication.createAccounts(context, accountCount);
+
+        // 취소 대상 거래는 계좌마다 하나씩 미리 만들어 둔다
+        transactionIds = new ArrayList<>(accountCount);
+        for (AccountFixture account : accounts) {
+            TransactionDto transaction = transactionService.useBalance(
+                    account.getUserId(), account.getAccountNumber(), AMOUNT);
+            transactionIds.add(transaction.getTransactionId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UseBalance.Response useBalance() {
+        AccountFixture account = accounts.get(nextIndex());
+        return balanceController.useBalance(
+                new UseBalance.Request(account.getUserId(), account.getAccountNumber(), AMOUNT));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public UseBalanceBatch.Response useBalanceBatch() {
+        AccountFixture account = accounts.get(nextIndex());
+        List<UseBalance.Request> items = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            items.add(new UseBalance.Request(account.getUserId(), account.getAccountNumber(), AMOUNT));
+        }
+        return transactionController.useBalanceBatch(new UseBalanceBatch.Request(items));
+    }
+
+    @Benchmark
+    public CancelBalance.Response cancelBalance() {
+        int index = nextIndex();
+        return balanceController.cancelBalance(new CancelBalance.Request(
+                transactionIds.get(index), accounts.get(index).getAccountNumber(), AMOUNT));
+    }
+
+    @Benchmark
+    public TransactionDto getTransactionInfo() {
+        return transactionService.getTransactionInfo(transactionIds.get(nextIndex()));
+    }
+
+    private int nextIndex() {
+        return accounts.size() == 1 ? 0 : ThreadLocalRandom.current().nextInt(accounts.size());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.benchmark.BenchmarkApplication.AccountFixture;
+import com.example.accountproject.domain.Account;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.service.TransactionExportService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 거래 내보내기(NDJSON) 처리량
+ * rows 건의 거래를 미리 넣고 전체 기간을 버리는 스트림으로 내보낸다. 보조 지표 rows 가 초당 거래 수이다.
+ * 힙을 256MB 로 제한하므로 거래를 메모리에 모으면 1000만 건에서 OutOfMemoryError 가 난다.
+ * -prof gc 로 돌리면 건 당 할당량을 함께 볼 수 있다.
+ * H2 가 결과를 힙에 만들지 않도록 build/jmh-h2 아래 파일 DB 에 LAZY_QUERY_EXECUTION 으로 연결한다. 준비에 수 분이 걸린다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 30)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@State(Scope.Benchmark)
+public class TransactionExportBenchmark {
+    private static final int ACCOUNTS = 100;
+    private static final int BATCH_SIZE = 1000;
+    private static final Path DB_DIR = Paths.get("build", "jmh-h2");
+    private static final String INSERT_SQL = "insert into transaction "
+            + "(id, transaction_id, transaction_type, transaction_result_type, account_id, amount, "
+            + "balance_snapshot, transaction_at, created_at, updated_at) "
+            + "values (next value for hibernate_sequence, ?, 'USE', 'SUCCESS', ?, 100, 0, ?, ?, ?)";
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ConfigurableApplicationContext context;
+    private TransactionExportService transactionExportService;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class ExportCounters {
+        public long rows;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        deleteDirectory(DB_DIR);
+        context = BenchmarkApplication.start(
+                "spring.datasource.url=jdbc:h2:file:" + DB_DIR.toAbsolutePath() + "/export;LAZY_QUERY_EXECUTION=1");
+        transactionExportService = context.getBean(TransactionExportService.class);
+
+        List<Long> accountIds = new ArrayList<>(ACCOUNTS);
+        AccountRepository accountRepository = context.getBean(AccountRepository.class);
+        for (AccountFixture account : BenchmarkApplication.createAccounts(context, ACCOUNTS)) {
+            accountIds.add(accountRepository.findByAccountNumber(account.getAccountNumber())
+                    .map(Account::getId)
+                    .orElseThrow());
+        }
+
+        // 1ms 간격으로 거래를 넣고 전체 기간을 내보낸다
+        from = LocalDateTime.now().minusDays(1);
+        to = from.plusNanos(rows * 1_000_000L + 1);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            Timestamp transactionAt = Timestamp.valueOf(from.plusNanos(i * 1_000_000L));
+            batch.add(new Object[]{
+                    "export-" + i, accountIds.get(i % ACCOUNTS), transactionAt, transactionAt, transactionAt
+            });
+            if (batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        deleteDirectory(DB_DIR);
+    }
+
+    @Benchmark
+    public long export(ExportCounters counters) throws IOException {
+        DiscardingOutputStream discard = new DiscardingOutputStream();
+        OutputStream out = gzip ? new GZIPOutputStream(discard, 64 * 1024) : discard;
+        long exported = transactionExportService.export(from, to, out);
+        counters.rows += exported;
+        return discard.bytes;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static final class DiscardingOutputStream extends OutputStream {
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
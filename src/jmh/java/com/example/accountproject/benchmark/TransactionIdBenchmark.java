@@ -0,0 +1,46 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.service.TimeOrderedTransactionIdGenerator;
+import com.example.accountproject.service.TransactionIdGenerator;
+import com.example.accountproject.service.UuidTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 거래 아이디 발급 비용 비교
+ * uuid : 기존 UUID.randomUUID().toString().replace("-", "")
+ * time-ordered : TimeOrderedTransactionIdGenerator
+ * -prof gc 를 함께 쓰면 발급 한 번 당 할당량도 비교할 수 있다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransactionIdBenchmark {
+    @Param({"uuid", "time-ordered"})
+    public String type;
+
+    private TransactionIdGenerator generator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = "uuid".equals(type)
+                ? new UuidTransactionIdGenerator()
+                : new TimeOrderedTransactionIdGenerator(1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateSingleThread() {
+        return generator.generate();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateEightThreads() {
+        return generator.generate();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.accountproject.benchmark;
+
+import com.example.accountproject.service.TimeOrderedTransactionIdGenerator;
+import com.example.accountproject.service.TransactionIdGenerator;
+import com.example.accountproject.service.UuidTransactionIdGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 거래 아이디 방식 별 H2 unique 인덱스 insert 속도
+ * 거래 테이블과 같은 unique 인덱스를 가진 테이블에 rows 건을 미리 넣은 뒤,
+ * 그 위에 BATCH_SIZE 건씩 insert 하는 속도(rows/s)를 잰다.
+ * 랜덤 아이디(uuid)는 인덱스 전체에 흩어져 쓰이고, 시간 순서 아이디는 인덱스 끝에만 쓰인다.
+ * 10M 건은 메모리 DB 에 담기지 않으므로 build/jmh-h2 아래 파일 DB 를 사용한다. 준비에 수 분이 걸린다.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class TransactionIdIndexBenchmark {
+    private static final int BATCH_SIZE = 1000;
+    private static final Path DB_DIR = Paths.get("build", "jmh-h2");
+    private static final String CREATE_TABLE_SQL = "create table transaction_id_index ("
+            + "id bigint auto_increment primary key, transaction_id varchar(32) not null)";
+    private static final String CREATE_INDEX_SQL = "create unique index ux_transaction_id_index_transaction_id "
+            + "on transaction_id_index (transaction_id)";
+    private static final String INSERT_SQL = "insert into transaction_id_index (transaction_id) values (?)";
+
+    @Param({"uuid", "time-ordered"})
+    public String type;
+
+    @Param({"1000000", "10000000"})
+    public int rows;
+
+    private TransactionIdGenerator generator;
+    private Connection connection;
+    private PreparedStatement insert;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, SQLException {
+        generator = "uuid".equals(type)
+                ? new UuidTransactionIdGenerator()
+                : new TimeOrderedTransactionIdGenerator(1);
+
+        Path dbPath = DB_DIR.resolve(type + "-" + rows);
+        deleteDirectory(DB_DIR);
+        connection = DriverManager.getConnection("jdbc:h2:file:" + dbPath.toAbsolutePath() + "/db", "sa", "");
+        connection.setAutoCommit(false);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_TABLE_SQL);
+            statement.execute(CREATE_INDEX_SQL);
+        }
+
+        insert = connection.prepareStatement(INSERT_SQL);
+        for (int inserted = 0; inserted < rows; inserted += BATCH_SIZE) {
+            insertBatch();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException, SQLException {
+        insert.close();
+        connection.close();
+        deleteDirectory(DB_DIR);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int[] insertBatch() throws SQLException {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            insert.setString(1, generator.generate());
+            insert.addBatch();
+        }
+        int[] counts = insert.executeBatch();
+        connection.commit();
+        return counts;
+    }
+
+    private static void deleteDirectory(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
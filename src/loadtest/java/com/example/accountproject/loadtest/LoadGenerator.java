@@ -0,0 +1,316 @@
+package com.example.accountproject.loadtest;
+
+import com.example.accountproject.loadtest.WorkloadMix.Operation;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 연결 수(clients)만큼의 클라이언트 스레드가 응답을 받은 뒤에 다음 요청을 보내는 closed-loop 부하 발생기
+ *
+ * - rate > 0 이면 클라이언트마다 clients / rate 초 간격으로 요청 예정 시각을 정한다.
+ *   응답이 늦어 예정 시각을 넘기면 바로 다음 요청을 보내고, 응답 시간(responseTime)은 예정 시각부터 잰다.
+ *   서버가 멈춘 동안 보내지 못한 요청의 대기 시간까지 포함되므로 coordinated omission 이 보정된다.
+ * - rate = 0 이면 쉬지 않고 보낸다. 이때 응답 시간은 실제 전송 시각부터 잰 값(serviceTime)을
+ *   평균 serviceTime 을 예상 간격으로 HdrHistogram 보정(copyCorrectedForCoordinatedOmission)한 값이다.
+ *
+ * 지연 시간은 마이크로초 단위로 기록한다.
+ */
+final class LoadGenerator {
+    static final long AMOUNT = 10L;
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(10);
+    private static final int RECENT_TRANSACTIONS = 4096;
+
+    static final class TargetAccount {
+        final long userId;
+        final String accountNumber;
+
+        TargetAccount(long userId, String accountNumber) {
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    private static final class UsedTransaction {
+        final String transactionId;
+        final String accountNumber;
+
+        UsedTransaction(String transactionId, String accountNumber) {
+            this.transactionId = transactionId;
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    private final URI baseUri;
+    private final WorkloadMix mix;
+    private final List<TargetAccount> accounts;
+    private final ZipfDistribution popularity;
+    private final int clients;
+    private final double rate;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // 취소할 거래와 최근 거래(거래 확인용)
+    private final ConcurrentLinkedQueue<UsedTransaction> cancellable = new ConcurrentLinkedQueue<>();
+    private final AtomicReferenceArray<String> recentTransactionIds = new AtomicReferenceArray<>(RECENT_TRANSACTIONS);
+
+    LoadGenerator(URI baseUri, WorkloadMix mix, List<TargetAccount> accounts, ZipfDistribution popularity,
+                  int clients, double rate) {
+        this.baseUri = baseUri;
+        this.mix = mix;
+        this.accounts = accounts;
+        this.popularity = popularity;
+        this.clients = clients;
+        this.rate = rate;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newCachedThreadPool(daemon("loadtest-http")))
+                .build();
+    }
+
+    /**
+     * duration 동안 부하를 주고 기록을 돌려준다
+     */
+    Results run(Duration duration) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(clients, daemon("loadtest-client"));
+        long intervalNanos = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(clients) / rate) : 0;
+        long startedAt = System.nanoTime();
+        long endAt = startedAt + duration.toNanos();
+        try {
+            List<Future<Results>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                // 예정 시각이 한꺼번에 몰리지 않도록 클라이언트마다 간격을 나눠 시작한다
+                long firstAt = startedAt + intervalNanos * i / clients;
+                futures.add(executor.submit(() -> runClient(firstAt, endAt, intervalNanos)));
+            }
+            Results results = new Results(0);
+            for (Future<Results> future : futures) {
+                results.add(future.get());
+            }
+            results.elapsedNanos = System.nanoTime() - startedAt;
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Results runClient(long firstAt, long endAt, long intervalNanos) {
+        Results results = new Results(intervalNanos);
+        Random random = ThreadLocalRandom.current();
+        long scheduledAt = firstAt;
+        while (true) {
+            long now = System.nanoTime();
+            long intendedAt;
+            if (intervalNanos > 0) {
+                if (scheduledAt >= endAt) {
+                    break;
+                }
+                if (now < scheduledAt) {
+                    LockSupport.parkNanos(scheduledAt - now);
+                    continue;
+                }
+                intendedAt = scheduledAt;
+                scheduledAt += intervalNanos;
+            } else {
+                if (now >= endAt) {
+                    break;
+                }
+                intendedAt = now;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            call(mix.pick(random), random, intendedAt, results);
+        }
+        return results;
+    }
+
+    private void call(Operation operation, Random random, long intendedAt, Results results) {
+        TargetAccount account = accounts.get(popularity.sample(random));
+        HttpRequest request;
+        try {
+            switch (operation) {
+                case TRANSACTION_INFO:
+                    String transactionId = recentTransactionIds.get(random.nextInt(RECENT_TRANSACTIONS));
+                    if (transactionId == null) {
+                        operation = Operation.ACCOUNT_LIST;
+                        request = get("/account?user_id=" + account.userId);
+                    } else {
+                        request = get("/transaction/" + transactionId);
+                    }
+                    break;
+                case CANCEL:
+                    UsedTransaction used = cancellable.poll();
+                    if (used == null) {
+                        operation = Operation.USE;
+                        request = use(account);
+                    } else {
+                        request = post("/transaction/cancel", Map.of(
+                                "transactionId", used.transactionId,
+                                "accountNumber", used.accountNumber,
+                                "amount", AMOUNT));
+                    }
+                    break;
+                case USE:
+                    request = use(account);
+                    break;
+                default:
+                    request = get("/account?user_id=" + account.userId);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        long sentAt = System.nanoTime();
+        int status;
+        String body = null;
+        try {
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            status = response.statusCode();
+            body = response.body();
+        } catch (IOException e) {
+            status = 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long doneAt = System.nanoTime();
+        results.record(operation, status, doneAt - sentAt, doneAt - intendedAt);
+
+        if (operation == Operation.USE && status / 100 == 2) {
+            rememberUse(account, body, random);
+        }
+    }
+
+    private void rememberUse(TargetAccount account, String body, Random random) {
+        try {
+            JsonNode response = objectMapper.readTree(body);
+            String transactionId = response.get("transactionId").asText();
+            recentTransactionIds.set(random.nextInt(RECENT_TRANSACTIONS), transactionId);
+            if ("SUCCESS".equals(response.path("transactionResultType").asText())) {
+                cancellable.add(new UsedTransaction(transactionId, account.accountNumber));
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private HttpRequest use(TargetAccount account) throws IOException {
+        return post("/transaction/use", Map.of(
+                "userId", account.userId,
+                "accountNumber", account.accountNumber,
+                "amount", AMOUNT));
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .GET()
+                .build();
+    }
+
+    private HttpRequest post(String path, Map<String, Object> body) throws IOException {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        ThreadFactory delegate = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = delegate.newThread(runnable);
+            thread.setName(prefix + "-" + thread.getName());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * 엔드포인트별 지연 시간 히스토그램과 상태 코드 수 (상태 코드 0 은 연결 오류)
+     */
+    static final class Results {
+        private final long intervalNanos;
+        private final Map<Operation, Histogram> serviceTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, Histogram> responseTimes = new EnumMap<>(Operation.class);
+        private final Map<Operation, Map<Integer, Long>> statusCodes = new EnumMap<>(Operation.class);
+        private long elapsedNanos;
+
+        private Results(long intervalNanos) {
+            this.intervalNanos = intervalNanos;
+            for (Operation operation : Operation.values()) {
+                serviceTimes.put(operation, new Histogram(HIGHEST_MICROS, 3));
+                responseTimes.put(operation, new Histogram(HIGHEST_MICROS, 3));
+                statusCodes.put(operation, new TreeMap<>());
+            }
+        }
+
+        private void record(Operation operation, int status, long serviceNanos, long responseNanos) {
+            serviceTimes.get(operation).recordValue(toMicros(serviceNanos));
+            responseTimes.get(operation).recordValue(toMicros(responseNanos));
+            statusCodes.get(operation).merge(status, 1L, Long::sum);
+        }
+
+        private void add(Results other) {
+            for (Operation operation : Operation.values()) {
+                serviceTimes.get(operation).add(other.serviceTimes.get(operation));
+                if (other.intervalNanos > 0) {
+                    responseTimes.get(operation).add(other.responseTimes.get(operation));
+                } else {
+                    // 쉬지 않고 보낸 경우 : 평균 처리 시간마다 요청을 보냈어야 한다고 보고 보정한다
+                    Histogram serviceTime = other.serviceTimes.get(operation);
+                    long expectedInterval = (long) serviceTime.getMean();
+                    responseTimes.get(operation).add(expectedInterval > 0
+                            ? serviceTime.copyCorrectedForCoordinatedOmission(expectedInterval)
+                            : serviceTime);
+                }
+                other.statusCodes.get(operation)
+                        .forEach((status, count) -> statusCodes.get(operation).merge(status, count, Long::sum));
+            }
+        }
+
+        Histogram serviceTime(Operation operation) {
+            return serviceTimes.get(operation);
+        }
+
+        Histogram responseTime(Operation operation) {
+            return responseTimes.get(operation);
+        }
+
+        Map<Integer, Long> statusCodes(Operation operation) {
+            return statusCodes.get(operation);
+        }
+
+        long requests(Operation operation) {
+            return statusCodes.get(operation).values().stream()
+                    .mapToLong(Long::longValue)
+                    .sum();
+        }
+
+        long errors(Operation operation) {
+            return statusCodes.get(operation).entrySet().stream()
+                    .filter(entry -> entry.getKey() / 100 != 2)
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+        }
+
+        long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        private static long toMicros(long nanos) {
+            return Math.min(HIGHEST_MICROS, Math.max(1, TimeUnit.NANOSECONDS.toMicros(nanos)));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.accountproject.loadtest;
+
+import com.example.accountproject.loadtest.LoadGenerator.Results;
+import com.example.accountproject.loadtest.WorkloadMix.Operation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 부하 테스트 결과를 report.json 과 report.html 로 쓴다
+ * 지연 시간은 밀리초로 바꿔 쓰고, 엔드포인트마다 보정한 응답 시간(responseTime)과 실제 처리 시간(serviceTime)을 함께 남긴다.
+ * HTML 에는 각 엔드포인트 응답 시간의 백분위 분포(HdrHistogram percentile distribution)도 넣는다.
+ */
+final class LoadReport {
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<String, Object> settings;
+    private final Results results;
+
+    LoadReport(Map<String, Object> settings, Results results) {
+        this.settings = settings;
+        this.results = results;
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("report.json").toFile(), toMap());
+        Files.writeString(directory.resolve("report.html"), toHtml());
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n%-26s %10s %8s %10s %10s %10s %10s%n",
+                "endpoint", "req/s", "errors", "p50(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = results.responseTime(operation);
+            out.printf("%-26s %10.1f %8d %10.2f %10.2f %10.2f %10.2f%n",
+                    operation.getEndpoint(), throughput(results.requests(operation)), results.errors(operation),
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+                    millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+        }
+    }
+
+    private Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("settings", settings);
+        report.put("elapsedSeconds", results.elapsedNanos() / 1e9);
+
+        Histogram total = new Histogram(3);
+        long requests = 0;
+        long errors = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            Histogram responseTime = results.responseTime(operation);
+            total.add(responseTime);
+            requests += results.requests(operation);
+            errors += results.errors(operation);
+
+            Map<String, Object> endpoint = new LinkedHashMap<>();
+            endpoint.put("requests", results.requests(operation));
+            endpoint.put("throughput", throughput(results.requests(operation)));
+            endpoint.put("errors", results.errors(operation));
+            endpoint.put("statusCodes", results.statusCodes(operation));
+            endpoint.put("responseTimeMillis", summary(responseTime));
+            endpoint.put("serviceTimeMillis", summary(results.serviceTime(operation)));
+            endpoints.put(operation.getEndpoint(), endpoint);
+        }
+        report.put("requests", requests);
+        report.put("throughput", throughput(requests));
+        report.put("errors", errors);
+        report.put("responseTimeMillis", summary(total));
+        report.put("endpoints", endpoints);
+        return report;
+    }
+
+    private Map<String, Object> summary(Histogram histogram) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("min", millis(histogram.getMinValue()));
+        summary.put("mean", histogram.getMean() / MICROS_PER_MILLI);
+        for (double percentile : PERCENTILES) {
+            summary.put(label(percentile), millis(histogram.getValueAtPercentile(percentile)));
+        }
+        summary.put("max", millis(histogram.getMaxValue()));
+        return summary;
+    }
+
+    private String toHtml() {
+        StringBuilder html = new StringBuilder();
+        html.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Account API load test</title>\n")
+                .append("<style>body{font-family:sans-serif}table{border-collapse:collapse}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}th:first-child,td:first-child{text-align:left}")
+                .append("pre{background:#f6f6f6;padding:8px}</style></head><body>\n")
+                .append("<h1>Account API load test</h1>\n<h2>Settings</h2>\n<table>\n");
+        settings.forEach((key, value) -> html.append("<tr><td>").append(escape(key)).append("</td><td>")
+                .append(escape(String.valueOf(value))).append("</td></tr>\n"));
+        html.append("</table>\n");
+
+        appendTable(html, "Response time (coordinated omission corrected, ms)", true);
+        appendTable(html, "Service time (ms)", false);
+
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = results.responseTime(operation);
+            if (results.requests(operation) == 0) {
+                continue;
+            }
+            ByteArrayOutputStream distribution = new ByteArrayOutputStream();
+            histogram.outputPercentileDistribution(new PrintStream(distribution, true, StandardCharsets.UTF_8),
+                    5, MICROS_PER_MILLI);
+            html.append("<h2>").append(escape(operation.getEndpoint())).append(" response time distribution (ms)</h2>\n<pre>")
+                    .append(escape(distribution.toString(StandardCharsets.UTF_8))).append("</pre>\n");
+        }
+        return html.append("</body></html>\n").toString();
+    }
+
+    private void appendTable(StringBuilder html, String title, boolean responseTime) {
+        html.append("<h2>").append(escape(title)).append("</h2>\n<table>\n<tr><th>endpoint</th><th>requests</th>")
+                .append("<th>req/s</th><th>errors</th><th>mean</th>");
+        for (double percentile : PERCENTILES) {
+            html.append("<th>").append(label(percentile)).append("</th>");
+        }
+        html.append("<th>max</th></tr>\n");
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = responseTime ? results.responseTime(operation) : results.serviceTime(operation);
+            html.append("<tr><td>").append(escape(operation.getEndpoint())).append("</td>")
+                    .append(cell(results.requests(operation)))
+                    .append(cell(String.format("%.1f", throughput(results.requests(operation)))))
+                    .append(cell(results.errors(operation)))
+                    .append(cell(String.format("%.2f", histogram.getMean() / MICROS_PER_MILLI)));
+            for (double percentile : PERCENTILES) {
+                html.append(cell(String.format("%.2f", millis(histogram.getValueAtPercentile(percentile)))));
+            }
+            html.append(cell(String.format("%.2f", millis(histogram.getMaxValue())))).append("</tr>\n");
+        }
+        html.append("</table>\n");
+    }
+
+    // 보정된 히스토그램에는 보내지 못한 요청이 더해지므로 처리량은 실제로 받은 응답 수로 계산한다
+    private double throughput(long requests) {
+        return requests / (results.elapsedNanos() / 1e9);
+    }
+
+    // 50 -> p50, 99.9 -> p99.9
+    private static String label(double percentile) {
+        return "p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile));
+    }
+
+    private static String cell(Object value) {
+        return "<td>" + value + "</td>";
+    }
+
+    private static double millis(long micros) {
+        return micros / MICROS_PER_MILLI;
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
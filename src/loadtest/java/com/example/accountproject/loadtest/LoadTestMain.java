@@ -0,0 +1,116 @@
+package com.example.accountproject.loadtest;
+
+import com.example.accountproject.AccountProjectApplication;
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.loadtest.LoadGenerator.Results;
+import com.example.accountproject.loadtest.LoadGenerator.TargetAccount;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.service.AccountService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST API 부하 테스트 (./gradlew loadTest)
+ * 애플리케이션을 임의 포트로 띄우고 계좌를 만든 뒤, 설정한 요청 구성으로 부하를 주고 결과를 출력한다.
+ * 보고서는 loadtest.report-dir (기본 build/reports/loadtest) 에 report.json, report.html 로 쓴다.
+ *
+ * 설정 (시스템 프로퍼티, gradle 에서는 -Ploadtest.xxx=값)
+ * - loadtest.accounts : 계좌 수 (기본 1000)
+ * - loadtest.zipf-exponent : 계좌 인기도 Zipf 지수, 0 이면 균등 (기본 1.0)
+ * - loadtest.clients : 동시 연결(클라이언트 스레드) 수 (기본 64)
+ * - loadtest.rate : 전체 목표 요청 수/초, 0 이면 쉬지 않고 보낸다 (기본 0)
+ * - loadtest.warmup-seconds / loadtest.duration-seconds : 예열, 측정 시간 (기본 10 / 60)
+ * - loadtest.mix : read-heavy, balanced, write-heavy (기본 balanced)
+ * - loadtest.read-percent / cancel-percent / transaction-read-percent : mix 의 비율을 덮어쓴다
+ * - loadtest.app-args : 애플리케이션 설정, 쉼표로 구분한 key=value (예: account.lock.type=local)
+ */
+public final class LoadTestMain {
+    private static final long INITIAL_BALANCE = 1_000_000_000_000L;
+    private static final int MAX_ACCOUNT_PER_USER = 10;
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int accountCount = Integer.getInteger("loadtest.accounts", 1000);
+        double zipfExponent = Double.parseDouble(System.getProperty("loadtest.zipf-exponent", "1.0"));
+        int clients = Integer.getInteger("loadtest.clients", 64);
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "0"));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10L));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60L));
+        WorkloadMix mix = WorkloadMix.fromSystemProperties();
+        Path reportDirectory = Paths.get(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+        List<String> appArgs = new ArrayList<>(Arrays.asList(
+                "--server.port=0",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.root=WARN"));
+        String extraArgs = System.getProperty("loadtest.app-args", "");
+        for (String property : extraArgs.split(",")) {
+            if (!property.isBlank()) {
+                appArgs.add("--" + property.trim());
+            }
+        }
+
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AccountProjectApplication.class)
+                .run(appArgs.toArray(new String[0]))) {
+            URI baseUri = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port"));
+            List<TargetAccount> accounts = createAccounts(context, accountCount);
+            ZipfDistribution popularity = new ZipfDistribution(accountCount, zipfExponent);
+            LoadGenerator generator = new LoadGenerator(baseUri, mix, accounts, popularity, clients, rate);
+
+            System.out.printf("warming up for %ds ...%n", warmup.toSeconds());
+            generator.run(warmup);
+            System.out.printf("measuring for %ds ...%n", duration.toSeconds());
+            Results results = generator.run(duration);
+
+            Map<String, Object> settings = new LinkedHashMap<>();
+            settings.put("mix", mix.getName());
+            settings.put("readPercent", mix.getReadPercent());
+            settings.put("cancelPercent", mix.getCancelPercent());
+            settings.put("transactionReadPercent", mix.getTransactionReadPercent());
+            settings.put("accounts", accountCount);
+            settings.put("zipfExponent", zipfExponent);
+            settings.put("top1PercentAccountShare", popularity.headShare(Math.max(1, accountCount / 100)));
+            settings.put("clients", clients);
+            settings.put("targetRate", rate);
+            settings.put("warmupSeconds", warmup.toSeconds());
+            settings.put("durationSeconds", duration.toSeconds());
+            settings.put("appArgs", extraArgs);
+
+            LoadReport report = new LoadReport(settings, results);
+            report.print(System.out);
+            report.write(reportDirectory);
+            System.out.println("report : " + reportDirectory.toAbsolutePath().resolve("report.html"));
+        }
+    }
+
+    private static List<TargetAccount> createAccounts(ConfigurableApplicationContext context, int count) {
+        AccountUserRepository accountUserRepository = context.getBean(AccountUserRepository.class);
+        AccountService accountService = context.getBean(AccountService.class);
+
+        List<TargetAccount> accounts = new ArrayList<>(count);
+        AccountUser accountUser = null;
+        for (int i = 0; i < count; i++) {
+            if (i % MAX_ACCOUNT_PER_USER == 0) {
+                accountUser = accountUserRepository.save(AccountUser.builder()
+                        .name("load-" + i)
+                        .build());
+            }
+            String accountNumber = accountService.createAccount(accountUser.getId(), INITIAL_BALANCE)
+                    .getAccountNumber();
+            accounts.add(new TargetAccount(accountUser.getId(), accountNumber));
+        }
+        return accounts;
+    }
+}
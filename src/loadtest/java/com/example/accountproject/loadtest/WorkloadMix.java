@@ -0,0 +1,93 @@
+package com.example.accountproject.loadtest;
+
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 요청 구성 비율
+ * 전체 요청 중 readPercent 가 조회, 나머지가 잔액 변경이다.
+ * 조회 중 transactionReadPercent 는 거래 확인(GET /transaction/{id}), 나머지는 계좌 목록(GET /account) 이다.
+ * 잔액 변경 중 cancelPercent 는 잔액 사용 취소, 나머지는 잔액 사용이다.
+ */
+final class WorkloadMix {
+    enum Operation {
+        ACCOUNT_LIST("GET /account"),
+        TRANSACTION_INFO("GET /transaction/{id}"),
+        USE("POST /transaction/use"),
+        CANCEL("POST /transaction/cancel");
+
+        private final String endpoint;
+
+        Operation(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        String getEndpoint() {
+            return endpoint;
+        }
+    }
+
+    // 이름으로 고를 수 있는 기본 구성 (readPercent, cancelPercent, transactionReadPercent)
+    private static final Map<String, int[]> PRESETS = Map.of(
+            "read-heavy", new int[]{90, 10, 50},
+            "balanced", new int[]{50, 20, 50},
+            "write-heavy", new int[]{10, 30, 50}
+    );
+
+    private final String name;
+    private final int readPercent;
+    private final int cancelPercent;
+    private final int transactionReadPercent;
+
+    WorkloadMix(String name, int readPercent, int cancelPercent, int transactionReadPercent) {
+        this.name = name;
+        this.readPercent = checkPercent("readPercent", readPercent);
+        this.cancelPercent = checkPercent("cancelPercent", cancelPercent);
+        this.transactionReadPercent = checkPercent("transactionReadPercent", transactionReadPercent);
+    }
+
+    /**
+     * loadtest.mix 의 기본 구성에 loadtest.read-percent / cancel-percent / transaction-read-percent 를 덮어쓴다
+     */
+    static WorkloadMix fromSystemProperties() {
+        String name = System.getProperty("loadtest.mix", "balanced");
+        int[] preset = PRESETS.get(name);
+        if (preset == null) {
+            throw new IllegalArgumentException("Unknown loadtest.mix : " + name + ", expected one of " + PRESETS.keySet());
+        }
+        return new WorkloadMix(name,
+                Integer.getInteger("loadtest.read-percent", preset[0]),
+                Integer.getInteger("loadtest.cancel-percent", preset[1]),
+                Integer.getInteger("loadtest.transaction-read-percent", preset[2]));
+    }
+
+    Operation pick(Random random) {
+        if (random.nextInt(100) < readPercent) {
+            return random.nextInt(100) < transactionReadPercent ? Operation.TRANSACTION_INFO : Operation.ACCOUNT_LIST;
+        }
+        return random.nextInt(100) < cancelPercent ? Operation.CANCEL : Operation.USE;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getReadPercent() {
+        return readPercent;
+    }
+
+    int getCancelPercent() {
+        return cancelPercent;
+    }
+
+    int getTransactionReadPercent() {
+        return transactionReadPercent;
+    }
+
+    private static int checkPercent(String name, int value) {
+        if (value < 0 || value > 100) {
+            throw new IllegalArgumentException(name + " must be between 0 and 100 : " + value);
+        }
+        return value;
+    }
+}
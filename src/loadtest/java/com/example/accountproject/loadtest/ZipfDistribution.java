@@ -0,0 +1,41 @@
+package com.example.accountproject.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 0 ~ size-1 순위를 Zipf 분포로 뽑는다
+ * 순위 k 의 확률은 1 / (k+1)^exponent 에 비례한다. exponent 가 0 이면 균등 분포이다.
+ * 누적 확률을 미리 계산해 두고 이진 탐색으로 뽑으므로 한 번 뽑는 비용은 O(log size) 이다.
+ */
+final class ZipfDistribution {
+    private final double[] cumulative;
+
+    ZipfDistribution(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive : " + size);
+        }
+        cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1.0 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        for (int rank = 0; rank < size; rank++) {
+            cumulative[rank] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    /**
+     * 상위 count 개 순위가 차지하는 비율
+     */
+    double headShare(int count) {
+        return cumulative[Math.min(count, cumulative.length) - 1];
+    }
+}
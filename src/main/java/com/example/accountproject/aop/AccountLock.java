@@ -7,5 +7,9 @@ import java.lang.annotation.*;
 @Documented
 @Inherited
 public @interface AccountLock {
+    // Lock 대기 시간(ms). account.lock.adaptive.enabled=true 이면 상한
     long tryLockTime() default 5000L;
+
+    // 해제하지 않아도 Lock 이 풀리는 시간(ms). account.lock.lease.watchdog=true 이면 쓰지 않는다
+    long leaseTime() default 15000L;
 }
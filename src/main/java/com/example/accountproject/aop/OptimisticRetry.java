@@ -0,0 +1,10 @@
+package com.example.accountproject.aop;
+
+import java.lang.annotation.*;
+
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Inherited
+public @interface OptimisticRetry {
+}
@@ -0,0 +1,357 @@
+package com.example.accountproject.cache;
+
+import com.example.accountproject.dto.AccountDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RScript;
+import org.redisson.api.RScriptAsync;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 사용자 별 계좌 목록 캐시 (로컬 LRU/TTL 캐시 -> Redis 캐시 -> DB)
+ * 계좌 생성/해지, 잔액 사용/취소가 커밋된 뒤에 해당 사용자의 캐시를 지우고,
+ * Redis topic 으로 다른 인스턴스의 로컬 캐시도 지운다.
+ * 삭제할 때마다 사용자 별 세대 값(ACINFO:GEN:{userId})을 올리고, DB 에서 읽기 전의 세대 값이 그대로일 때만 Redis 에 저장하므로
+ * 커밋 전에 읽은 목록이 삭제 이후에 다시 저장되지 않는다. 로컬 캐시도 같은 방식으로 사용자 별 로컬 세대 값을 확인하므로
+ * 한 사용자의 삭제가 다른 사용자의 로컬 캐시 저장을 막지 않는다.
+ */
+@Slf4j
+@Component
+public class AccountInfoCache implements MeterBinder {
+    private static final String KEY_PREFIX = "ACINFO:";
+    private static final String INVALIDATION_TOPIC = "ACINFO:INVALIDATE";
+    private static final String GENERATION_KEY_PREFIX = "ACINFO:GEN:";
+    private static final String CACHE_NAME = "accountInfo";
+    // 조회 중에 세대 값이 만료되어 다시 같은 값이 되지 않도록 캐시 TTL 보다 충분히 길게 둔다
+    private static final long GENERATION_TTL_SECONDS = TimeUnit.DAYS.toSeconds(1);
+    private static final String PUT_IF_GENERATION_SCRIPT =
+            "if (redis.call('get', KEYS[1]) or '0') == ARGV[1] then "
+                    + "redis.call('set', KEYS[2], ARGV[2], 'EX', ARGV[3]) return 1 end "
+                    + "return 0";
+    // 세대 값 증가, 캐시 삭제, 다른 인스턴스에 알림을 한 번의 왕복으로 처리한다
+    private static final String EVICT_SCRIPT =
+            "redis.call('incr', KEYS[1]) "
+                    + "redis.call('expire', KEYS[1], ARGV[1]) "
+                    + "redis.call('publish', ARGV[2], ARGV[3]) "
+                    + "return redis.call('del', KEYS[2])";
+    private static final TypeReference<List<AccountDto>> ACCOUNT_LIST = new TypeReference<>() {
+    };
+
+    private final RedissonClient redissonClient;
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final long redisTtlSeconds;
+    private final int localMaxSize;
+    private final LocalLruCache<Long, List<AccountDto>> localCache;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder stalePutsSkipped = new LongAdder();
+    // 사용자 별 로컬 세대 값, 조회 중에 해당 사용자의 값이 바뀌면 로컬 캐시에 넣지 않는다
+    // 값은 모두 localGenerationSequence 에서 새로 받으므로 한 번 바뀐 값이 이전 값으로 돌아가지 않는다
+    private final AtomicLong localGenerationSequence = new AtomicLong();
+    private final ConcurrentHashMap<Long, Long> localGenerations = new ConcurrentHashMap<>();
+    // localGenerations 를 비운 뒤 항목이 없는 사용자의 세대 값
+    private volatile long localGenerationFloor;
+
+    private RTopic invalidationTopic;
+    private int listenerId;
+
+    public AccountInfoCache(RedissonClient redissonClient,
+                            ObjectMapper objectMapper,
+                            @Value("${account.cache.accounts.enabled:true}") boolean enabled,
+                            @Value("${account.cache.accounts.local-max-size:10000}") int localMaxSize,
+                            @Value("${account.cache.accounts.local-ttl-seconds:5}") long localTtlSeconds,
+                            @Value("${account.cache.accounts.redis-ttl-seconds:60}") long redisTtlSeconds) {
+        this.redissonClient = redissonClient;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.redisTtlSeconds = redisTtlSeconds;
+        this.localMaxSize = localMaxSize;
+        this.localCache = new LocalLruCache<>(localMaxSize, TimeUnit.SECONDS.toMillis(localTtlSeconds));
+    }
+
+    @PostConstruct
+    public void subscribe() {
+        if (!enabled) {
+            return;
+        }
+        invalidationTopic = redissonClient.getTopic(INVALIDATION_TOPIC, LongCodec.INSTANCE);
+        listenerId = invalidationTopic.addListener(Long.class, (channel, userId) -> removeLocal(userId));
+    }
+
+    @PreDestroy
+    public void unsubscribe() {
+        if (invalidationTopic != null) {
+            invalidationTopic.removeListener(listenerId);
+        }
+    }
+
+    /**
+     * 계좌 목록 조회
+     * @param userId
+     * @param loader 캐시에 없을 때 DB 에서 조회하는 함수
+     * @return 계좌 목록
+     */
+    public List<AccountDto> get(Long userId, Supplier<List<AccountDto>> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        List<AccountDto> accounts = localCache.get(userId);
+        if (accounts != null) {
+            localHits.increment();
+            return accounts;
+        }
+
+        long localGenerationBefore = localGeneration(userId);
+        accounts = getFromRedis(userId);
+        if (accounts != null) {
+            redisHits.increment();
+            putToLocal(userId, accounts, localGenerationBefore);
+            return accounts;
+        }
+
+        misses.increment();
+        String generation = getGeneration(userId);
+        accounts = loader.get();
+        if (generation != null) {
+            putToRedis(userId, accounts, generation);
+        }
+        putToLocal(userId, accounts, localGenerationBefore);
+        return accounts;
+    }
+
+    /**
+     * 계좌 목록 캐시 삭제
+     * @param userId
+     * 트랜잭션 안에서 호출되면 커밋된 뒤에 삭제하고, 롤백되면 삭제하지 않는다.
+     * 한 트랜잭션에서 같은 사용자를 여러 번 지워도 커밋 뒤에 한 번만 지운다.
+     */
+    public void evictAfterCommit(Long userId) {
+        if (!enabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictSynchronization().userIds.add(userId);
+        } else {
+            evict(userId);
+        }
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋 뒤에 지울 사용자를 넘겨받는다
+     * @return 넘겨받은 사용자, 넘겨받은 쪽이 커밋된 뒤에 evict 를 호출해야 한다
+     * 여러 작업을 한 트랜잭션으로 커밋하는 쪽(group commit)이 커밋 스레드 밖에서 지울 때 사용한다.
+     */
+    public Set<Long> detachPendingEvictions() {
+        if (!enabled || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return Collections.emptySet();
+        }
+        EvictSynchronization synchronization = findEvictSynchronization();
+        if (synchronization == null) {
+            return Collections.emptySet();
+        }
+        Set<Long> userIds = new LinkedHashSet<>(synchronization.userIds);
+        synchronization.userIds.clear();
+        return userIds;
+    }
+
+    /**
+     * 계좌 목록 캐시를 바로 삭제
+     * @param userIds
+     * 여러 사용자는 Redis 에 한 번의 batch 로 보낸다.
+     */
+    public void evict(Collection<Long> userIds) {
+        if (!enabled || userIds.isEmpty()) {
+            return;
+        }
+        if (userIds.size() == 1) {
+            evict(userIds.iterator().next());
+            return;
+        }
+
+        for (Long userId : userIds) {
+            invalidations.increment();
+            removeLocal(userId);
+        }
+        try {
+            RBatch batch = redissonClient.createBatch();
+            RScriptAsync script = batch.getScript(StringCodec.INSTANCE);
+            for (Long userId : userIds) {
+                script.evalAsync(RScript.Mode.READ_WRITE, EVICT_SCRIPT, RScript.ReturnType.INTEGER,
+                        Arrays.asList(GENERATION_KEY_PREFIX + userId, KEY_PREFIX + userId),
+                        String.valueOf(GENERATION_TTL_SECONDS), INVALIDATION_TOPIC, String.valueOf(userId));
+            }
+            batch.execute();
+        } catch (RuntimeException e) {
+            log.error("Failed to evict account info cache. userIds : {}", userIds, e);
+        }
+    }
+
+    /**
+     * 현재 트랜잭션에 등록된 삭제 동기화, 없으면 새로 등록
+     * REQUIRES_NEW 로 시작한 트랜잭션은 바깥 트랜잭션의 동기화가 보이지 않으므로 따로 등록된다.
+     */
+    private EvictSynchronization evictSynchronization() {
+        EvictSynchronization synchronization = findEvictSynchronization();
+        if (synchronization == null) {
+            synchronization = new EvictSynchronization();
+            TransactionSynchronizationManager.registerSynchronization(synchronization);
+        }
+        return synchronization;
+    }
+
+    private EvictSynchronization findEvictSynchronization() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof EvictSynchronization
+                    && ((EvictSynchronization) synchronization).owner() == this) {
+                return (EvictSynchronization) synchronization;
+            }
+        }
+        return null;
+    }
+
+    private class EvictSynchronization implements TransactionSynchronization {
+        private final Set<Long> userIds = new LinkedHashSet<>();
+
+        private AccountInfoCache owner() {
+            return AccountInfoCache.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            evict(userIds);
+        }
+    }
+
+    private void evict(Long userId) {
+        invalidations.increment();
+        removeLocal(userId);
+        try {
+            redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, EVICT_SCRIPT,
+                    RScript.ReturnType.INTEGER,
+                    Arrays.asList(GENERATION_KEY_PREFIX + userId, KEY_PREFIX + userId),
+                    String.valueOf(GENERATION_TTL_SECONDS), INVALIDATION_TOPIC, String.valueOf(userId));
+        } catch (RuntimeException e) {
+            log.error("Failed to evict account info cache. userId : {}", userId, e);
+        }
+    }
+
+    private void removeLocal(Long userId) {
+        if (localGenerations.size() >= localMaxSize) {
+            // 삭제된 사용자 수만큼 계속 늘어나지 않도록 비운다.
+            // 바닥 값을 새로 받은 뒤에 비우므로 조회 중이던 사용자는 모두 값이 바뀐 것으로 보고 로컬 캐시에 넣지 않는다
+            localGenerationFloor = localGenerationSequence.incrementAndGet();
+            localGenerations.clear();
+        }
+        localGenerations.put(userId, localGenerationSequence.incrementAndGet());
+        localCache.remove(userId);
+    }
+
+    private long localGeneration(Long userId) {
+        Long generation = localGenerations.get(userId);
+        return generation != null ? generation : localGenerationFloor;
+    }
+
+    private void putToLocal(Long userId, List<AccountDto> accounts, long localGenerationBefore) {
+        localCache.put(userId, accounts);
+        // 넣는 사이에 지워졌을 수 있으므로 다시 확인해서 직접 지운다
+        if (localGeneration(userId) != localGenerationBefore) {
+            localCache.remove(userId);
+        }
+    }
+
+    /**
+     * @return 세대 값, 읽지 못하면 null 을 돌려주고 Redis 에 저장하지 않는다
+     */
+    private String getGeneration(Long userId) {
+        try {
+            String generation = redissonClient.<String>getBucket(GENERATION_KEY_PREFIX + userId, StringCodec.INSTANCE).get();
+            return generation == null ? "0" : generation;
+        } catch (RuntimeException e) {
+            log.error("Failed to read account info cache generation. userId : {}", userId, e);
+            return null;
+        }
+    }
+
+    private List<AccountDto> getFromRedis(Long userId) {
+        try {
+            String json = redissonClient.<String>getBucket(KEY_PREFIX + userId, StringCodec.INSTANCE).get();
+            return json == null ? null : objectMapper.readValue(json, ACCOUNT_LIST);
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Failed to read account info cache. userId : {}", userId, e);
+            return null;
+        }
+    }
+
+    private void putToRedis(Long userId, List<AccountDto> accounts, String generation) {
+        try {
+            Long stored = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                    PUT_IF_GENERATION_SCRIPT, RScript.ReturnType.INTEGER,
+                    Arrays.asList(GENERATION_KEY_PREFIX + userId, KEY_PREFIX + userId),
+                    generation, objectMapper.writeValueAsString(accounts), String.valueOf(redisTtlSeconds));
+            if (stored == 0L) {
+                stalePutsSkipped.increment();
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Failed to write account info cache. userId : {}", userId, e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", localHits, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("tier", "local").tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", redisHits, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("tier", "redis").tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("tier", "redis").tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", localCache, LocalLruCache::evictionCount)
+                .tag("cache", CACHE_NAME).tag("tier", "local")
+                .register(registry);
+        FunctionCounter.builder("cache.invalidations", invalidations, LongAdder::sum)
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+        FunctionCounter.builder("cache.puts.skipped", stalePutsSkipped, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("tier", "redis")
+                .register(registry);
+        Gauge.builder("cache.size", localCache, LocalLruCache::size)
+                .tag("cache", CACHE_NAME).tag("tier", "local")
+                .register(registry);
+    }
+}
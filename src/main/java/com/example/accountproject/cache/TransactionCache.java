@@ -0,0 +1,487 @@
+package com.example.accountproject.cache;
+
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.repositorty.TransactionRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * 거래 조회 캐시
+ * 거래 정보는 저장된 뒤 변경되지 않으므로 무효화 없이 크기 제한(LRU)으로만 관리한다.
+ * 없는 거래 아이디는 Redis Bloom filter 로 DB 조회 없이 걸러낸다.
+ * Bloom filter 에는 거래를 저장한 트랜잭션이 커밋하기 직전에 아이디를 추가하므로 false negative 가 없고,
+ * 롤백된 거래는 false positive 로만 남는다. 한 트랜잭션에서 저장한 여러 아이디(group commit, 배치)는 한꺼번에 보낸다.
+ * DB 의 거래 아이디는 상태 값이 READY 가 아닐 때 한 인스턴스가 SEEDING 임대를 잡고 백그라운드에서 채운다.
+ * 임대는 채우는 동안 연장하고, 채우던 인스턴스가 죽거나 실패하면 임대가 만료되거나 풀린 뒤 다른 인스턴스가 이어받는다.
+ * 아이디를 추가하지 못한 인스턴스는 Redis 의 상태 값을 INCOMPLETE 로 바꾸고, 모든 인스턴스는 없다는 결과를 받으면
+ * 상태 값을 다시 확인한 뒤에만 믿는다. INCOMPLETE 가 된 Bloom filter 는 다시 믿지 않으므로
+ * TXID:BLOOM, TXID:BLOOM:STATE 키를 지우고 재시작해서 다시 채워야 한다.
+ * expected-insertions 보다 많은 거래가 쌓이면 false positive 비율이 올라가므로 bloom.count 지표를 확인한다.
+ * bloom.count 는 Bitmap 전체를 세는 BITCOUNT 이므로 조회할 때마다 계산하지 않고 백그라운드에서 가끔 갱신한다.
+ */
+@Slf4j
+@Component
+public class TransactionCache implements MeterBinder {
+    private static final String BLOOM_FILTER_KEY = "TXID:BLOOM";
+    private static final String BLOOM_STATE_KEY = "TXID:BLOOM:STATE";
+    private static final String STATE_READY = "READY";
+    private static final String STATE_INCOMPLETE = "INCOMPLETE";
+    private static final String STATE_SEEDING_PREFIX = "SEEDING:";
+    private static final String CACHE_NAME = "transaction";
+    private static final long READY_CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final long SEED_LEASE_MILLIS = TimeUnit.SECONDS.toMillis(60);
+    private static final long SEED_CHECK_INTERVAL_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final int SEED_CHUNK_SIZE = 1000;
+    // 한 번에 Redis 로 보내는 추가 요청 수, Redisson 연결에서 파이프라인으로 나간다
+    private static final int ADD_CONCURRENCY = 16;
+    private static final long BLOOM_COUNT_REFRESH_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    private static final String RENEW_SEED_LEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) end "
+                    + "return 0";
+
+    private final RedissonClient redissonClient;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final boolean enabled;
+    private final boolean bloomEnabled;
+    private final long expectedInsertions;
+    private final double falseProbability;
+    private final LocalLruCache<String, TransactionDto> localCache;
+    private final String seedLeaseValue = STATE_SEEDING_PREFIX + UUID.randomUUID();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+
+    private RBloomFilter<String> bloomFilter;
+    private ExecutorService bloomAddExecutor;
+    private ScheduledExecutorService bloomScheduler;
+    private volatile ScheduledFuture<?> seedTask;
+    private volatile double bloomCount;
+    private volatile boolean bloomReady;
+    private volatile boolean bloomIncomplete;
+    private volatile boolean incompleteMarkPending;
+    private volatile long nextReadyCheck;
+
+    public TransactionCache(RedissonClient redissonClient,
+                            TransactionRepository transactionRepository,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${account.cache.transactions.enabled:true}") boolean enabled,
+                            @Value("${account.cache.transactions.local-max-size:100000}") int localMaxSize,
+                            @Value("${account.cache.transactions.bloom.enabled:true}") boolean bloomEnabled,
+                            @Value("${account.cache.transactions.bloom.expected-insertions:10000000}") long expectedInsertions,
+                            @Value("${account.cache.transactions.bloom.false-probability:0.01}") double falseProbability) {
+        this.redissonClient = redissonClient;
+        this.transactionRepository = transactionRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.bloomEnabled = enabled && bloomEnabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falseProbability = falseProbability;
+        this.localCache = new LocalLruCache<>(localMaxSize, 0);
+        this.nextReadyCheck = System.nanoTime();
+    }
+
+    /**
+     * Bloom filter 생성
+     * 요청을 받기 전에 만들어 두어야 그 뒤에 저장하는 거래 아이디가 빠짐없이 들어간다.
+     */
+    @PostConstruct
+    public void createBloomFilter() {
+        if (!bloomEnabled) {
+            return;
+        }
+
+        bloomFilter = redissonClient.getBloomFilter(BLOOM_FILTER_KEY, StringCodec.INSTANCE);
+        bloomAddExecutor = Executors.newFixedThreadPool(ADD_CONCURRENCY, runnable -> {
+            Thread thread = new Thread(runnable, "transaction-bloom-add");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            bloomFilter.tryInit(expectedInsertions, falseProbability);
+        } catch (RuntimeException e) {
+            log.error("Failed to create transaction id bloom filter.", e);
+        }
+    }
+
+    /**
+     * Bloom filter 초기화
+     * 준비 완료 상태가 아니면 백그라운드에서 임대를 잡고 DB 의 거래 아이디를 채운다.
+     * 준비가 끝나기 전에는 Bloom filter 를 사용하지 않는다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initBloomFilter() {
+        if (!bloomEnabled) {
+            return;
+        }
+
+        try {
+            bloomReady = isMarkedReady();
+        } catch (RuntimeException e) {
+            log.error("Failed to check transaction id bloom filter state.", e);
+        }
+
+        bloomScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "transaction-bloom");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (!bloomReady) {
+            seedTask = bloomScheduler.scheduleWithFixedDelay(this::seedIfRequired,
+                    0, SEED_CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        bloomScheduler.scheduleWithFixedDelay(this::refreshBloomCount,
+                0, BLOOM_COUNT_REFRESH_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (bloomScheduler != null) {
+            bloomScheduler.shutdownNow();
+        }
+        if (bloomAddExecutor != null) {
+            bloomAddExecutor.shutdown();
+        }
+    }
+
+    /**
+     * 준비 완료 상태가 아니고 채우는 인스턴스가 없으면 임대를 잡고 채운다
+     * 다른 인스턴스가 채우는 중이면 다음 확인 때 임대가 남아 있는지 다시 본다.
+     */
+    void seedIfRequired() {
+        try {
+            String state = bloomState().get();
+            if (STATE_READY.equals(state) || STATE_INCOMPLETE.equals(state)) {
+                bloomReady = STATE_READY.equals(state);
+                cancelSeedTask();
+                return;
+            }
+            if (state != null || !bloomState().trySet(seedLeaseValue, SEED_LEASE_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to check transaction id bloom filter state.", e);
+            return;
+        }
+
+        try {
+            long seeded = seed();
+            // 채우는 사이 INCOMPLETE 가 되었거나 임대를 잃었다면 READY 로 바꾸지 않는다
+            if (bloomState().compareAndSet(seedLeaseValue, STATE_READY)) {
+                bloomReady = true;
+                cancelSeedTask();
+                log.info("Transaction id bloom filter seeded with {} ids", seeded);
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to seed transaction id bloom filter. Will retry.", e);
+            releaseSeedLease();
+        }
+    }
+
+    /**
+     * DB 의 거래 아이디를 SEED_CHUNK_SIZE 건씩 나눠 넣고, 나눈 단위마다 임대를 연장한다
+     * @return 넣은 아이디 수
+     */
+    private long seed() {
+        LongAdder seeded = new LongAdder();
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            List<String> chunk = new ArrayList<>(SEED_CHUNK_SIZE);
+            try (Stream<String> transactionIds = transactionRepository.streamAllTransactionIds()) {
+                transactionIds.forEach(transactionId -> {
+                    chunk.add(transactionId);
+                    if (chunk.size() == SEED_CHUNK_SIZE) {
+                        seedChunk(chunk);
+                        seeded.add(chunk.size());
+                        chunk.clear();
+                        renewSeedLease();
+                    }
+                });
+            }
+            seedChunk(chunk);
+            seeded.add(chunk.size());
+        });
+        return seeded.sum();
+    }
+
+    private void seedChunk(List<String> chunk) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new IllegalStateException("Transaction id bloom filter seeding interrupted.");
+        }
+        addAll(chunk);
+    }
+
+    /**
+     * 아이디를 ADD_CONCURRENCY 개씩 동시에 추가해서 Redis 왕복을 겹친다
+     * 하나라도 실패하면 예외를 던진다.
+     */
+    private void addAll(Collection<String> transactionIds) {
+        if (transactionIds.size() == 1) {
+            bloomFilter.add(transactionIds.iterator().next());
+            return;
+        }
+        List<CompletableFuture<?>> adds = new ArrayList<>(transactionIds.size());
+        for (String transactionId : transactionIds) {
+            adds.add(CompletableFuture.runAsync(() -> bloomFilter.add(transactionId), bloomAddExecutor));
+        }
+        CompletableFuture.allOf(adds.toArray(new CompletableFuture[0])).join();
+    }
+
+    private void renewSeedLease() {
+        Long renewed = redissonClient.getScript(StringCodec.INSTANCE).eval(RScript.Mode.READ_WRITE,
+                RENEW_SEED_LEASE_SCRIPT, RScript.ReturnType.INTEGER,
+                Collections.singletonList(BLOOM_STATE_KEY),
+                seedLeaseValue, String.valueOf(SEED_LEASE_MILLIS));
+        if (renewed == null || renewed == 0L) {
+            throw new IllegalStateException("Lost transaction id bloom filter seed lease.");
+        }
+    }
+
+    private void releaseSeedLease() {
+        try {
+            bloomState().compareAndSet(seedLeaseValue, null);
+        } catch (RuntimeException e) {
+            log.error("Failed to release transaction id bloom filter seed lease. It expires in {} ms.",
+                    SEED_LEASE_MILLIS, e);
+        }
+    }
+
+    private void cancelSeedTask() {
+        if (seedTask != null) {
+            seedTask.cancel(false);
+        }
+    }
+
+    /**
+     * 거래 조회
+     * @param transactionId
+     * @param loader 캐시에 없을 때 DB 에서 조회하는 함수
+     * @return 거래 정보, Bloom filter 에 없는 아이디는 DB 조회 없이 빈 값
+     */
+    public Optional<TransactionDto> find(String transactionId, Function<String, Optional<TransactionDto>> loader) {
+        if (!enabled) {
+            return loader.apply(transactionId);
+        }
+
+        TransactionDto transaction = localCache.get(transactionId);
+        if (transaction != null) {
+            hits.increment();
+            return Optional.of(transaction);
+        }
+
+        if (!mightContain(transactionId)) {
+            negativeHits.increment();
+            return Optional.empty();
+        }
+
+        misses.increment();
+        Optional<TransactionDto> loaded = loader.apply(transactionId);
+        loaded.ifPresent(dto -> localCache.put(transactionId, dto));
+        return loaded;
+    }
+
+    /**
+     * 새 거래 등록
+     * @param transaction
+     * Bloom filter 에는 커밋 직전에 추가하고, 로컬 캐시에는 커밋된 뒤에 추가한다.
+     */
+    public void onSaved(TransactionDto transaction) {
+        if (!enabled) {
+            return;
+        }
+
+        addTransactionId(transaction.getTransactionId());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    localCache.put(transaction.getTransactionId(), transaction);
+                }
+            });
+        } else {
+            localCache.put(transaction.getTransactionId(), transaction);
+        }
+    }
+
+    /**
+     * 거래 아이디를 Bloom filter 에 추가
+     * @param transactionId
+     * 트랜잭션 안에서 호출되면 커밋 직전에 그 트랜잭션의 아이디를 한꺼번에 추가하고, 밖에서 호출되면 바로 추가한다.
+     * 트랜잭션 밖에서는 거래 정보를 저장하기 전에 호출해야 한다.
+     */
+    public void addTransactionId(String transactionId) {
+        if (!bloomEnabled) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            bloomAddSynchronization().transactionIds.add(transactionId);
+        } else {
+            addOrMarkIncomplete(Collections.singletonList(transactionId));
+        }
+    }
+
+    private void addOrMarkIncomplete(Collection<String> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return;
+        }
+        try {
+            addAll(transactionIds);
+        } catch (RuntimeException e) {
+            log.error("Failed to add transaction id to bloom filter. Disabling negative cache.", e);
+            markIncomplete();
+        }
+    }
+
+    private BloomAddSynchronization bloomAddSynchronization() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof BloomAddSynchronization
+                    && ((BloomAddSynchronization) synchronization).owner() == this) {
+                return (BloomAddSynchronization) synchronization;
+            }
+        }
+        BloomAddSynchronization synchronization = new BloomAddSynchronization();
+        TransactionSynchronizationManager.registerSynchronization(synchronization);
+        return synchronization;
+    }
+
+    private class BloomAddSynchronization implements TransactionSynchronization {
+        private final List<String> transactionIds = new ArrayList<>();
+
+        private TransactionCache owner() {
+            return TransactionCache.this;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            addOrMarkIncomplete(transactionIds);
+        }
+    }
+
+    private boolean mightContain(String transactionId) {
+        if (!bloomEnabled || !isBloomReady()) {
+            return true;
+        }
+
+        try {
+            // 다른 인스턴스가 아이디 추가에 실패했을 수 있으므로 없다는 결과는 상태 값을 다시 확인한 뒤에만 믿는다
+            return bloomFilter.contains(transactionId) || !isMarkedReady();
+        } catch (RuntimeException e) {
+            log.error("Failed to check transaction id bloom filter.", e);
+            return true;
+        }
+    }
+
+    /**
+     * 추가하지 못한 아이디가 걸러지지 않도록 모든 인스턴스가 Bloom filter 를 더 이상 믿지 않게 한다
+     * Redis 에 남기지 못하면 다음 호출 때 다시 시도한다.
+     */
+    private void markIncomplete() {
+        bloomIncomplete = true;
+        bloomReady = false;
+        try {
+            bloomState().set(STATE_INCOMPLETE);
+            incompleteMarkPending = false;
+        } catch (RuntimeException e) {
+            incompleteMarkPending = true;
+            log.error("Failed to mark transaction id bloom filter incomplete.", e);
+        }
+    }
+
+    private boolean isBloomReady() {
+        if (incompleteMarkPending) {
+            markIncomplete();
+        }
+        if (bloomIncomplete) {
+            return false;
+        }
+        if (bloomReady) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        if (now - nextReadyCheck < 0) {
+            return false;
+        }
+        nextReadyCheck = now + READY_CHECK_INTERVAL_NANOS;
+        try {
+            bloomReady = isMarkedReady();
+        } catch (RuntimeException e) {
+            log.error("Failed to check transaction id bloom filter state.", e);
+        }
+        return bloomReady;
+    }
+
+    private boolean isMarkedReady() {
+        boolean ready = STATE_READY.equals(bloomState().get());
+        if (!ready) {
+            bloomReady = false;
+        }
+        return ready;
+    }
+
+    private RBucket<String> bloomState() {
+        return redissonClient.getBucket(BLOOM_STATE_KEY, StringCodec.INSTANCE);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("cache.gets", hits, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("tier", "local").tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", misses, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("tier", "local").tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", negativeHits, LongAdder::sum)
+                .tag("cache", CACHE_NAME).tag("tier", "bloom").tag("result", "negative")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", localCache, LocalLruCache::evictionCount)
+                .tag("cache", CACHE_NAME).tag("tier", "local")
+                .register(registry);
+        Gauge.builder("cache.size", localCache, LocalLruCache::size)
+                .tag("cache", CACHE_NAME).tag("tier", "local")
+                .register(registry);
+        Gauge.builder("cache.bloom.count", this, cache -> cache.bloomCount)
+                .tag("cache", CACHE_NAME)
+                .register(registry);
+    }
+
+    private void refreshBloomCount() {
+        try {
+            bloomCount = bloomFilter.count();
+        } catch (RuntimeException e) {
+            bloomCount = Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.accountproject.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 요청 별 비동기 제한 시간
+ * StreamingResponseBody 는 제한 시간을 받지 않으므로, 핸들러가 요청 속성(TIMEOUT_ATTRIBUTE)에 둔 제한 시간을
+ * 비동기 처리를 시작하기 직전에 적용한다. 속성이 없는 요청은 spring.mvc.async.request-timeout 을 따른다.
+ */
+@Configuration
+public class AsyncTimeoutConfig implements WebMvcConfigurer {
+    public static final String TIMEOUT_ATTRIBUTE = AsyncTimeoutConfig.class.getName() + ".timeoutMillis";
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                Object timeoutMillis = request.getAttribute(TIMEOUT_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+                if (timeoutMillis instanceof Long && request instanceof AsyncWebRequest) {
+                    ((AsyncWebRequest) request).setTimeout((Long) timeoutMillis);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.accountproject.config;
+
+import com.example.accountproject.ledger.CheckpointStore;
+import com.example.accountproject.ledger.HotAccountLedger;
+import com.example.accountproject.ledger.WriteAheadLog;
+import com.example.accountproject.service.TransactionIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Configuration
+public class HotAccountLedgerConfig {
+    @Value("${account.ledger.enabled:false}")
+    private boolean enabled;
+    @Value("${account.ledger.hot-accounts:}")
+    private List<String> hotAccounts;
+    @Value("${account.ledger.wal-dir:./ledger-wal}")
+    private String walDir;
+    @Value("${account.ledger.wal-segment-bytes:67108864}")
+    private long walSegmentBytes;
+    @Value("${account.ledger.wal-fsync:true}")
+    private boolean walFsync;
+    @Value("${account.ledger.checkpoint-interval-millis:1000}")
+    private long checkpointIntervalMillis;
+    @Value("${account.ledger.checkpoint-batch-size:1000}")
+    private int checkpointBatchSize;
+    @Value("${account.ledger.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * 비활성화 상태에서도 WAL 에 체크포인트되지 않은 기록이 남아 있으면 복구해서 반영한다.
+     * WAL 디렉터리는 첫 기록을 쓸 때 만든다.
+     */
+    @Bean
+    public HotAccountLedger hotAccountLedger(CheckpointStore checkpointStore,
+                                             TransactionIdGenerator transactionIdGenerator) {
+        List<String> hotAccountNumbers = enabled
+                ? hotAccounts.stream().map(String::trim).filter(s -> !s.isEmpty()).collect(Collectors.toList())
+                : List.of();
+        return new HotAccountLedger(checkpointStore,
+                new WriteAheadLog(Paths.get(walDir), walSegmentBytes, walFsync), transactionIdGenerator,
+                hotAccountNumbers, checkpointIntervalMillis, checkpointBatchSize, queueCapacity);
+    }
+}
@@ -4,8 +4,10 @@ import org.redisson.Redisson;
 import org.redisson.api.RedissonClient;
 import org.redisson.config.Config;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
 public class RedisRepositoryConfig {
@@ -13,11 +15,40 @@ public class RedisRepositoryConfig {
     private String redisHost;
     @Value("${spring.redis.port}")
     private int redisPort;
+    // account.lock.lease.watchdog=true 일 때의 Lock lease. 보유 중에는 1/3 마다 갱신된다
+    @Value("${account.lock.lease.watchdog-timeout-millis:30000}")
+    private long lockWatchdogTimeoutMillis;
+
     @Bean
+    @Primary
     public RedissonClient redissonClient() {
         Config config = new Config();
+        config.setLockWatchdogTimeout(lockWatchdogTimeoutMillis);
         config.useSingleServer().setAddress("redis://" + redisHost + ":" + redisPort);
         return Redisson.create(config);
     }
 
+    /**
+     * resilient Lock 전용 Redisson (account.lock.type=resilient)
+     * Redis 장애를 빨리 감지해야 DB 행 Lock 으로 넘어갈 수 있으므로 이 연결만 제한 시간과 재시도를 줄인다.
+     * 캐시 등 다른 Redis 사용은 Redisson 기본값을 따른다.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "account.lock.type", havingValue = "resilient")
+    public RedissonClient resilientLockRedissonClient(
+            @Value("${account.lock.resilient.redis.timeout-millis:1000}") int timeoutMillis,
+            @Value("${account.lock.resilient.redis.connect-timeout-millis:1000}") int connectTimeoutMillis,
+            @Value("${account.lock.resilient.redis.retry-attempts:1}") int retryAttempts,
+            @Value("${account.lock.resilient.redis.retry-interval-millis:200}") int retryIntervalMillis) {
+        Config config = new Config();
+        config.setLockWatchdogTimeout(lockWatchdogTimeoutMillis);
+        config.useSingleServer()
+                .setAddress("redis://" + redisHost + ":" + redisPort)
+                .setTimeout(timeoutMillis)
+                .setConnectTimeout(connectTimeoutMillis)
+                .setRetryAttempts(retryAttempts)
+                .setRetryInterval(retryIntervalMillis);
+        return Redisson.create(config);
+    }
+
 }
@@ -0,0 +1,80 @@
+package com.example.accountproject.controller;
+
+import com.example.accountproject.aop.AccountLock;
+import com.example.accountproject.dto.CancelBalance;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.service.GroupCommitExecutor;
+import com.example.accountproject.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.accountproject.type.ErrorCode.TRANSACTION_RESULT_UNKNOWN;
+
+/**
+ * 잔액 사용/취소 컨트롤러 (비동기)
+ * LockAopAspect 가 CompletableFuture 반환 메서드를 감지해서 요청 스레드를 바로 반환하고,
+ * 계좌 Lock 을 비동기로 취득한 뒤 메서드 본문을 잔액 처리 전용 스레드 풀에서 실행한다.
+ * 따라서 본문은 동기 컨트롤러와 같고 결과만 완료된 CompletableFuture 로 감싼다.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "account.lock.async.enabled", havingValue = "true")
+public class AsyncBalanceController {
+    private final TransactionService transactionService;
+    private final GroupCommitExecutor groupCommitExecutor;
+
+    /**
+     * 잔액 사용 컨트롤러
+     * @param request
+     * @return 계좌번호, 거래결과, 거래아이디, 거래금액, 거래일시
+     */
+    @PostMapping("/transaction/use")
+    @AccountLock(tryLockTime = 1000L, leaseTime = 15000L)
+    public CompletableFuture<UseBalance.Response> useBalance(@RequestBody @Valid UseBalance.Request request) {
+        try {
+            return CompletableFuture.completedFuture(UseBalance.Response.from(
+                    groupCommitExecutor.execute(request.getAccountNumber(),
+                            () -> transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()))));
+        } catch (AccountException e) {
+            log.error("Failed to use balance.");
+            // 결과를 알 수 없는 요청은 커밋되었을 수 있으므로 실패 거래로 남기지 않는다
+            if (e.getErrorCode() != TRANSACTION_RESULT_UNKNOWN) {
+                transactionService.saveFailedUseBalance(request.getAccountNumber(), request.getAmount());
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * 잔액 사용 취소 컨트롤러
+     * @param request
+     * @return 계좌번호, 거래결과, 거래아이디, 거래금액, 거래일시
+     */
+    @PostMapping("/transaction/cancel")
+    @AccountLock(tryLockTime = 1000L, leaseTime = 15000L)
+    public CompletableFuture<CancelBalance.Response> cancelBalance(@RequestBody @Valid CancelBalance.Request request) {
+        try {
+            return CompletableFuture.completedFuture(CancelBalance.Response.from(
+                    groupCommitExecutor.execute(request.getAccountNumber(),
+                            () -> transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()))));
+        } catch (AccountException e) {
+            log.error("Failed to cancel balance.");
+            // 결과를 알 수 없는 요청은 커밋되었을 수 있으므로 실패 거래로 남기지 않는다
+            if (e.getErrorCode() != TRANSACTION_RESULT_UNKNOWN) {
+                transactionService.saveFailedCancelBalance(request.getAccountNumber(), request.getAmount());
+            }
+
+            throw e;
+        }
+    }
+}
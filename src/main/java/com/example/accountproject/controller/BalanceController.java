@@ -0,0 +1,76 @@
+package com.example.accountproject.controller;
+
+import com.example.accountproject.aop.AccountLock;
+import com.example.accountproject.dto.CancelBalance;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.service.GroupCommitExecutor;
+import com.example.accountproject.service.TransactionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.Valid;
+
+import static com.example.accountproject.type.ErrorCode.TRANSACTION_RESULT_UNKNOWN;
+
+/**
+ * 잔액 사용/취소 컨트롤러 (동기)
+ * 계좌 Lock 을 기다리는 동안 요청 스레드를 점유한다.
+ * account.lock.async.enabled=true 이면 AsyncBalanceController 가 대신 등록된다.
+ */
+@RestController
+@RequiredArgsConstructor
+@Slf4j
+@ConditionalOnProperty(name = "account.lock.async.enabled", havingValue = "false", matchIfMissing = true)
+public class BalanceController {
+    private final TransactionService transactionService;
+    private final GroupCommitExecutor groupCommitExecutor;
+
+    /**
+     * 잔액 사용 컨트롤러
+     * @param request
+     * @return 계좌번호, 거래결과, 거래아이디, 거래금액, 거래일시
+     */
+    @PostMapping("/transaction/use")
+    @AccountLock(tryLockTime = 1000L, leaseTime = 15000L)
+    public UseBalance.Response useBalance(@RequestBody @Valid UseBalance.Request request) {
+        try {
+            return UseBalance.Response.from(groupCommitExecutor.execute(request.getAccountNumber(),
+                    () -> transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount())));
+        } catch (AccountException e) {
+            log.error("Failed to use balance.");
+            // 결과를 알 수 없는 요청은 커밋되었을 수 있으므로 실패 거래로 남기지 않는다
+            if (e.getErrorCode() != TRANSACTION_RESULT_UNKNOWN) {
+                transactionService.saveFailedUseBalance(request.getAccountNumber(), request.getAmount());
+            }
+
+            throw e;
+        }
+    }
+
+    /**
+     * 잔액 사용 취소 컨트롤러
+     * @param request
+     * @return 계좌번호, 거래결과, 거래아이디, 거래금액, 거래일시
+     */
+    @PostMapping("/transaction/cancel")
+    @AccountLock(tryLockTime = 1000L, leaseTime = 15000L)
+    public CancelBalance.Response cancelBalance(@RequestBody @Valid CancelBalance.Request request) {
+        try {
+            return CancelBalance.Response.from(groupCommitExecutor.execute(request.getAccountNumber(),
+                    () -> transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount())));
+        } catch (AccountException e) {
+            log.error("Failed to cancel balance.");
+            // 결과를 알 수 없는 요청은 커밋되었을 수 있으므로 실패 거래로 남기지 않는다
+            if (e.getErrorCode() != TRANSACTION_RESULT_UNKNOWN) {
+                transactionService.saveFailedCancelBalance(request.getAccountNumber(), request.getAmount());
+            }
+
+            throw e;
+        }
+    }
+}
@@ -1,59 +1,155 @@
 package com.example.accountproject.controller;
 
-import com.example.accountproject.aop.AccountLock;
-import com.example.accountproject.dto.CancelBalance;
+import com.example.accountproject.config.AsyncTimeoutConfig;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.dto.TransactionHistory;
 import com.example.accountproject.dto.TransactionInfo;
+import com.example.accountproject.dto.TransferBalance;
 import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.dto.UseBalanceBatch;
 import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.service.AccountLockExecutor;
+import com.example.accountproject.service.AccountLockPolicy;
+import com.example.accountproject.service.TransactionExportService;
 import com.example.accountproject.service.TransactionService;
+import com.example.accountproject.type.TransactionResultType;
+import com.example.accountproject.type.TransactionType;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequiredArgsConstructor
 @Slf4j
 public class TransactionController {
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    // 단건 잔액 사용(@AccountLock)과 같은 "클래스.메서드" 이름으로 Lock 대기/보유 시간을 구분한다
+    private static final String BATCH_LOCK_ENDPOINT = "TransactionController.useBalanceBatch";
+    private static final String TRANSFER_LOCK_ENDPOINT = "TransactionController.transfer";
+
     private final TransactionService transactionService;
+    private final AccountLockExecutor accountLockExecutor;
+    private final AccountLockPolicy accountLockPolicy;
+    private final TransactionExportService transactionExportService;
+
+    @Value("${account.export.timeout-millis:1800000}")
+    private long exportTimeoutMillis;
 
     /**
-     * 잔액 사용 컨트롤러
+     * 잔액 일괄 사용 컨트롤러
      * @param request
-     * @return 계좌번호, 거래결과, 거래아이디, 거래금액, 거래일시
+     * @return 요청 항목 순서대로 항목 번호, 계좌번호, 거래결과, 거래아이디, 거래금액, 거래일시, 실패 사유
+     * 요청 항목을 계좌 번호 별로 묶고, 계좌 별로 Lock 을 한 번만 취득해서 하나의 트랜잭션으로 처리
+     * Lock 이 필요 없는 계좌(ATOMIC/OPTIMISTIC 모드, Hot 계좌)는 Lock 없이 처리 (AccountLockPolicy)
+     * Lock 취득 실패 등으로 묶음 전체가 실패하면 그 묶음의 항목마다 실패 거래를 저장
      */
-    @PostMapping("/transaction/use")
-    @AccountLock
-    public UseBalance.Response useBalance(@RequestBody @Valid UseBalance.Request request) {
+    @PostMapping("/transaction/use/batch")
+    public UseBalanceBatch.Response useBalanceBatch(@RequestBody @Valid UseBalanceBatch.Request request) {
+        List<UseBalance.Request> items = request.getItems();
+        Map<String, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            groups.computeIfAbsent(items.get(i).getAccountNumber(), accountNumber -> new ArrayList<>())
+                    .add(i);
+        }
+
+        UseBalanceBatch.ItemResult[] results = new UseBalanceBatch.ItemResult[items.size()];
+        for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+            List<Integer> indexes = group.getValue();
+            List<UseBalance.Request> groupItems = new ArrayList<>(indexes.size());
+            for (Integer index : indexes) {
+                groupItems.add(items.get(index));
+            }
+
+            List<UseBalanceBatch.ItemResult> groupResults;
+            try {
+                groupResults = useBalanceGroup(group.getKey(), groupItems);
+            } catch (AccountException e) {
+                log.error("Failed to use balance batch.");
+                groupResults = new ArrayList<>(groupItems.size());
+                for (UseBalance.Request item : groupItems) {
+                    saveFailedUseBalance(item);
+                    groupResults.add(UseBalanceBatch.ItemResult.fail(item, e.getErrorCode()));
+                }
+            }
+
+            for (int i = 0; i < indexes.size(); i++) {
+                UseBalanceBatch.ItemResult result = groupResults.get(i);
+                result.setIndex(indexes.get(i));
+                results[indexes.get(i)] = result;
+            }
+        }
+
+        return UseBalanceBatch.Response.builder()
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    // 단건 잔액 사용과 같이 묶음 전체가 실패한 항목도 실패 거래로 남긴다
+    private void saveFailedUseBalance(UseBalance.Request item) {
         try {
-            return UseBalance.Response.from(transactionService.useBalance(request.getUserId(), request.getAccountNumber(), request.getAmount()));
+            transactionService.saveFailedUseBalance(item.getAccountNumber(), item.getAmount());
         } catch (AccountException e) {
-            log.error("Failed to use balance.");
-            transactionService.saveFailedUseBalance(request.getAccountNumber(), request.getAmount());
+            log.error("Failed to save failed use balance. accountNumber : {}", item.getAccountNumber());
+        }
+    }
 
-            throw e;
+    private List<UseBalanceBatch.ItemResult> useBalanceGroup(String accountNumber, List<UseBalance.Request> items) {
+        Supplier<List<UseBalanceBatch.ItemResult>> useGroup =
+                () -> transactionService.useBalanceGroup(accountNumber, items);
+        if (!accountLockPolicy.requiresLock(accountNumber)) {
+            return useGroup.get();
         }
+        return accountLockExecutor.execute(accountNumber, BATCH_LOCK_ENDPOINT, useGroup);
     }
 
     /**
-     * 잔액 사용 취소 컨트롤러
+     * 계좌 이체 컨트롤러
      * @param request
-     * @return 계좌번호, 거래결과, 거래아이디, 거래금액, 거래일시
+     * @return 출금 계좌번호, 입금 계좌번호, 거래결과, 출금 거래아이디, 입금 거래아이디, 거래금액, 거래일시
+     * 두 계좌의 Lock 을 계좌 번호 순으로 잡고 출금과 입금을 하나의 트랜잭션으로 처리
+     * Lock 이 필요 없는 계좌(AccountLockPolicy)는 Lock 대상에서 빼고, 두 계좌 모두 필요 없으면 Lock 없이 처리
      */
-    @PostMapping("/transaction/cancel")
-    @AccountLock
-    public CancelBalance.Response cancelBalance(@RequestBody @Valid CancelBalance.Request request) {
+    @PostMapping("/transaction/transfer")
+    public TransferBalance.Response transfer(@RequestBody @Valid TransferBalance.Request request) {
         try {
-            return CancelBalance.Response.from(transactionService.cancelBalance(request.getTransactionId(), request.getAccountNumber(), request.getAmount()));
+            return TransferBalance.Response.from(transferBalance(request), request.getToAccountNumber());
         } catch (AccountException e) {
-            log.error("Failed to cancel balance.");
-            transactionService.saveFailedCancelBalance(request.getAccountNumber(), request.getAmount());
+            log.error("Failed to transfer balance.");
+            transactionService.saveFailedTransfer(request.getFromAccountNumber(), request.getAmount());
 
             throw e;
         }
     }
 
+    private TransactionDto transferBalance(TransferBalance.Request request) {
+        Supplier<TransactionDto> transfer = () -> transactionService.transfer(request.getUserId(),
+                request.getFromAccountNumber(), request.getToAccountNumber(), request.getAmount());
+        List<String> lockedAccountNumbers = new ArrayList<>(2);
+        for (String accountNumber : Arrays.asList(request.getFromAccountNumber(), request.getToAccountNumber())) {
+            if (accountLockPolicy.requiresLock(accountNumber)) {
+                lockedAccountNumbers.add(accountNumber);
+            }
+        }
+        if (lockedAccountNumbers.isEmpty()) {
+            return transfer.get();
+        }
+        return accountLockExecutor.executeAll(lockedAccountNumbers, TRANSFER_LOCK_ENDPOINT, transfer);
+    }
+
     /**
      * 거래 확인 서비스
      * @param transactionId
@@ -64,4 +160,91 @@ public class TransactionController {
         return TransactionInfo.from(transactionService.getTransactionInfo(transactionId));
 
     }
+
+    /**
+     * 거래 내역 조회 컨트롤러
+     * @param accountNumber
+     * @param cursor
+     * @param size
+     * @param type
+     * @param result
+     * @return 최신 거래부터 거래 정보 목록과 다음 페이지 cursor
+     * 다음 페이지는 응답의 nextCursor 를 cursor 로 넘겨서 조회
+     */
+    @GetMapping("/account/{accountNumber}/transactions")
+    public TransactionHistory.Response getTransactionHistory(
+            @PathVariable String accountNumber,
+            @RequestParam(value = "cursor", required = false) String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size,
+            @RequestParam(value = "type", required = false) TransactionType type,
+            @RequestParam(value = "result", required = false) TransactionResultType result) {
+        return TransactionHistory.Response.from(
+                transactionService.getTransactionHistory(accountNumber, cursor, size, type, result)
+        );
+    }
+
+    /**
+     * 거래 내보내기 컨트롤러
+     * @param from
+     * @param to
+     * @param acceptEncoding
+     * @return from 이상 to 미만 거래일시의 거래를 한 줄에 하나씩 JSON 으로 응답 (application/x-ndjson)
+     * 클라이언트가 gzip 을 받을 수 있으면 gzip 으로 압축해서 응답
+     * 응답은 요청 스레드가 아닌 비동기 스레드에서 DB 커서를 따라 쓴다
+     * 모두 쓸 때까지 응답을 열어 두도록 이 요청에만 비동기 제한 시간(account.export.timeout-millis)을 준다 (AsyncTimeoutConfig)
+     */
+    @GetMapping("/transaction/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpServletRequest request) {
+        transactionExportService.validateExportWindow(from, to);
+        request.setAttribute(AsyncTimeoutConfig.TIMEOUT_ATTRIBUTE, exportTimeoutMillis);
+
+        boolean gzip = acceptsGzip(acceptEncoding);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(NDJSON);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(out -> transactionExportService.export(from, to,
+                gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE) : out));
+    }
+
+    // gzip;q=0 처럼 q 가 0 인 coding 은 받지 않는다는 뜻이다. gzip 이 없으면 * 의 q 를 따른다
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzipQuality = null;
+        Double anyQuality = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] params = coding.split(";");
+            String name = params[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0.0;
+                    }
+                }
+            }
+
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzipQuality = quality;
+            } else if (name.equals("*")) {
+                anyQuality = quality;
+            }
+        }
+
+        if (gzipQuality != null) {
+            return gzipQuality > 0;
+        }
+        return anyQuality != null && anyQuality > 0;
+    }
 }
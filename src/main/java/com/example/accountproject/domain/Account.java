@@ -5,10 +5,7 @@ import com.example.accountproject.type.AccountStatus;
 import com.example.accountproject.type.ErrorCode;
 import lombok.*;
 
-import javax.persistence.Entity;
-import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
-import javax.persistence.ManyToOne;
+import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Getter
@@ -17,9 +14,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_account_account_number", columnList = "account_number", unique = true),
+        @Index(name = "ix_account_account_user_id", columnList = "account_user_id")
+})
 public class Account extends BaseEntity {
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_user_id")
     private AccountUser accountUser;
+    @Column(name = "account_number")
     private String accountNumber;
 
     @Enumerated(EnumType.STRING)
@@ -29,6 +32,9 @@ public class Account extends BaseEntity {
     private LocalDateTime registeredAt;
     private LocalDateTime unRegisteredAt;
 
+    @Version
+    private Long version;
+
     public void useBalance(Long amount) {
         if (amount > balance) {
             throw new AccountException(ErrorCode.AMOUNT_EXCEED_BALANCE);
@@ -37,6 +43,14 @@ public class Account extends BaseEntity {
         balance -= amount;
     }
 
+    public void depositBalance(Long amount) {
+        if (amount < 0) {
+            throw new AccountException(ErrorCode.INVALID_REQUEST);
+        }
+
+        balance += amount;
+    }
+
     public void cancelBalance(Long amount) {
         if (amount < 0) {
             throw new AccountException(ErrorCode.INVALID_REQUEST);
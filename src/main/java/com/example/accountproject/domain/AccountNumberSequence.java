@@ -0,0 +1,18 @@
+package com.example.accountproject.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class AccountNumberSequence {
+    @Id
+    private String name;
+    private Long nextValue;
+}
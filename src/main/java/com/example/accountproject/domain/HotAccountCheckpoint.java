@@ -0,0 +1,24 @@
+package com.example.accountproject.domain;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * Hot 계좌 원장의 체크포인트
+ * lastSequence 까지의 WAL 기록이 계좌 잔액과 거래 테이블에 반영되었다는 표시
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@Entity
+public class HotAccountCheckpoint {
+    @Id
+    private Long accountId;
+    private Long lastSequence;
+    private LocalDateTime checkpointedAt;
+}
@@ -7,10 +7,7 @@ import com.example.accountproject.type.TransactionResultType;
 import com.example.accountproject.type.TransactionType;
 import lombok.*;
 
-import javax.persistence.Entity;
-import javax.persistence.EnumType;
-import javax.persistence.Enumerated;
-import javax.persistence.ManyToOne;
+import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Getter
@@ -19,10 +16,19 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @Entity
+@Table(indexes = {
+        @Index(name = "ux_transaction_transaction_id", columnList = "transaction_id", unique = true),
+        // 계좌 별 거래 내역 keyset 페이지 조회용. account_id 단독 조회도 이 인덱스를 사용한다
+        @Index(name = "ix_transaction_account_id_transaction_at_id", columnList = "account_id, transaction_at, id"),
+        // 기간 별 거래 내보내기용
+        @Index(name = "ix_transaction_transaction_at_id", columnList = "transaction_at, id")
+})
 public class Transaction extends BaseEntity {
+    @Column(name = "transaction_id")
     private String transactionId;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id")
     private Account account;
     private Long amount;
     private Long balanceSnapshot;
@@ -34,4 +40,8 @@ public class Transaction extends BaseEntity {
 
     private LocalDateTime transactionAt;
 
+    // 이체 출금/입금 거래는 서로의 거래 아이디를 가진다
+    @Column(name = "linked_transaction_id")
+    private String linkedTransactionId;
+
 }
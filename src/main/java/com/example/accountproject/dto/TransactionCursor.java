@@ -0,0 +1,52 @@
+package com.example.accountproject.dto;
+
+import com.example.accountproject.domain.Transaction;
+import com.example.accountproject.exception.AccountException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import static com.example.accountproject.type.ErrorCode.INVALID_REQUEST;
+
+/**
+ * 거래 내역 페이지 위치
+ * 페이지 마지막 거래의 (transactionAt, id) 를 URL 에 넣을 수 있는 문자열로 인코딩한다.
+ * 클라이언트는 값을 해석하지 않고 그대로 다음 요청에 넘긴다.
+ */
+@Getter
+@AllArgsConstructor
+public class TransactionCursor {
+    private static final char SEPARATOR = '_';
+
+    private final LocalDateTime transactionAt;
+    private final Long id;
+
+    public static TransactionCursor of(Transaction transaction) {
+        return new TransactionCursor(transaction.getTransactionAt(), transaction.getId());
+    }
+
+    public String encode() {
+        String raw = transactionAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static TransactionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new AccountException(INVALID_REQUEST);
+            }
+            return new TransactionCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+    }
+}
@@ -20,6 +20,7 @@ public class TransactionDto {
     private TransactionResultType transactionResultType;
     private TransactionType transactionType;
     private LocalDateTime transactionAt;
+    private String linkedTransactionId;
 
     public static TransactionDto fromEntity(Transaction transaction) {
         return TransactionDto.builder()
@@ -30,6 +31,7 @@ public class TransactionDto {
                 .transactionResultType(transaction.getTransactionResultType())
                 .transactionType(transaction.getTransactionType())
                 .transactionAt(transaction.getTransactionAt())
+                .linkedTransactionId(transaction.getLinkedTransactionId())
                 .build();
     }
 }
@@ -0,0 +1,27 @@
+package com.example.accountproject.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class TransactionHistory {
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<TransactionInfo> transactions;
+        private String nextCursor;
+
+        public static Response from(TransactionHistoryDto transactionHistoryDto) {
+            return Response.builder()
+                    .transactions(transactionHistoryDto.getTransactions().stream()
+                            .map(TransactionInfo::from)
+                            .collect(Collectors.toList()))
+                    .nextCursor(transactionHistoryDto.getNextCursor())
+                    .build();
+        }
+    }
+}
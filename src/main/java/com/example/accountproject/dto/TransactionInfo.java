@@ -18,6 +18,7 @@ public class TransactionInfo {
     private String transactionId;
     private Long amount;
     private LocalDateTime transactionAt;
+    private String linkedTransactionId;
 
     public static TransactionInfo from(TransactionDto transactionDto) {
         return TransactionInfo.builder()
@@ -27,6 +28,7 @@ public class TransactionInfo {
                 .transactionId(transactionDto.getTransactionId())
                 .amount(transactionDto.getAmount())
                 .transactionAt(transactionDto.getTransactionAt())
+                .linkedTransactionId(transactionDto.getLinkedTransactionId())
                 .build();
     }
 }
@@ -0,0 +1,59 @@
+package com.example.accountproject.dto;
+
+import com.example.accountproject.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.constraints.*;
+import java.time.LocalDateTime;
+
+public class TransferBalance {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request {
+        @NotNull
+        @Min(1)
+        private Long userId;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String fromAccountNumber;
+
+        @NotBlank
+        @Size(min = 10, max = 10)
+        private String toAccountNumber;
+
+        @NotNull
+        @Min(10)
+        @Max(1000_000_000)
+        private Long amount;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private String fromAccountNumber;
+        private String toAccountNumber;
+        private TransactionResultType transactionResultType;
+        private String transactionId;
+        private String linkedTransactionId;
+        private Long amount;
+        private LocalDateTime transactionAt;
+
+        public static Response from(TransactionDto transactionDto, String toAccountNumber) {
+            return Response.builder()
+                    .fromAccountNumber(transactionDto.getAccountNumber())
+                    .toAccountNumber(toAccountNumber)
+                    .transactionResultType(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .linkedTransactionId(transactionDto.getLinkedTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactionAt(transactionDto.getTransactionAt())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.accountproject.dto;
+
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.TransactionResultType;
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class UseBalanceBatch {
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Request {
+        @NotEmpty
+        @Size(max = 1000)
+        @Valid
+        private List<UseBalance.Request> items;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Response {
+        private List<ItemResult> results;
+    }
+
+    @Getter
+    @Setter
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class ItemResult {
+        private int index;
+        private String accountNumber;
+        private TransactionResultType transactionResultType;
+        private String transactionId;
+        private Long amount;
+        private LocalDateTime transactionAt;
+        private ErrorCode errorCode;
+
+        public static ItemResult from(TransactionDto transactionDto, ErrorCode errorCode) {
+            return ItemResult.builder()
+                    .accountNumber(transactionDto.getAccountNumber())
+                    .transactionResultType(transactionDto.getTransactionResultType())
+                    .transactionId(transactionDto.getTransactionId())
+                    .amount(transactionDto.getAmount())
+                    .transactionAt(transactionDto.getTransactionAt())
+                    .errorCode(errorCode)
+                    .build();
+        }
+
+        public static ItemResult fail(UseBalance.Request request, ErrorCode errorCode) {
+            return ItemResult.builder()
+                    .accountNumber(request.getAccountNumber())
+                    .transactionResultType(TransactionResultType.FAIL)
+                    .amount(request.getAmount())
+                    .errorCode(errorCode)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.accountproject.ledger;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Hot 계좌 원장의 체크포인트 저장소
+ */
+public interface CheckpointStore {
+    /**
+     * 계좌의 마지막 체크포인트 상태 조회
+     * @param accountNumber
+     * @return 계좌가 없으면 빈 값
+     */
+    Optional<HotAccountState> load(String accountNumber);
+
+    /**
+     * WAL 기록 반영
+     * @param entries sequence 오름차순 기록
+     * 거래 저장, 잔액 반영, 계좌 별 lastSequence 갱신을 하나의 트랜잭션으로 처리해야 한다.
+     * 실패하면 아무것도 반영하지 않고 예외를 던진다.
+     */
+    void checkpoint(List<LedgerEntry> entries);
+}
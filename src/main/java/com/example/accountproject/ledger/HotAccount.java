@@ -0,0 +1,60 @@
+package com.example.accountproject.ledger;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 메모리에 올린 Hot 계좌 잔액
+ * Lock 없이 CAS 로만 잔액을 바꾼다.
+ */
+final class HotAccount {
+    private final long accountId;
+    private final String accountNumber;
+    private final long userId;
+    private final AtomicLong balance;
+
+    HotAccount(HotAccountState state) {
+        this.accountId = state.getAccountId();
+        this.accountNumber = state.getAccountNumber();
+        this.userId = state.getUserId();
+        this.balance = new AtomicLong(state.getBalance());
+    }
+
+    /**
+     * 잔액이 충분할 때만 차감
+     * @return 차감 후 잔액, 잔액이 부족하면 -1
+     */
+    long tryDebit(long amount) {
+        while (true) {
+            long current = balance.get();
+            if (current < amount) {
+                return -1L;
+            }
+            if (balance.compareAndSet(current, current - amount)) {
+                return current - amount;
+            }
+        }
+    }
+
+    /**
+     * WAL 에 쓰인 증가 반영, 쓰이지 않은 차감 되돌리기, WAL 재적용에 사용
+     */
+    void apply(long delta) {
+        balance.addAndGet(delta);
+    }
+
+    long getAccountId() {
+        return accountId;
+    }
+
+    String getAccountNumber() {
+        return accountNumber;
+    }
+
+    long getUserId() {
+        return userId;
+    }
+
+    long getBalance() {
+        return balance.get();
+    }
+}
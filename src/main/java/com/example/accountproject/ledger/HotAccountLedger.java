@@ -0,0 +1,441 @@
+package com.example.accountproject.ledger;
+
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.service.TransactionIdGenerator;
+import com.example.accountproject.type.AccountStatus;
+import com.example.accountproject.type.TransactionType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static com.example.accountproject.type.ErrorCode.*;
+
+/**
+ * Hot 계좌 메모리 원장
+ * 거래가 몰리는 계좌(account.ledger.hot-accounts)의 잔액을 메모리에 올려 두고 CAS 로 차감/증가한다.
+ * 계좌 Lock 과 계좌 행 UPDATE 없이 처리하고, 거래는 WAL 에 먼저 기록한 뒤 응답한다.
+ * WAL 기록은 기록 스레드가 모아서 한 번에 쓰고 fsync 한다 (group commit).
+ *
+ * 잔액 반영 순서
+ * - 사용(차감)은 WAL 에 쓰기 전에 메모리 잔액에서 먼저 차감해서 잔액을 예약한다.
+ * - 취소(증가)는 WAL 에 쓰인 뒤에야 메모리 잔액에 더한다.
+ * - 따라서 사용이 쓸 수 있는 잔액은 이미 WAL 에 쓰인 증가뿐이고, 그 사용은 증가보다 뒤의 sequence 로 쓰인다.
+ *   WAL 을 sequence 순서로 다시 적용해도 잔액이 음수가 되지 않는다.
+ * 체크포인트 스레드가 주기적으로 WAL 기록을 모아서 거래 테이블과 계좌 잔액에 반영한다.
+ *
+ * 복구
+ * - 시작할 때 체크포인트 상태(계좌 잔액, lastSequence)를 읽고 그 이후의 WAL 기록을 다시 적용한다.
+ * - 응답한 거래는 모두 WAL 에 있으므로 체크포인트 + WAL 로 정확히 복구된다.
+ * - WAL 쓰기에 실패하면 예약한 차감만 되돌리고(잔액이 늘기만 하므로 안전) 이후 요청을 모두 거절한다 (재시작 필요).
+ * - 큐에 들어간 기록은 WAL 에 쓰일 수 있으므로, 쓰기 결과가 나올 때까지 기다렸다가 응답한다.
+ *   WAL 에 남았는지 알 수 없는 실패는 TRANSACTION_RESULT_UNKNOWN 으로 응답한다.
+ *
+ * 제약
+ * - 계좌 소유 노드가 하나라는 전제이다. 여러 인스턴스가 같은 Hot 계좌를 처리하면 안 된다.
+ * - DB 의 계좌 잔액과 계좌 목록 조회는 체크포인트 주기만큼 늦게 반영된다.
+ */
+@Slf4j
+public class HotAccountLedger implements SmartLifecycle, MeterBinder {
+    private static final int MAX_WAL_BATCH = 1000;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000L;
+
+    private final CheckpointStore checkpointStore;
+    private final WriteAheadLog writeAheadLog;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final Set<String> hotAccountNumbers;
+    private final long checkpointIntervalMillis;
+    private final int checkpointBatchSize;
+
+    private final Map<String, HotAccount> hotAccounts = new ConcurrentHashMap<>();
+    private final Map<String, LedgerEntry> uncheckpointed = new ConcurrentHashMap<>();
+    private final Queue<LedgerEntry> checkpointQueue = new ConcurrentLinkedQueue<>();
+    private final BlockingQueue<Append> appendQueue;
+
+    private volatile boolean running;
+    private volatile boolean failed;
+    private long nextSequence;
+    private Thread writerThread;
+    private ScheduledExecutorService checkpointScheduler;
+
+    public HotAccountLedger(CheckpointStore checkpointStore,
+                            WriteAheadLog writeAheadLog,
+                            TransactionIdGenerator transactionIdGenerator,
+                            Collection<String> hotAccountNumbers,
+                            long checkpointIntervalMillis,
+                            int checkpointBatchSize,
+                            int queueCapacity) {
+        this.checkpointStore = checkpointStore;
+        this.writeAheadLog = writeAheadLog;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.hotAccountNumbers = new HashSet<>(hotAccountNumbers);
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.checkpointBatchSize = checkpointBatchSize;
+        this.appendQueue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    public boolean isHot(String accountNumber) {
+        return hotAccounts.containsKey(accountNumber);
+    }
+
+    /**
+     * Hot 계좌 잔액 사용
+     * @param accountNumber
+     * @param userId
+     * @param amount
+     * @return WAL 에 기록된 거래
+     * 사용자 아이디와 계좌 소유주가 다른 경우, 거래금액이 잔액보다 큰 경우 실패 응답.
+     */
+    public TransactionDto use(String accountNumber, Long userId, Long amount) {
+        HotAccount account = getHotAccount(accountNumber);
+        if (account.getUserId() != userId) {
+            throw new AccountException(USER_ACCOUNT_UN_MATCH);
+        }
+
+        long balance = account.tryDebit(amount);
+        if (balance < 0) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+        return append(account, TransactionType.USE, amount, balance);
+    }
+
+    /**
+     * Hot 계좌 잔액 사용 취소
+     * 원거래 검증은 호출하는 쪽에서 한다.
+     * 증가한 잔액은 WAL 에 쓰인 뒤에 사용할 수 있다. (거래의 잔액 스냅샷은 요청 시점 잔액 기준)
+     */
+    public TransactionDto cancel(String accountNumber, Long amount) {
+        HotAccount account = getHotAccount(accountNumber);
+        return append(account, TransactionType.CANCEL, amount, account.getBalance() + amount);
+    }
+
+    /**
+     * 아직 체크포인트되지 않은 거래 조회
+     */
+    public Optional<TransactionDto> findUncheckpointed(String transactionId) {
+        LedgerEntry entry = uncheckpointed.get(transactionId);
+        return entry == null ? Optional.empty() : Optional.of(entry.toTransactionDto());
+    }
+
+    public long getBalance(String accountNumber) {
+        return getHotAccount(accountNumber).getBalance();
+    }
+
+    private HotAccount getHotAccount(String accountNumber) {
+        HotAccount account = hotAccounts.get(accountNumber);
+        if (account == null) {
+            throw new AccountException(ACCOUNT_NOT_FOUND);
+        }
+        return account;
+    }
+
+    private TransactionDto append(HotAccount account, TransactionType transactionType, long amount, long balance) {
+        LedgerEntry entry = new LedgerEntry(0L, account.getAccountId(), account.getAccountNumber(),
+                transactionType, amount, balance,
+                transactionIdGenerator.generate(), LocalDateTime.now());
+        Append append = new Append(account, entry);
+
+        if (!running || failed || !appendQueue.offer(append)) {
+            revertReservation(append);
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+        // 종료 중에 큐에 넣었다면 기록 스레드가 가져가지 않았을 때만 꺼내서 실패시킨다
+        if (!running && appendQueue.remove(append)) {
+            revertReservation(append);
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+
+        try {
+            awaitWritten(append);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WriteAheadLog.IndeterminateWriteException) {
+                // WAL 에 남았을 수 있으므로 실패라고 응답하지 않는다
+                throw new AccountException(TRANSACTION_RESULT_UNKNOWN);
+            }
+            // 쓰이지 않은 기록 (기록 스레드가 예약한 차감을 이미 되돌렸다)
+            throw new AccountException(INVALID_SERVER_ERROR);
+        }
+        return entry.toTransactionDto();
+    }
+
+    /**
+     * 큐에 들어간 기록은 WAL 에 쓰였을 수 있으므로 인터럽트되더라도 결과가 나올 때까지 기다린다
+     * 기록 스레드는 가져간 기록의 결과를 항상 정한다.
+     */
+    private static void awaitWritten(Append append) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    append.written.get();
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // 미리 차감한 사용만 되돌린다. 취소는 WAL 에 쓰인 뒤에 더하므로 되돌릴 것이 없다
+    private static void revertReservation(Append append) {
+        long delta = append.entry.balanceDelta();
+        if (delta < 0) {
+            append.account.apply(-delta);
+        }
+    }
+
+    @Override
+    public void start() {
+        try {
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to recover hot account ledger.", e);
+        }
+
+        running = true;
+        writerThread = new Thread(this::writeLoop, "hot-account-wal-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        checkpointScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-account-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointScheduler.scheduleWithFixedDelay(this::checkpointQuietly,
+                checkpointIntervalMillis, checkpointIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 새 요청을 받지 않고, WAL 에 남은 기록을 모두 쓰고 체크포인트한 뒤 종료
+     */
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+            checkpointScheduler.shutdown();
+            checkpointScheduler.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            while (!checkpointQueue.isEmpty()) {
+                checkpoint();
+            }
+            writeAheadLog.close();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException | RuntimeException e) {
+            log.error("Failed to checkpoint hot account ledger on shutdown. WAL will be replayed on restart.", e);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 웹 서버보다 먼저 시작해서 복구가 끝난 뒤에 요청을 받고, 웹 서버가 멈춘 뒤에 종료한다
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    /**
+     * 비정상 종료 흉내 (테스트용)
+     * 체크포인트 없이 스레드와 WAL 을 닫는다.
+     */
+    void halt() throws InterruptedException, IOException {
+        running = false;
+        writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        checkpointScheduler.shutdownNow();
+        checkpointScheduler.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        writeAheadLog.close();
+    }
+
+    private void recover() throws IOException {
+        List<LedgerEntry> entries = writeAheadLog.recover();
+
+        // 설정에서 빠졌더라도 체크포인트되지 않은 기록이 있는 계좌는 복구해서 반영한다
+        Set<String> accountNumbers = new HashSet<>(hotAccountNumbers);
+        for (LedgerEntry entry : entries) {
+            accountNumbers.add(entry.getAccountNumber());
+        }
+
+        Map<String, HotAccountState> states = new HashMap<>();
+        Map<String, HotAccount> recovered = new HashMap<>();
+        long maxSequence = 0L;
+        for (String accountNumber : accountNumbers) {
+            Optional<HotAccountState> state = checkpointStore.load(accountNumber);
+            if (state.isEmpty()) {
+                log.error("Hot account not found. accountNumber : {}", accountNumber);
+                continue;
+            }
+            states.put(accountNumber, state.get());
+            recovered.put(accountNumber, new HotAccount(state.get()));
+            maxSequence = Math.max(maxSequence, state.get().getLastSequence());
+        }
+
+        int replayed = 0;
+        for (LedgerEntry entry : entries) {
+            maxSequence = Math.max(maxSequence, entry.getSequence());
+            HotAccount account = recovered.get(entry.getAccountNumber());
+            if (account == null || entry.getSequence() <= states.get(entry.getAccountNumber()).getLastSequence()) {
+                continue;
+            }
+            account.apply(entry.balanceDelta());
+            uncheckpointed.put(entry.getTransactionId(), entry);
+            checkpointQueue.add(entry);
+            replayed++;
+        }
+
+        for (String accountNumber : hotAccountNumbers) {
+            HotAccountState state = states.get(accountNumber);
+            if (state != null && state.getAccountStatus() == AccountStatus.IN_USE) {
+                hotAccounts.put(accountNumber, recovered.get(accountNumber));
+            }
+        }
+
+        nextSequence = maxSequence + 1;
+        log.info("Hot account ledger recovered. accounts : {}, replayed WAL entries : {}", hotAccounts.size(), replayed);
+    }
+
+    private void writeLoop() {
+        List<Append> batch = new ArrayList<>(MAX_WAL_BATCH);
+        List<LedgerEntry> entries = new ArrayList<>(MAX_WAL_BATCH);
+        boolean interrupted = false;
+        while (running || !appendQueue.isEmpty()) {
+            try {
+                Append first;
+                try {
+                    first = interrupted ? appendQueue.poll() : appendQueue.poll(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // 새 요청은 막고 이미 큐에 들어간 기록은 마저 쓴다
+                    interrupted = true;
+                    running = false;
+                    continue;
+                }
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                appendQueue.drainTo(batch, MAX_WAL_BATCH - 1);
+                write(batch, entries);
+            } finally {
+                batch.clear();
+                entries.clear();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write(List<Append> batch, List<LedgerEntry> entries) {
+        if (failed) {
+            fail(batch, new IllegalStateException("WAL failed"));
+            return;
+        }
+
+        for (Append append : batch) {
+            append.entry.assignSequence(nextSequence++);
+            entries.add(append.entry);
+        }
+
+        try {
+            writeAheadLog.append(entries);
+        } catch (IOException | RuntimeException e) {
+            failed = true;
+            log.error("Failed to write hot account WAL. Ledger stops accepting requests.", e);
+            fail(batch, e);
+            return;
+        }
+
+        for (Append append : batch) {
+            // 증가는 WAL 에 쓰인 뒤에야 사용할 수 있게 한다
+            if (append.entry.balanceDelta() > 0) {
+                append.account.apply(append.entry.balanceDelta());
+            }
+            uncheckpointed.put(append.entry.getTransactionId(), append.entry);
+            checkpointQueue.add(append.entry);
+            append.written.complete(null);
+        }
+    }
+
+    private static void fail(List<Append> batch, Throwable cause) {
+        for (Append append : batch) {
+            // 남았을 수 있는 사용은 되돌리지 않는다 (원장이 멈추므로 재시작 때 WAL 기준으로 다시 맞춰진다)
+            if (!(cause instanceof WriteAheadLog.IndeterminateWriteException)) {
+                revertReservation(append);
+            }
+            append.written.completeExceptionally(cause);
+        }
+    }
+
+    private void checkpointQuietly() {
+        try {
+            while (checkpoint() == checkpointBatchSize) {
+                // 밀린 기록이 있으면 이어서 반영
+            }
+        } catch (RuntimeException | IOException e) {
+            log.error("Failed to checkpoint hot account ledger. Will retry.", e);
+        }
+    }
+
+    /**
+     * WAL 기록을 최대 checkpointBatchSize 건 반영
+     * @return 반영한 기록 수
+     */
+    synchronized int checkpoint() throws IOException {
+        List<LedgerEntry> batch = new ArrayList<>(checkpointBatchSize);
+        Iterator<LedgerEntry> iterator = checkpointQueue.iterator();
+        while (iterator.hasNext() && batch.size() < checkpointBatchSize) {
+            batch.add(iterator.next());
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        checkpointStore.checkpoint(batch);
+
+        for (int i = 0; i < batch.size(); i++) {
+            uncheckpointed.remove(checkpointQueue.poll().getTransactionId());
+        }
+        writeAheadLog.deleteCheckpointedSegments(batch.get(batch.size() - 1).getSequence());
+        return batch.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("account.ledger.hot.accounts", hotAccounts, Map::size)
+                .register(registry);
+        Gauge.builder("account.ledger.checkpoint.lag", uncheckpointed, Map::size)
+                .description("WAL 에 기록되었지만 아직 체크포인트되지 않은 기록 수")
+                .register(registry);
+    }
+
+    private static final class Append {
+        private final HotAccount account;
+        private final LedgerEntry entry;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private Append(HotAccount account, LedgerEntry entry) {
+            this.account = account;
+            this.entry = entry;
+        }
+    }
+}
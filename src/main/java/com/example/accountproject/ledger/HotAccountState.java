@@ -0,0 +1,22 @@
+package com.example.accountproject.ledger;
+
+import com.example.accountproject.type.AccountStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * 체크포인트 시점의 계좌 상태
+ * balance 는 lastSequence 까지의 WAL 기록이 반영된 잔액
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class HotAccountState {
+    private final long accountId;
+    private final String accountNumber;
+    private final long userId;
+    private final AccountStatus accountStatus;
+    private final long balance;
+    private final long lastSequence;
+}
@@ -0,0 +1,134 @@
+package com.example.accountproject.ledger;
+
+import com.example.accountproject.cache.AccountInfoCache;
+import com.example.accountproject.domain.Account;
+import com.example.accountproject.domain.HotAccountCheckpoint;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.HotAccountCheckpointRepository;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.example.accountproject.type.TransactionResultType.SUCCESS;
+
+/**
+ * 체크포인트를 계좌(Account), 거래(Transaction), HotAccountCheckpoint 테이블에 반영
+ * 거래는 JDBC batch insert 로 저장하고, 계좌 잔액은 계좌 별 증감 합계만큼 한 번씩 갱신한다.
+ * Hot 계좌의 사용/취소는 계좌 목록 캐시를 지우지 않으므로, 잔액이 DB 에 반영되는 여기서 소유자 별로 한 번씩 지운다.
+ */
+@Component
+public class JpaCheckpointStore implements CheckpointStore {
+    private static final String INSERT_TRANSACTION_SQL = "insert into transaction "
+            + "(id, transaction_id, transaction_type, transaction_result_type, account_id, amount, "
+            + "balance_snapshot, transaction_at, created_at, updated_at) "
+            + "values (next value for hibernate_sequence, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_BALANCE_SQL = "update account "
+            + "set balance = balance + ?, version = version + 1, updated_at = ? where id = ?";
+    private static final String SELECT_ACCOUNT_USER_IDS_SQL = "select distinct account_user_id from account where id in (%s)";
+
+    private final AccountRepository accountRepository;
+    private final HotAccountCheckpointRepository hotAccountCheckpointRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountInfoCache accountInfoCache;
+
+    public JpaCheckpointStore(AccountRepository accountRepository,
+                              HotAccountCheckpointRepository hotAccountCheckpointRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              AccountInfoCache accountInfoCache) {
+        this.accountRepository = accountRepository;
+        this.hotAccountCheckpointRepository = hotAccountCheckpointRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.accountInfoCache = accountInfoCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Optional<HotAccountState> load(String accountNumber) {
+        return transactionTemplate.execute(status -> accountRepository.findByAccountNumber(accountNumber)
+                .map(this::toState));
+    }
+
+    private HotAccountState toState(Account account) {
+        long lastSequence = hotAccountCheckpointRepository.findById(account.getId())
+                .map(HotAccountCheckpoint::getLastSequence)
+                .orElse(0L);
+        return HotAccountState.builder()
+                .accountId(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .userId(account.getAccountUser().getId())
+                .accountStatus(account.getAccountStatus())
+                .balance(account.getBalance())
+                .lastSequence(lastSequence)
+                .build();
+    }
+
+    @Override
+    public void checkpoint(List<LedgerEntry> entries) {
+        Map<Long, Long> balanceDeltas = new LinkedHashMap<>();
+        Map<Long, Long> lastSequences = new LinkedHashMap<>();
+        for (LedgerEntry entry : entries) {
+            balanceDeltas.merge(entry.getAccountId(), entry.balanceDelta(), Long::sum);
+            lastSequences.put(entry.getAccountId(), entry.getSequence());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            insertTransactions(entries, Timestamp.valueOf(now));
+
+            List<Object[]> balanceUpdates = new ArrayList<>(balanceDeltas.size());
+            balanceDeltas.forEach((accountId, delta) ->
+                    balanceUpdates.add(new Object[]{delta, Timestamp.valueOf(now), accountId}));
+            jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, balanceUpdates);
+
+            List<HotAccountCheckpoint> checkpoints = new ArrayList<>(lastSequences.size());
+            lastSequences.forEach((accountId, lastSequence) -> checkpoints.add(HotAccountCheckpoint.builder()
+                    .accountId(accountId)
+                    .lastSequence(lastSequence)
+                    .checkpointedAt(now)
+                    .build()));
+            hotAccountCheckpointRepository.saveAll(checkpoints);
+
+            findAccountUserIds(balanceDeltas.keySet()).forEach(accountInfoCache::evictAfterCommit);
+        });
+    }
+
+    private List<Long> findAccountUserIds(Set<Long> accountIds) {
+        String placeholders = accountIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        return jdbcTemplate.queryForList(String.format(SELECT_ACCOUNT_USER_IDS_SQL, placeholders),
+                Long.class, accountIds.toArray());
+    }
+
+    private void insertTransactions(List<LedgerEntry> entries, Timestamp now) {
+        jdbcTemplate.batchUpdate(INSERT_TRANSACTION_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                LedgerEntry entry = entries.get(i);
+                ps.setString(1, entry.getTransactionId());
+                ps.setString(2, entry.getTransactionType().name());
+                ps.setString(3, SUCCESS.name());
+                ps.setLong(4, entry.getAccountId());
+                ps.setLong(5, entry.getAmount());
+                ps.setLong(6, entry.getBalanceSnapshot());
+                ps.setTimestamp(7, Timestamp.valueOf(entry.getTransactionAt()));
+                ps.setTimestamp(8, now);
+                ps.setTimestamp(9, now);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return entries.size();
+            }
+        });
+    }
+}
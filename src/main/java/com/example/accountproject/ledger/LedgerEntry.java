@@ -0,0 +1,50 @@
+package com.example.accountproject.ledger;
+
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.type.TransactionType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+import static com.example.accountproject.type.TransactionResultType.SUCCESS;
+
+/**
+ * Hot 계좌 원장 기록 한 건 (WAL 과 체크포인트의 단위)
+ * sequence 는 WAL 에 쓰는 순서대로 WAL 기록 스레드가 부여한다.
+ */
+@Getter
+@AllArgsConstructor
+public class LedgerEntry {
+    private long sequence;
+    private final long accountId;
+    private final String accountNumber;
+    private final TransactionType transactionType;
+    private final long amount;
+    private final long balanceSnapshot;
+    private final String transactionId;
+    private final LocalDateTime transactionAt;
+
+    void assignSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
+    /**
+     * 이 기록이 잔액에 더하는 값. 사용은 음수, 취소는 양수
+     */
+    public long balanceDelta() {
+        return transactionType == TransactionType.USE ? -amount : amount;
+    }
+
+    public TransactionDto toTransactionDto() {
+        return TransactionDto.builder()
+                .transactionId(transactionId)
+                .accountNumber(accountNumber)
+                .amount(amount)
+                .balanceSnapshot(balanceSnapshot)
+                .transactionResultType(SUCCESS)
+                .transactionType(transactionType)
+                .transactionAt(transactionAt)
+                .build();
+    }
+}
@@ -0,0 +1,239 @@
+package com.example.accountproject.ledger;
+
+import com.example.accountproject.type.TransactionType;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Hot 계좌 원장 WAL (write-ahead log)
+ * 기록은 [길이(int)][CRC32(int)][본문] 형식으로 segment 파일 끝에 이어 쓴다.
+ * segment 크기가 segmentBytes 를 넘으면 새 segment 를 만들고, 파일 이름은 첫 기록의 sequence 로 정한다.
+ * 복구할 때 마지막 segment 끝의 잘린 기록(쓰는 도중 종료)은 잘라내고, 그 밖의 손상은 복구하지 않고 실패한다.
+ * 체크포인트가 끝난 기록만 남은 segment 는 삭제한다.
+ */
+@Slf4j
+public class WriteAheadLog implements Closeable {
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final ConcurrentSkipListMap<Long, Path> segments = new ConcurrentSkipListMap<>();
+
+    private FileChannel active;
+    private long activeFirstSequence = -1L;
+
+    public WriteAheadLog(Path directory, long segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    /**
+     * 남아 있는 모든 segment 를 읽어서 기록을 sequence 순서로 반환
+     */
+    public synchronized List<LedgerEntry> recover() throws IOException {
+        List<LedgerEntry> entries = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(WriteAheadLog::isSegment)
+                    .forEach(path -> segments.put(firstSequenceOf(path), path));
+        }
+
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            Path path = segment.getValue();
+            long validBytes = read(path, entries);
+            long fileBytes = Files.size(path);
+            if (validBytes == fileBytes) {
+                continue;
+            }
+            if (!segment.getKey().equals(segments.lastKey())) {
+                throw new IllegalStateException("Corrupted WAL segment : " + path);
+            }
+
+            log.warn("Truncating torn WAL tail. segment : {}, bytes : {} -> {}", path, fileBytes, validBytes);
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+                channel.force(true);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 기록 추가
+     * @param entries sequence 가 부여된 기록, sequence 오름차순
+     * fsync 설정이면 디스크에 반영된 뒤 반환한다.
+     * 쓰기에 실패하면 쓰기 전 크기로 잘라내서 기록이 남지 않게 한 뒤 예외를 던진다.
+     * 잘라내지도 못하면 기록이 남았는지 알 수 없으므로 IndeterminateWriteException 을 던진다.
+     */
+    public synchronized void append(List<LedgerEntry> entries) throws IOException {
+        if (active == null || active.size() >= segmentBytes) {
+            roll(entries.get(0).getSequence());
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(encode(entries));
+        long position = active.size();
+        try {
+            while (buffer.hasRemaining()) {
+                active.write(buffer);
+            }
+            if (fsync) {
+                active.force(false);
+            }
+        } catch (IOException e) {
+            try {
+                active.truncate(position);
+                active.force(true);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+                throw new IndeterminateWriteException(e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * checkpointedSequence 이하의 기록만 담긴 segment 삭제 (쓰고 있는 segment 는 제외)
+     */
+    public synchronized void deleteCheckpointedSegments(long checkpointedSequence) throws IOException {
+        Iterator<Map.Entry<Long, Path>> iterator = segments.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Path> segment = iterator.next();
+            Long nextFirstSequence = segments.higherKey(segment.getKey());
+            if (segment.getKey() == activeFirstSequence
+                    || nextFirstSequence == null
+                    || nextFirstSequence - 1 > checkpointedSequence) {
+                return;
+            }
+            Files.deleteIfExists(segment.getValue());
+            iterator.remove();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+            active = null;
+        }
+    }
+
+    private void roll(long firstSequence) throws IOException {
+        if (active != null) {
+            active.force(true);
+            active.close();
+        }
+        Files.createDirectories(directory);
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        active = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeFirstSequence = firstSequence;
+        segments.put(firstSequence, path);
+    }
+
+    /**
+     * @return 정상적으로 읽은 바이트 수
+     */
+    private static long read(Path path, List<LedgerEntry> entries) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        CRC32 crc32 = new CRC32();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                return start;
+            }
+
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            crc32.reset();
+            crc32.update(payload);
+            if ((int) crc32.getValue() != checksum) {
+                return start;
+            }
+            entries.add(decode(payload));
+        }
+        return buffer.position();
+    }
+
+    private static byte[] encode(List<LedgerEntry> entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        CRC32 crc32 = new CRC32();
+        for (LedgerEntry entry : entries) {
+            byte[] payload = encode(entry);
+            crc32.reset();
+            crc32.update(payload);
+            out.writeInt(payload.length);
+            out.writeInt((int) crc32.getValue());
+            out.write(payload);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encode(LedgerEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entry.getSequence());
+        out.writeLong(entry.getAccountId());
+        out.writeUTF(entry.getAccountNumber());
+        out.writeUTF(entry.getTransactionType().name());
+        out.writeLong(entry.getAmount());
+        out.writeLong(entry.getBalanceSnapshot());
+        out.writeUTF(entry.getTransactionId());
+        out.writeUTF(entry.getTransactionAt().toString());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static LedgerEntry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        return new LedgerEntry(
+                in.readLong(),
+                in.readLong(),
+                in.readUTF(),
+                TransactionType.valueOf(in.readUTF()),
+                in.readLong(),
+                in.readLong(),
+                in.readUTF(),
+                LocalDateTime.parse(in.readUTF()));
+    }
+
+    /**
+     * 실패한 쓰기의 기록이 디스크에 남았는지 알 수 없음 (재시작하면 복구될 수 있다)
+     */
+    public static class IndeterminateWriteException extends IOException {
+        IndeterminateWriteException(IOException cause) {
+            super("WAL write failed and could not be rolled back", cause);
+        }
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequenceOf(Path path) {
+        String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.accountproject.metrics;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ContendedAccount {
+    private String accountNumber;
+    private long contendedAcquisitions;
+    private long failures;
+    private double totalWaitMillis;
+    private double maxWaitMillis;
+}
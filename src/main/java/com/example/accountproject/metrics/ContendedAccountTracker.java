@@ -0,0 +1,98 @@
+package com.example.accountproject.metrics;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 최근 일정 시간(bucketMillis * bucketCount) 동안 Lock 경합이 많았던 계좌 집계
+ * 시간 구간(bucket) 별로 계좌 별 통계를 모으고, 오래된 구간은 재사용하면서 비운다.
+ * 구간 당 계좌 수는 maxAccountsPerBucket 으로 제한해서 메모리 사용량을 고정한다.
+ */
+public class ContendedAccountTracker {
+    private final long bucketMillis;
+    private final int maxAccountsPerBucket;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    public ContendedAccountTracker(long bucketMillis, int bucketCount, int maxAccountsPerBucket) {
+        this.bucketMillis = bucketMillis;
+        this.maxAccountsPerBucket = maxAccountsPerBucket;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    public void record(String accountNumber, long waitNanos, boolean failed) {
+        Bucket bucket = currentBucket(System.currentTimeMillis() / bucketMillis);
+        Stats stats = bucket.stats.get(accountNumber);
+        if (stats == null) {
+            if (bucket.stats.size() >= maxAccountsPerBucket) {
+                return;
+            }
+            stats = bucket.stats.computeIfAbsent(accountNumber, key -> new Stats());
+        }
+        stats.record(waitNanos, failed);
+    }
+
+    public List<ContendedAccount> top(int limit) {
+        long currentEpoch = System.currentTimeMillis() / bucketMillis;
+        Map<String, ContendedAccount> merged = new HashMap<>();
+        for (int i = 0; i < buckets.length(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket == null || currentEpoch - bucket.epoch >= buckets.length()) {
+                continue;
+            }
+            bucket.stats.forEach((accountNumber, stats) -> {
+                ContendedAccount account = merged.computeIfAbsent(accountNumber,
+                        key -> ContendedAccount.builder().accountNumber(key).build());
+                account.setContendedAcquisitions(account.getContendedAcquisitions() + stats.count.sum());
+                account.setFailures(account.getFailures() + stats.failures.sum());
+                account.setTotalWaitMillis(account.getTotalWaitMillis() + stats.waitNanos.sum() / 1_000_000.0);
+                account.setMaxWaitMillis(Math.max(account.getMaxWaitMillis(), stats.maxWaitNanos.get() / 1_000_000.0));
+            });
+        }
+
+        List<ContendedAccount> accounts = new ArrayList<>(merged.values());
+        accounts.sort(Comparator.comparingDouble(ContendedAccount::getTotalWaitMillis).reversed());
+        return accounts.subList(0, Math.max(0, Math.min(limit, accounts.size())));
+    }
+
+    private Bucket currentBucket(long epoch) {
+        int index = (int) (epoch % buckets.length());
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.epoch == epoch) {
+                return bucket;
+            }
+            Bucket fresh = new Bucket(epoch);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private static final class Bucket {
+        private final long epoch;
+        private final ConcurrentHashMap<String, Stats> stats = new ConcurrentHashMap<>();
+
+        private Bucket(long epoch) {
+            this.epoch = epoch;
+        }
+    }
+
+    private static final class Stats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private void record(long nanos, boolean failed) {
+            count.increment();
+            if (failed) {
+                failures.increment();
+            }
+            waitNanos.add(nanos);
+            maxWaitNanos.accumulateAndGet(nanos, Math::max);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.accountproject.metrics;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/accountlocks?limit=10
+ * 최근 구간에서 Lock 대기 시간 합계가 큰 계좌 순으로 응답
+ * limit 이 음수이면 0 으로 본다
+ */
+@Component
+@Endpoint(id = "accountlocks")
+@RequiredArgsConstructor
+public class LockContentionEndpoint {
+    private static final int DEFAULT_LIMIT = 10;
+
+    private final LockMetrics lockMetrics;
+
+    @ReadOperation
+    public List<ContendedAccount> contendedAccounts(@Nullable Integer limit) {
+        return lockMetrics.topContendedAccounts(limit == null ? DEFAULT_LIMIT : Math.max(0, limit));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.accountproject.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 Lock 지표
+ * account.lock.wait : Lock 대기 시간 (result=acquired|failed|error)
+ * account.lock.hold : Lock 보유 시간
+ * account.lock.acquire.failures : Lock 취득 실패 수 (대기 시간 초과)
+ * account.lock.acquire.errors : Lock 저장소(Redis 등) 오류로 Lock 을 잡지 못한 수
+ * 대기 시간이 contention-threshold-millis 이상이거나 실패한 경우 계좌 별 경합 통계에 기록한다. 오류는 경합이 아니므로 기록하지 않는다.
+ */
+@Component
+public class LockMetrics {
+    private final Timer acquiredWaitTimer;
+    private final Timer failedWaitTimer;
+    private final Timer errorWaitTimer;
+    private final Timer holdTimer;
+    private final Counter failureCounter;
+    private final Counter errorCounter;
+    private final ContendedAccountTracker contendedAccountTracker;
+    private final long contentionThresholdNanos;
+
+    public LockMetrics(MeterRegistry meterRegistry,
+                       @Value("${account.lock.metrics.contention-threshold-millis:1}") long contentionThresholdMillis,
+                       @Value("${account.lock.metrics.window-bucket-seconds:10}") long windowBucketSeconds,
+                       @Value("${account.lock.metrics.window-buckets:6}") int windowBuckets,
+                       @Value("${account.lock.metrics.max-tracked-accounts:10000}") int maxTrackedAccounts) {
+        this.acquiredWaitTimer = Timer.builder("account.lock.wait")
+                .tag("result", "acquired")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failedWaitTimer = Timer.builder("account.lock.wait")
+                .tag("result", "failed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.errorWaitTimer = Timer.builder("account.lock.wait")
+                .tag("result", "error")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.holdTimer = Timer.builder("account.lock.hold")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("account.lock.acquire.failures")
+                .register(meterRegistry);
+        this.errorCounter = Counter.builder("account.lock.acquire.errors")
+                .register(meterRegistry);
+        this.contendedAccountTracker = new ContendedAccountTracker(
+                TimeUnit.SECONDS.toMillis(windowBucketSeconds), windowBuckets, maxTrackedAccounts);
+        this.contentionThresholdNanos = TimeUnit.MILLISECONDS.toNanos(contentionThresholdMillis);
+    }
+
+    public void recordAcquired(String accountNumber, long waitNanos) {
+        acquiredWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos >= contentionThresholdNanos) {
+            contendedAccountTracker.record(accountNumber, waitNanos, false);
+        }
+    }
+
+    public void recordFailed(String accountNumber, long waitNanos) {
+        failedWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        failureCounter.increment();
+        contendedAccountTracker.record(accountNumber, waitNanos, true);
+    }
+
+    public void recordError(String accountNumber, long waitNanos) {
+        errorWaitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+        errorCounter.increment();
+    }
+
+    public void recordHold(String accountNumber, long holdNanos) {
+        holdTimer.record(holdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public List<ContendedAccount> topContendedAccounts(int limit) {
+        return contendedAccountTracker.top(limit);
+    }
+}
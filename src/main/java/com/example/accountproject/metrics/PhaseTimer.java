@@ -0,0 +1,166 @@
+package com.example.accountproject.metrics;
+
+import com.example.accountproject.type.RequestPhase;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+
+/**
+ * 요청 단위 단계 별 소요 시간 기록
+ * ServerTimingFilter 가 begin() ~ end() 로 감싼 요청 스레드에서만 기록하고,
+ * 그 밖의 스레드(벤치마크, 백그라운드 작업)에서는 start()/stop() 이 아무것도 하지 않는다.
+ * 비동기 요청은 current() 로 얻은 기록을 작업 스레드에서 attach() 해서 이어 기록한다.
+ * 스레드 당 long 배열 하나를 재사용하므로 요청마다 새로 할당하지 않는다.
+ * 같은 단계가 여러 번 기록되면 (재시도 등) 합산한다.
+ */
+public final class PhaseTimer {
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+    private static final ThreadLocal<Recording> RECORDING = new ThreadLocal<>();
+
+    private PhaseTimer() {
+    }
+
+    public static void begin() {
+        Recording recording = RECORDING.get();
+        if (recording == null) {
+            recording = new Recording();
+            RECORDING.set(recording);
+        }
+        Arrays.fill(recording.elapsedNanos, 0L);
+        recording.active = true;
+    }
+
+    /**
+     * 기록 종료
+     * @return 단계 별 소요 시간(ns), RequestPhase.ordinal() 순서. 다음 begin() 전까지만 유효
+     */
+    public static long[] end() {
+        Recording recording = RECORDING.get();
+        if (recording == null) {
+            return new long[PHASES.length];
+        }
+        recording.active = false;
+        return recording.elapsedNanos;
+    }
+
+    /**
+     * 현재 스레드의 진행 중인 기록
+     * @return 기록 중이 아니면 null
+     */
+    public static Recording current() {
+        Recording recording = RECORDING.get();
+        return recording != null && recording.active ? recording : null;
+    }
+
+    /**
+     * 현재 스레드의 기록을 떼어낸다
+     * 떼어낸 기록은 다른 스레드가 이어 쓰므로 이 스레드의 다음 begin() 은 새 기록을 만든다.
+     * @return 떼어낸 기록, 없으면 null
+     */
+    public static Recording detach() {
+        Recording recording = RECORDING.get();
+        RECORDING.remove();
+        return recording;
+    }
+
+    /**
+     * 다른 스레드에서 시작한 기록을 현재 스레드에 붙인다
+     * @param recording 붙일 기록, null 이면 현재 스레드의 기록을 지운다
+     * @return 원래 붙어 있던 기록. 작업이 끝나면 다시 attach() 해서 되돌린다
+     */
+    public static Recording attach(Recording recording) {
+        Recording previous = RECORDING.get();
+        if (recording == null) {
+            RECORDING.remove();
+        } else {
+            RECORDING.set(recording);
+        }
+        return previous;
+    }
+
+    public static boolean isActive() {
+        Recording recording = RECORDING.get();
+        return recording != null && recording.active;
+    }
+
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    public static void stop(RequestPhase phase, long startedAt) {
+        Recording recording = RECORDING.get();
+        if (recording != null && recording.active) {
+            recording.elapsedNanos[phase.ordinal()] += System.nanoTime() - startedAt;
+        }
+    }
+
+    /**
+     * 현재 트랜잭션의 flush 및 커밋 시간을 COMMIT 단계로 기록
+     * 기록 중이 아니거나 트랜잭션 동기화가 없으면 무시
+     */
+    public static void timeCommit() {
+        if (!isActive() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long startedAt;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                startedAt = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (startedAt != 0L) {
+                    stop(RequestPhase.COMMIT, startedAt);
+                }
+            }
+        });
+    }
+
+    /**
+     * Server-Timing 헤더 값
+     * 예) lock;dur=0.512, account;dur=0.204, commit;dur=1.030
+     */
+    public static String serverTiming() {
+        Recording recording = RECORDING.get();
+        if (recording == null) {
+            return "";
+        }
+        StringBuilder header = new StringBuilder(128);
+        for (RequestPhase phase : PHASES) {
+            long nanos = recording.elapsedNanos[phase.ordinal()];
+            if (nanos == 0L) {
+                continue;
+            }
+            if (header.length() > 0) {
+                header.append(", ");
+            }
+            long micros = nanos / 1_000;
+            long fraction = micros % 1_000;
+            header.append(phase.getMetricName()).append(";dur=").append(micros / 1_000).append('.');
+            if (fraction < 100) {
+                header.append('0');
+            }
+            if (fraction < 10) {
+                header.append('0');
+            }
+            header.append(fraction);
+        }
+        return header.toString();
+    }
+
+    /**
+     * 한 요청의 단계 별 소요 시간
+     * 한 번에 한 스레드만 기록하고, 스레드를 넘길 때는 CompletableFuture 완료나 비동기 디스패치로 순서가 보장된다.
+     */
+    public static final class Recording {
+        private final long[] elapsedNanos = new long[PHASES.length];
+        private boolean active;
+
+        private Recording() {
+        }
+    }
+}
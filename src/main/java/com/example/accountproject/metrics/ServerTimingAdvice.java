@@ -0,0 +1,35 @@
+package com.example.accountproject.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 응답 본문을 쓰기 직전에 Server-Timing 헤더 기록
+ * 본문을 쓰고 나면 응답이 커밋되어 ServerTimingFilter 에서는 헤더를 추가할 수 없다.
+ * 이 시점에는 Lock 해제와 커밋까지 끝나 있다.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (PhaseTimer.isActive()) {
+            String serverTiming = PhaseTimer.serverTiming();
+            if (!serverTiming.isEmpty()) {
+                response.getHeaders().set(ServerTimingFilter.HEADER, serverTiming);
+            }
+        }
+        return body;
+    }
+}
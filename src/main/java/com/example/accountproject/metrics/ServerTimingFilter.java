@@ -0,0 +1,106 @@
+package com.example.accountproject.metrics;
+
+import com.example.accountproject.type.RequestPhase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * account.server-timing.paths 에 해당하는 요청의 단계 별 소요 시간 기록
+ * 응답에는 Server-Timing 헤더로 내려주고 (본문이 있는 응답은 ServerTimingAdvice 가 먼저 기록),
+ * account.request.phase (phase, uri) 히스토그램에 누적한다.
+ * 비동기로 처리되는 요청은 기록을 요청 속성에 넘겨두고, 작업 스레드가 이어 쓴 뒤 결과를 쓰는 비동기 디스패치에서 마무리한다.
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+    public static final String HEADER = "Server-Timing";
+    private static final String RECORDING_ATTRIBUTE = ServerTimingFilter.class.getName() + ".RECORDING";
+
+    private final boolean enabled;
+    private final Map<String, Timer[]> timersByPath = new HashMap<>();
+
+    public ServerTimingFilter(MeterRegistry meterRegistry,
+                              @Value("${account.server-timing.enabled:true}") boolean enabled,
+                              @Value("${account.server-timing.paths:/transaction/use,/transaction/cancel}") List<String> paths) {
+        this.enabled = enabled;
+        RequestPhase[] phases = RequestPhase.values();
+        for (String path : paths) {
+            Timer[] timers = new Timer[phases.length];
+            for (RequestPhase phase : phases) {
+                timers[phase.ordinal()] = Timer.builder("account.request.phase")
+                        .description(phase.getDescription())
+                        .tag("phase", phase.getMetricName())
+                        .tag("uri", path)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry);
+            }
+            timersByPath.put(path, timers);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !timersByPath.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        PhaseTimer.Recording previous = null;
+        if (isAsyncDispatch(request)) {
+            PhaseTimer.Recording recording = (PhaseTimer.Recording) request.getAttribute(RECORDING_ATTRIBUTE);
+            if (recording == null) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            request.removeAttribute(RECORDING_ATTRIBUTE);
+            previous = PhaseTimer.attach(recording);
+        } else {
+            PhaseTimer.begin();
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // 작업 스레드가 이어 쓰도록 기록을 떼어 두고, 비동기 디스패치에서 마무리한다
+                request.setAttribute(RECORDING_ATTRIBUTE, PhaseTimer.detach());
+            } else {
+                // 예외로 끝난 요청은 본문이 쓰이기 전이므로 여기서 헤더를 남긴다
+                String serverTiming = PhaseTimer.serverTiming();
+                if (!serverTiming.isEmpty() && !response.isCommitted() && !response.containsHeader(HEADER)) {
+                    response.setHeader(HEADER, serverTiming);
+                }
+                record(timersByPath.get(request.getRequestURI()), PhaseTimer.end());
+                if (isAsyncDispatch(request)) {
+                    PhaseTimer.attach(previous);
+                }
+            }
+        }
+    }
+
+    private void record(Timer[] timers, long[] elapsedNanos) {
+        for (int i = 0; i < elapsedNanos.length; i++) {
+            if (elapsedNanos[i] > 0L) {
+                timers[i].record(elapsedNanos[i], TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.accountproject.repositorty;
+
+import com.example.accountproject.domain.AccountNumberSequence;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface AccountNumberSequenceRepository extends JpaRepository<AccountNumberSequence, String> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AccountNumberSequence> findWithLockByName(String name);
+}
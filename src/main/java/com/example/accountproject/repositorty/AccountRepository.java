@@ -2,9 +2,19 @@ package com.example.accountproject.repositorty;
 
 import com.example.accountproject.domain.Account;
 import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.type.AccountStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,11 +22,58 @@ import java.util.Optional;
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Integer countByAccountUser(AccountUser accountUser);
 
-    Optional<Account> findFirstByOrderByIdDesc();
-
     Optional<Account> findFirstByOrderByIdAsc();
 
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    // Redis 장애 시 계좌 Lock 대신 사용하는 행 Lock (select ... for update). 트랜잭션이 끝날 때 풀린다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "javax.persistence.lock.timeout", value = "1000"))
+    Optional<Account> findForUpdateByAccountNumber(String accountNumber);
+
     List<Account> findByAccountUser(AccountUser accountUser);
+
+    // 계좌 목록 응답용. 계좌 테이블만 읽고 엔티티를 만들지 않는다
+    @Query("select new com.example.accountproject.dto.AccountDto(" +
+            "a.accountUser.id, a.accountNumber, a.balance, a.registeredAt, a.unRegisteredAt) " +
+            "from Account a where a.accountUser.id = :userId")
+    List<AccountDto> findAccountDtosByAccountUserId(@Param("userId") Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber and a.accountUser.id = :userId " +
+            "and a.accountStatus = :status and a.balance >= :amount")
+    int debit(@Param("accountNumber") String accountNumber,
+              @Param("userId") Long userId,
+              @Param("amount") Long amount,
+              @Param("status") AccountStatus status,
+              @Param("now") LocalDateTime now);
+
+    // 잔액이 0 인 사용 중 계좌만 해지한다
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.accountStatus = :unregistered, a.unRegisteredAt = :now, " +
+            "a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber and a.accountUser.id = :userId " +
+            "and a.accountStatus = :inUse and a.balance = 0")
+    int unregister(@Param("accountNumber") String accountNumber,
+                   @Param("userId") Long userId,
+                   @Param("inUse") AccountStatus inUse,
+                   @Param("unregistered") AccountStatus unregistered,
+                   @Param("now") LocalDateTime now);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber")
+    int credit(@Param("accountNumber") String accountNumber,
+               @Param("amount") Long amount,
+               @Param("now") LocalDateTime now);
+
+    // 이체 입금용. 계좌 Lock 없이 실행되므로 사용 중인 계좌에만 입금한다
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1, a.updatedAt = :now " +
+            "where a.accountNumber = :accountNumber and a.accountStatus = :status")
+    int deposit(@Param("accountNumber") String accountNumber,
+                @Param("amount") Long amount,
+                @Param("status") AccountStatus status,
+                @Param("now") LocalDateTime now);
 }
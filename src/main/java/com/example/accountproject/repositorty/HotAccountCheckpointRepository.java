@@ -0,0 +1,9 @@
+package com.example.accountproject.repositorty;
+
+import com.example.accountproject.domain.HotAccountCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface HotAccountCheckpointRepository extends JpaRepository<HotAccountCheckpoint, Long> {
+}
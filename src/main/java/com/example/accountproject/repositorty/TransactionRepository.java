@@ -1,12 +1,71 @@
 package com.example.accountproject.repositorty;
 
+import com.example.accountproject.domain.Account;
 import com.example.accountproject.domain.Transaction;
+import com.example.accountproject.type.TransactionResultType;
+import com.example.accountproject.type.TransactionType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+    // 거래 정보 응답에 계좌 번호가 필요하므로 계좌를 함께 조회한다
+    @EntityGraph(attributePaths = "account")
     Optional<Transaction> findByTransactionId(String transactionId);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select t.transactionId from Transaction t")
+    Stream<String> streamAllTransactionIds();
+
+    // 기간 내 거래를 커서로 한 건씩 읽는다. 읽기 전용으로 조회해서 영속성 컨텍스트에 스냅샷을 남기지 않는다
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select t from Transaction t join fetch t.account " +
+            "where t.transactionAt >= :from and t.transactionAt < :to " +
+            "order by t.transactionAt, t.id")
+    Stream<Transaction> streamByTransactionAtBetween(@Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    // 거래 내역 첫 페이지. (account_id, transaction_at, id) 인덱스를 역순으로 읽는다
+    @Query("select t from Transaction t " +
+            "where t.account = :account " +
+            "and (:type is null or t.transactionType = :type) " +
+            "and (:result is null or t.transactionResultType = :result) " +
+            "order by t.transactionAt desc, t.id desc")
+    List<Transaction> findHistory(@Param("account") Account account,
+                                  @Param("type") TransactionType type,
+                                  @Param("result") TransactionResultType result,
+                                  Pageable pageable);
+
+    // 거래 내역 다음 페이지. 이전 페이지 마지막 (transactionAt, id) 바로 뒤부터 읽으므로
+    // OFFSET 과 달리 앞 페이지를 건너뛰는 비용이 없다
+    @Query("select t from Transaction t " +
+            "where t.account = :account " +
+            "and t.transactionAt <= :transactionAt " +
+            "and (t.transactionAt < :transactionAt or t.id < :id) " +
+            "and (:type is null or t.transactionType = :type) " +
+            "and (:result is null or t.transactionResultType = :result) " +
+            "order by t.transactionAt desc, t.id desc")
+    List<Transaction> findHistoryAfter(@Param("account") Account account,
+                                       @Param("transactionAt") LocalDateTime transactionAt,
+                                       @Param("id") Long id,
+                                       @Param("type") TransactionType type,
+                                       @Param("result") TransactionResultType result,
+                                       Pageable pageable);
 }
@@ -0,0 +1,144 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.metrics.LockMetrics;
+import com.example.accountproject.metrics.PhaseTimer;
+import com.example.accountproject.type.RequestPhase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 계좌 Lock 취득/해제와 대기 시간, 보유 시간 기록
+ * LockAopAspect 와 일괄 처리 경로가 동일한 방식으로 Lock 을 사용하도록 한 곳에 모은다.
+ */
+@Component
+@RequiredArgsConstructor
+public class AccountLockExecutor {
+    private final LockService lockService;
+    private final LockMetrics lockMetrics;
+    private final LockTimePolicy lockTimePolicy;
+
+    public long lock(String accountNumber) {
+        return lock(accountNumber, LockService.DEFAULT_WAIT_MILLIS,
+                lockTimePolicy.leaseMillis(LockService.DEFAULT_LEASE_MILLIS));
+    }
+
+    /**
+     * Lock 취득
+     * @param accountNumber
+     * @param waitMillis
+     * @param leaseMillis
+     * @return Lock 을 취득한 시각(System.nanoTime)
+     * Lock 저장소 오류로 못 잡은 것은 경합에 의한 실패가 아닌 오류로 기록한다.
+     */
+    public long lock(String accountNumber, long waitMillis, long leaseMillis) {
+        long startedAt = System.nanoTime();
+        try {
+            lockService.lock(accountNumber, waitMillis, leaseMillis);
+        } catch (RuntimeException e) {
+            recordNotAcquired(accountNumber, System.nanoTime() - startedAt, e);
+            PhaseTimer.stop(RequestPhase.LOCK, startedAt);
+            throw e;
+        }
+
+        long acquiredAt = System.nanoTime();
+        PhaseTimer.stop(RequestPhase.LOCK, startedAt);
+        lockMetrics.recordAcquired(accountNumber, acquiredAt - startedAt);
+        return acquiredAt;
+    }
+
+    /**
+     * Lock 해제
+     * @param accountNumber
+     * @param acquiredAt lock() 의 반환값
+     */
+    public void unlock(String accountNumber, long acquiredAt) {
+        try {
+            lockService.unlock(accountNumber);
+        } finally {
+            lockMetrics.recordHold(accountNumber, System.nanoTime() - acquiredAt);
+        }
+    }
+
+    public <T> T execute(String accountNumber, Supplier<T> operation) {
+        long acquiredAt = lock(accountNumber);
+        try {
+            return operation.get();
+        } finally {
+            unlock(accountNumber, acquiredAt);
+        }
+    }
+
+    /**
+     * endpoint 의 Lock 대기 시간(LockTimePolicy)으로 Lock 을 잡고 operation 실행
+     * @param accountNumber
+     * @param endpoint @AccountLock 경로와 같은 "클래스.메서드" 이름
+     * @param operation
+     * @return operation 결과
+     * 보유 시간은 endpoint 에도 기록해서 adaptive 대기 시간 계산에 쓴다.
+     */
+    public <T> T execute(String accountNumber, String endpoint, Supplier<T> operation) {
+        long acquiredAt = lock(accountNumber,
+                lockTimePolicy.waitMillis(endpoint, LockService.DEFAULT_WAIT_MILLIS),
+                lockTimePolicy.leaseMillis(LockService.DEFAULT_LEASE_MILLIS));
+        try {
+            return operation.get();
+        } finally {
+            lockTimePolicy.recordHold(endpoint, System.nanoTime() - acquiredAt);
+            unlock(accountNumber, acquiredAt);
+        }
+    }
+
+    /**
+     * 여러 계좌 Lock 을 계좌 번호 순으로 endpoint 의 Lock 대기 시간(LockTimePolicy)으로 잡고 operation 실행
+     * @param accountNumbers
+     * @param endpoint @AccountLock 경로와 같은 "클래스.메서드" 이름
+     * @param operation
+     * @return operation 결과
+     * 대기 시간과 보유 시간은 계좌마다 같은 값으로 기록하고, 보유 시간은 endpoint 에도 기록한다.
+     */
+    public <T> T executeAll(List<String> accountNumbers, String endpoint, Supplier<T> operation) {
+        long startedAt = System.nanoTime();
+        try {
+            lockService.lockAll(accountNumbers,
+                    lockTimePolicy.waitMillis(endpoint, LockService.DEFAULT_WAIT_MILLIS),
+                    lockTimePolicy.leaseMillis(LockService.DEFAULT_LEASE_MILLIS));
+        } catch (RuntimeException e) {
+            long waitNanos = System.nanoTime() - startedAt;
+            for (String accountNumber : accountNumbers) {
+                recordNotAcquired(accountNumber, waitNanos, e);
+            }
+            PhaseTimer.stop(RequestPhase.LOCK, startedAt);
+            throw e;
+        }
+
+        long acquiredAt = System.nanoTime();
+        PhaseTimer.stop(RequestPhase.LOCK, startedAt);
+        for (String accountNumber : accountNumbers) {
+            lockMetrics.recordAcquired(accountNumber, acquiredAt - startedAt);
+        }
+        try {
+            return operation.get();
+        } finally {
+            lockTimePolicy.recordHold(endpoint, System.nanoTime() - acquiredAt);
+            try {
+                lockService.unlockAll(accountNumbers);
+            } finally {
+                long holdNanos = System.nanoTime() - acquiredAt;
+                for (String accountNumber : accountNumbers) {
+                    lockMetrics.recordHold(accountNumber, holdNanos);
+                }
+            }
+        }
+    }
+
+    private void recordNotAcquired(String accountNumber, long waitNanos, RuntimeException e) {
+        if (LockService.isBackendError(e)) {
+            lockMetrics.recordError(accountNumber, waitNanos);
+        } else {
+            lockMetrics.recordFailed(accountNumber, waitNanos);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.ledger.HotAccountLedger;
+import com.example.accountproject.type.BalanceUpdateMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 계좌 Lock 이 필요한지 결정
+ * 잔액 변경 방식(account.balance.update-mode)이 LOCKED 가 아니면
+ * 잔액 변경 자체가 동시성을 보장하므로 @AccountLock 이 있어도 Lock 을 걸지 않는다.
+ * ATOMIC : 조건부 UPDATE, OPTIMISTIC : @Version 충돌 시 재시도
+ * Hot 계좌는 메모리 원장이 CAS 로 처리하므로 Lock 을 걸지 않는다.
+ */
+@Component
+public class AccountLockPolicy {
+    private final BalanceUpdateMode balanceUpdateMode;
+    private final HotAccountLedger hotAccountLedger;
+
+    public AccountLockPolicy(@Value("${account.balance.update-mode:LOCKED}") BalanceUpdateMode balanceUpdateMode,
+                             HotAccountLedger hotAccountLedger) {
+        this.balanceUpdateMode = balanceUpdateMode;
+        this.hotAccountLedger = hotAccountLedger;
+    }
+
+    public boolean requiresLock(String accountNumber) {
+        return balanceUpdateMode == BalanceUpdateMode.LOCKED && !hotAccountLedger.isHot(accountNumber);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountNumberSequence;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountNumberSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_NUMBER_EXHAUSTED;
+
+/**
+ * 계좌 번호 발급기 (hi/lo 방식)
+ * account_number_sequence 테이블에서 blockSize 개의 번호 구간을 행 Lock 으로 예약하고,
+ * 예약한 구간 안에서는 DB 조회 없이 메모리에서 번호를 발급한다.
+ * 구간 예약은 별도 트랜잭션으로 커밋되므로 계좌 생성이 롤백되어도 번호는 재사용되지 않는다. (번호에 빈 구간이 생길 수 있음)
+ * 구간 예약은 새 연결을 받아야 하므로 DB 연결을 쥔 트랜잭션 밖에서 호출한다.
+ * 연결을 쥔 요청들이 refill 을 기다리면 예약할 연결이 남지 않아 연결 풀 timeout 까지 멈춘다.
+ */
+@Slf4j
+@Component
+public class AccountNumberAllocator {
+    static final String SEQUENCE_NAME = "ACCOUNT_NUMBER";
+    static final long MIN_ACCOUNT_NUMBER = 1_000_000_000L;
+    static final long MAX_ACCOUNT_NUMBER = 9_999_999_999L;
+
+    private final AccountNumberSequenceRepository accountNumberSequenceRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+
+    private volatile Block block = new Block(0, 0);
+
+    public AccountNumberAllocator(AccountNumberSequenceRepository accountNumberSequenceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${account.number.block-size:100}") int blockSize) {
+        this.accountNumberSequenceRepository = accountNumberSequenceRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * 계좌 번호 발급
+     * @return 10자리 계좌 번호
+     * 10자리 계좌 번호를 모두 사용한 경우 실패 응답
+     */
+    public String allocate() {
+        while (true) {
+            Block current = block;
+            long accountNumber = current.next.getAndIncrement();
+            if (accountNumber < current.limit) {
+                return Long.toString(accountNumber);
+            }
+            refill(current);
+        }
+    }
+
+    private synchronized void refill(Block exhausted) {
+        if (block == exhausted) {
+            block = reserveBlock();
+        }
+    }
+
+    private Block reserveBlock() {
+        return transactionTemplate.execute(status -> {
+            AccountNumberSequence sequence = accountNumberSequenceRepository.findWithLockByName(SEQUENCE_NAME)
+                    .orElseGet(() -> AccountNumberSequence.builder()
+                            .name(SEQUENCE_NAME)
+                            .nextValue(MIN_ACCOUNT_NUMBER)
+                            .build());
+
+            long start = sequence.getNextValue();
+            if (start > MAX_ACCOUNT_NUMBER) {
+                log.error("Account number space exhausted.");
+                throw new AccountException(ACCOUNT_NUMBER_EXHAUSTED);
+            }
+
+            long limit = Math.min(start + blockSize, MAX_ACCOUNT_NUMBER + 1);
+            sequence.setNextValue(limit);
+            accountNumberSequenceRepository.save(sequence);
+
+            log.debug("Reserved account numbers [{}, {})", start, limit);
+            return new Block(start, limit);
+        });
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long limit;
+
+        private Block(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+}
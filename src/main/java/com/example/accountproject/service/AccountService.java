@@ -1,21 +1,25 @@
 package com.example.accountproject.service;
 
+import com.example.accountproject.aop.OptimisticRetry;
+import com.example.accountproject.cache.AccountInfoCache;
 import com.example.accountproject.domain.Account;
 import com.example.accountproject.domain.AccountUser;
 import com.example.accountproject.dto.AccountDto;
 import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.ledger.HotAccountLedger;
 import com.example.accountproject.repositorty.AccountRepository;
 import com.example.accountproject.repositorty.AccountUserRepository;
 import com.example.accountproject.type.AccountStatus;
+import com.example.accountproject.type.BalanceUpdateMode;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Objects;
-import java.util.Random;
-import java.util.stream.Collectors;
 
 import static com.example.accountproject.type.ErrorCode.*;
 
@@ -24,6 +28,13 @@ import static com.example.accountproject.type.ErrorCode.*;
 public class AccountService {
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final AccountInfoCache accountInfoCache;
+    private final HotAccountLedger hotAccountLedger;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${account.balance.update-mode:LOCKED}")
+    private BalanceUpdateMode balanceUpdateMode;
 
     /**
      * 계좌 생성 서비스
@@ -32,49 +43,32 @@ public class AccountService {
      * @return
      * 사용자가 있는지 조회하고 사용자가 없는 경우 실패 응답
      * 사용자의 계좌가 10개 이상일 때 실패 응답
-     * 실패 조건이 없을 경우 계좌 번호를 10자리 랜덤한 정수로 만들고 기본적으로 계좌 번호는 순차 증가 방식으로 생성 됨
-     * 단 만들어진 계좌 번호가 10자리가 넘어가는 경우
-     * 다시 랜덤한 10자리의 정수로 이루어진 계좌를 만들고 그 계좌부터 다시 번호가 순차 증가 방식으로 생성 됨
+     * 실패 조건이 없을 경우 계좌 번호 발급기에서 10자리 계좌 번호를 순차 증가 방식으로 발급 받음
+     * 10자리 계좌 번호를 모두 사용한 경우 실패 응답
      * 만들어진 계좌 정보를 저장
+     * 계좌 번호는 트랜잭션을 열기 전에 발급 받는다. 발급기가 번호 구간을 예약할 때 별도 연결을 쓰므로,
+     * 트랜잭션 안에서 발급 받으면 연결을 쥔 요청들이 구간 예약을 기다리는 동안 예약할 연결이 남지 않는다.
+     * 실패 응답한 요청의 번호는 버려진다 (번호에 빈 구간이 생길 수 있음)
      */
-    @Transactional
     public AccountDto createAccount(Long userId, Long initialBalance) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-
-        validateCreateAccount(accountUser);
-
-        String newAccountNumber = accountRepository.findFirstByOrderByIdDesc()
-                .map(account -> (Long.parseLong(account.getAccountNumber())) + 1 + "")
-                .orElse(createRandomAccount());
-
-        if (newAccountNumber.length() > 10) {
-            newAccountNumber = createRandomAccount();
-        }
-
-        return AccountDto.fromEntity(accountRepository.save(Account.builder()
-                .accountUser(accountUser)
-                .accountNumber(newAccountNumber)
-                .accountStatus(AccountStatus.IN_USE)
-                .balance(initialBalance)
-                .registeredAt(LocalDateTime.now())
-                .build())
-        );
-    }
-
-    private String createRandomAccount() {
-        String numericCharacters = "0123456789";
-
-        Random random = new Random();
-        StringBuffer accountNumber = new StringBuffer(10);
-
-        for (int i  = 0; i < 10; i++) {
-            int index = random.nextInt(numericCharacters.length());
-            char randomChar = numericCharacters.charAt(index);
-            accountNumber.append(randomChar);
-        }
-
-        return accountNumber.toString();
+        String newAccountNumber = accountNumberAllocator.allocate();
+
+        return transactionTemplate.execute(status -> {
+            AccountUser accountUser = accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+
+            validateCreateAccount(accountUser);
+
+            accountInfoCache.evictAfterCommit(userId);
+            return AccountDto.fromEntity(accountRepository.save(Account.builder()
+                    .accountUser(accountUser)
+                    .accountNumber(newAccountNumber)
+                    .accountStatus(AccountStatus.IN_USE)
+                    .balance(initialBalance)
+                    .registeredAt(LocalDateTime.now())
+                    .build())
+            );
+        });
     }
 
     private void validateCreateAccount(AccountUser accountUser) {
@@ -90,10 +84,17 @@ public class AccountService {
      * @return
      * 사용자가 없는 경우, 사용자 아이디와 계좌 소유주가 다른 경우,
      * 계좌가 이미 해지 상태인 경우, 잔액이 있는 경우 실패 응답
+     * Hot 계좌는 메모리 원장이 계속 거래를 받고 DB 잔액이 늦게 반영되므로 해지할 수 없다
      * 해지한 계좌 정보를 저장
+     * ATOMIC 모드에서는 계좌 Lock 이 없으므로 잔액이 0 인 사용 중 계좌만 바꾸는 조건부 UPDATE 로 해지한다
      */
+    @OptimisticRetry
     @Transactional
     public AccountDto deleteAccount(Long userId, String accountNumber) {
+        if (hotAccountLedger.isHot(accountNumber)) {
+            throw new AccountException(HOT_ACCOUNT_UNREGISTER_NOT_ALLOWED);
+        }
+
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
 
@@ -102,9 +103,30 @@ public class AccountService {
 
         validateDeleteAccount(accountUser, account);
 
+        if (balanceUpdateMode == BalanceUpdateMode.ATOMIC) {
+            return deleteAccountAtomically(accountUser, accountNumber);
+        }
+
         account.setAccountStatus(AccountStatus.UNREGISTERED);
         account.setUnRegisteredAt(LocalDateTime.now());
 
+        accountInfoCache.evictAfterCommit(userId);
+        return AccountDto.fromEntity(account);
+    }
+
+    private AccountDto deleteAccountAtomically(AccountUser accountUser, String accountNumber) {
+        int updated = accountRepository.unregister(accountNumber, accountUser.getId(),
+                AccountStatus.IN_USE, AccountStatus.UNREGISTERED, LocalDateTime.now());
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        if (updated == 0) {
+            // 검증 뒤에 입금되었거나 다른 요청이 먼저 해지한 경우
+            validateDeleteAccount(accountUser, account);
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+
+        accountInfoCache.evictAfterCommit(accountUser.getId());
         return AccountDto.fromEntity(account);
     }
 
@@ -128,15 +150,16 @@ public class AccountService {
      * @return
      * 사용자가 없는 경우 실패 응답
      * 사용자가 있는 경우 계좌번호, 잔액을 Josn List로 응답
+     * 계좌 목록은 로컬 캐시, Redis 캐시 순으로 조회하고 둘 다 없을 때만 DB 에서 조회
+     * DB 에서는 사용자 존재 여부와 계좌 목록 projection 만 조회한다
      */
     public List<AccountDto> getAccountsInfo(Long userId) {
-        AccountUser accountUser = accountUserRepository.findById(userId)
-                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
-
-        List<Account> accounts = accountRepository.findByAccountUser(accountUser);
+        return accountInfoCache.get(userId, () -> {
+            if (!accountUserRepository.existsById(userId)) {
+                throw new AccountException(USER_NOT_FOUND);
+            }
 
-        return accounts.stream()
-                .map(AccountDto::fromEntity)
-                .collect(Collectors.toList());
+            return accountRepository.findAccountDtosByAccountUserId(userId);
+        });
     }
 }
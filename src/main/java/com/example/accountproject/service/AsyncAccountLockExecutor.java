@@ -0,0 +1,108 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.metrics.LockMetrics;
+import com.example.accountproject.metrics.PhaseTimer;
+import com.example.accountproject.type.RequestPhase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * 비동기 계좌 Lock 실행기 (account.lock.async.enabled=true)
+ * 요청 스레드는 Lock 을 기다리지 않고 바로 반환되고, Lock 을 잡은 작업만 크기가 제한된 잔액 처리 스레드 풀에서 실행한다.
+ * 스레드 풀과 대기열이 모두 차면 계좌 사용 중(ACCOUNT_TRANSACTION_LOCK)으로 실패 응답한다.
+ * 대기 시간, 보유 시간은 동기 경로와 같은 LockMetrics 에 기록한다.
+ * 요청의 단계 별 소요 시간(PhaseTimer) 기록은 작업 스레드에 넘겨서 이어 기록한다.
+ */
+@Component
+@ConditionalOnProperty(name = "account.lock.async.enabled", havingValue = "true")
+public class AsyncAccountLockExecutor {
+    private final LockService lockService;
+    private final LockMetrics lockMetrics;
+    private final ThreadPoolExecutor executor;
+
+    public AsyncAccountLockExecutor(LockService lockService,
+                                    LockMetrics lockMetrics,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${account.lock.async.pool-size:32}") int poolSize,
+                                    @Value("${account.lock.async.queue-capacity:1000}") int queueCapacity) {
+        this.lockService = lockService;
+        this.lockMetrics = lockMetrics;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "balance-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(executor, "balance-worker", Collections.emptyList()).bindTo(meterRegistry);
+    }
+
+    public <T> CompletableFuture<T> execute(String accountNumber, long waitMillis, long leaseMillis, Supplier<T> work) {
+        long startedAt = System.nanoTime();
+        PhaseTimer.Recording recording = PhaseTimer.current();
+        AtomicBoolean acquired = new AtomicBoolean();
+        Supplier<T> measuredWork = () -> {
+            long acquiredAt = System.nanoTime();
+            acquired.set(true);
+            lockMetrics.recordAcquired(accountNumber, acquiredAt - startedAt);
+            PhaseTimer.Recording previous = PhaseTimer.attach(recording);
+            PhaseTimer.stop(RequestPhase.LOCK, startedAt);
+            try {
+                return work.get();
+            } finally {
+                PhaseTimer.attach(previous);
+                lockMetrics.recordHold(accountNumber, System.nanoTime() - acquiredAt);
+            }
+        };
+
+        CompletableFuture<T> future;
+        try {
+            future = lockService.executeAsync(accountNumber, waitMillis, leaseMillis, measuredWork, executor);
+        } catch (RejectedExecutionException e) {
+            future = CompletableFuture.failedFuture(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+        }
+        return future.whenComplete((result, e) -> {
+            if (e != null && !acquired.get()) {
+                Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                if (LockService.isBackendError(cause)) {
+                    lockMetrics.recordError(accountNumber, System.nanoTime() - startedAt);
+                } else {
+                    lockMetrics.recordFailed(accountNumber, System.nanoTime() - startedAt);
+                }
+                // 비동기 디스패치 전에 완료되므로 요청 기록에 바로 더한다
+                recordLockWait(recording, startedAt);
+            }
+        });
+    }
+
+    private static void recordLockWait(PhaseTimer.Recording recording, long startedAt) {
+        PhaseTimer.Recording previous = PhaseTimer.attach(recording);
+        try {
+            PhaseTimer.stop(RequestPhase.LOCK, startedAt);
+        } finally {
+            PhaseTimer.attach(previous);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
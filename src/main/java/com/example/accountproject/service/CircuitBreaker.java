@@ -0,0 +1,88 @@
+package com.example.accountproject.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * 외부 의존성(Redis) 호출 차단기
+ * CLOSED : 호출을 허용하고 연속 실패 수를 센다. failure-threshold 번 연속 실패하면 OPEN.
+ * OPEN : open-duration 동안 호출을 막는다. 지나면 첫 요청 하나만 시험 호출로 허용하고 HALF_OPEN.
+ * HALF_OPEN : 시험 호출이 성공하면 CLOSED, 실패하면 다시 OPEN. 시험 호출이 끝날 때까지 다른 호출은 막는다.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long openedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, long openMillis) {
+        this(name, failureThreshold, openMillis, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, long openMillis, LongSupplier nanoClock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMillis);
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * 호출 허용 여부
+     * @return false 이면 호출하지 않고 대체 경로를 사용한다
+     * true 를 받은 호출은 결과를 recordSuccess 나 recordFailure 로 알려야 한다.
+     */
+    public boolean allowRequest() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && nanoClock.getAsLong() - openedAt >= openNanos
+                && state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
+            log.info("Circuit {} half-open. Trying one call.", name);
+            return true;
+        }
+        return false;
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+            log.info("Circuit {} closed.", name);
+        }
+    }
+
+    public void recordFailure() {
+        if (state.get() == State.HALF_OPEN) {
+            open(State.HALF_OPEN);
+            return;
+        }
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open(State.CLOSED);
+        }
+    }
+
+    public State getState() {
+        return state.get();
+    }
+
+    private void open(State from) {
+        openedAt = nanoClock.getAsLong();
+        if (state.compareAndSet(from, State.OPEN)) {
+            consecutiveFailures.set(0);
+            log.warn("Circuit {} opened for {} ms.", name, TimeUnit.NANOSECONDS.toMillis(openNanos));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * 인스턴스 내부 대기열을 둔 Redis 계좌 Lock (account.lock.type=redis, account.lock.coalescing.enabled=true)
+ * 같은 계좌의 요청은 먼저 인스턴스 안의 공정(FIFO) Lock 에 줄을 서고, 맨 앞 요청만 Redis Lock 을 잡는다.
+ * Redis Lock 을 가진 요청이 끝날 때 뒤에 기다리는 요청이 있으면 Redis Lock 을 풀지 않고 그대로 넘겨준다.
+ * 한 계좌에 요청이 몰려도 Redis 왕복은 넘겨받는 묶음마다 한 번이다.
+ *
+ * - Redis Lock 소유자는 스레드가 아닌 묶음 단위 아이디이므로 묶음의 마지막 요청이 다른 스레드에서 풀 수 있다.
+ * - 다른 인스턴스가 굶지 않도록 max-handoffs 번 넘기거나 max-hold-millis(lease 의 절반 이하)가 지나면 Redis Lock 을 풀고 다시 경쟁한다.
+ * - 대기 시간(waitMillis)은 인스턴스 내부 대기와 Redis 대기를 합친 시간이다.
+ * - 여러 계좌 Lock(lockAll)도 계좌마다 같은 대기열을 거친다.
+ * - 인스턴스 내부 대기열은 스레드가 소유하는 공정 Lock 이라 비동기 Lock 대기(account.lock.async.enabled=true)를 지원하지 않는다.
+ *   함께 켜면 잔액 처리 스레드가 대기열에서 멈춰 있게 되므로 시작하지 않는다.
+ */
+@Slf4j
+@Service
+@Primary
+@ConditionalOnExpression("'${account.lock.type:redis}' == 'redis' && ${account.lock.coalescing.enabled:false}")
+public class CoalescingLockService implements LockService {
+    // Redis Lock 소유자 아이디. 실제 스레드 아이디(양수)와 RedisLockService 의 비동기 아이디와 겹치지 않는 범위를 사용한다
+    private static final AtomicLong OWNER_IDS = new AtomicLong(Long.MIN_VALUE / 2);
+
+    private final RedissonClient redissonClient;
+    private final int maxHandoffs;
+    private final long maxHoldNanos;
+    private final ConcurrentHashMap<String, AccountQueue> queues = new ConcurrentHashMap<>();
+
+    private final Counter redisAcquisitions;
+    private final Counter handoffs;
+
+    public CoalescingLockService(RedissonClient redissonClient,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${account.lock.coalescing.max-handoffs:64}") int maxHandoffs,
+                                 @Value("${account.lock.coalescing.max-hold-millis:200}") long maxHoldMillis,
+                                 @Value("${account.lock.async.enabled:false}") boolean asyncEnabled) {
+        if (asyncEnabled) {
+            throw new IllegalStateException("account.lock.coalescing.enabled cannot be combined with "
+                    + "account.lock.async.enabled. Disable one of them.");
+        }
+        this.redissonClient = redissonClient;
+        this.maxHandoffs = maxHandoffs;
+        this.maxHoldNanos = TimeUnit.MILLISECONDS.toNanos(maxHoldMillis);
+
+        this.redisAcquisitions = Counter.builder("account.lock.coalescing.redis.acquisitions")
+                .description("Redis 에서 직접 잡은 계좌 Lock 수")
+                .register(meterRegistry);
+        this.handoffs = Counter.builder("account.lock.coalescing.handoffs")
+                .description("Redis 를 거치지 않고 앞 요청에게서 넘겨받은 계좌 Lock 수")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+        long startedAt = System.nanoTime();
+        AccountQueue queue = join(accountNumber);
+        boolean acquired = false;
+        try {
+            if (!queue.localLock.tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                log.error("======Lock acquisition failed======");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+            if (queue.redisHeld) {
+                handoffs.increment();
+            } else {
+                long remainingMillis = Math.max(0,
+                        waitMillis - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+                lockRedis(accountNumber, queue, remainingMillis, leaseMillis);
+            }
+            acquired = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        } finally {
+            if (!acquired) {
+                if (queue.localLock.isHeldByCurrentThread()) {
+                    queue.localLock.unlock();
+                }
+                leave(accountNumber, queue);
+            }
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber : {}", accountNumber);
+        AccountQueue queue = queues.get(accountNumber);
+        try {
+            queue.handoffCount++;
+            boolean handOff = queue.localLock.hasQueuedThreads()
+                    && queue.handoffCount < maxHandoffs
+                    && System.nanoTime() < queue.handoffDeadline;
+            if (!handOff) {
+                unlockRedis(accountNumber, queue);
+            }
+        } finally {
+            queue.localLock.unlock();
+            leave(accountNumber, queue);
+        }
+    }
+
+    private void lockRedis(String accountNumber, AccountQueue queue, long waitMillis, long leaseMillis)
+            throws InterruptedException {
+        long ownerId = OWNER_IDS.incrementAndGet();
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+
+        boolean isLock;
+        try {
+            isLock = getLock(accountNumber).tryLockAsync(waitMillis, leaseMillis, TimeUnit.MILLISECONDS, ownerId).get();
+        } catch (ExecutionException e) {
+            log.error("Redis lock failed", e.getCause());
+            throw LockService.backendError(e.getCause());
+        }
+        if (!isLock) {
+            log.error("======Lock acquisition failed======");
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+
+        redisAcquisitions.increment();
+        long maxHold = leaseMillis == WATCHDOG_LEASE
+                ? maxHoldNanos
+                : Math.min(maxHoldNanos, TimeUnit.MILLISECONDS.toNanos(leaseMillis) / 2);
+        queue.redisHeld = true;
+        queue.ownerId = ownerId;
+        queue.handoffCount = 0;
+        queue.handoffDeadline = System.nanoTime() + maxHold;
+    }
+
+    // localLock 을 잡은 상태에서만 호출한다
+    private void unlockRedis(String accountNumber, AccountQueue queue) {
+        queue.redisHeld = false;
+        try {
+            getLock(accountNumber).unlockAsync(queue.ownerId).toCompletableFuture().join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IllegalMonitorStateException) {
+                log.warn("Lock for accountNumber {} was not held. The lease may have expired.", accountNumber);
+            } else {
+                log.error("Redis unlock failed. The lock is released when its lease expires.", e.getCause());
+            }
+        }
+    }
+
+    private AccountQueue join(String accountNumber) {
+        return queues.compute(accountNumber, (key, queue) -> {
+            AccountQueue joined = queue == null ? new AccountQueue() : queue;
+            joined.users++;
+            return joined;
+        });
+    }
+
+    private void leave(String accountNumber, AccountQueue queue) {
+        // Redis Lock 을 넘겨받기로 한 요청이 대기 시간이 지나 떠났으면, 남은 요청이 없을 때 대신 푼다
+        if (queue.redisHeld && !queue.localLock.hasQueuedThreads() && queue.localLock.tryLock()) {
+            try {
+                if (queue.redisHeld && !queue.localLock.hasQueuedThreads()) {
+                    unlockRedis(accountNumber, queue);
+                }
+            } finally {
+                queue.localLock.unlock();
+            }
+        }
+        queues.computeIfPresent(accountNumber, (key, current) -> --current.users == 0 ? null : current);
+    }
+
+    private RLock getLock(String accountNumber) {
+        return redissonClient.getLock("ACLK:" + accountNumber);
+    }
+
+    private static final class AccountQueue {
+        private final ReentrantLock localLock = new ReentrantLock(true);
+        // 떠나는 요청이 localLock 없이 먼저 확인하므로 volatile
+        private volatile boolean redisHeld;
+        // 아래 값은 localLock 을 잡은 스레드만 읽고 쓴다
+        private long ownerId;
+        private int handoffCount;
+        private long handoffDeadline;
+        // queues.compute 안에서만 바꾼다
+        private int users;
+    }
+}
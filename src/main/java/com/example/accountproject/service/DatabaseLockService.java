@@ -0,0 +1,94 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * DB 행 Lock (select ... for update)
+ * lock 에서 트랜잭션을 열고 계좌 행을 잠근 뒤, unlock 에서 그 트랜잭션을 커밋한다.
+ * 그 사이에 호출한 서비스의 @Transactional 은 이 트랜잭션에 참여하므로 행 Lock 은 서비스 작업이 커밋될 때까지 유지된다.
+ * 트랜잭션이 스레드에 묶이므로 lock 과 unlock 은 같은 스레드에서 순서대로(LIFO) 호출해야 한다.
+ * 커밋 실패는 unlock 에서 예외로 전달된다.
+ * 계좌가 없으면 잠글 행이 없으므로 Lock 없이 진행하고, 서비스가 계좌 없음으로 실패 응답한다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "account.lock.type", havingValue = "database")
+public class DatabaseLockService implements LockService {
+    private static final ThreadLocal<Deque<TransactionStatus>> TRANSACTIONS =
+            ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final AccountRepository accountRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final TransactionDefinition definition =
+            new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRED);
+
+    public DatabaseLockService(AccountRepository accountRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.accountRepository = accountRepository;
+        this.transactionManager = transactionManager;
+    }
+
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+        lockAll(List.of(accountNumber), waitMillis, leaseMillis);
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        release();
+    }
+
+    /**
+     * 하나의 트랜잭션에서 계좌 행을 계좌 번호 순으로 잠근다
+     * 대기 시간은 waitMillis 가 아닌 DB lock timeout(findForUpdateByAccountNumber 의 힌트, 1초)을 따르며,
+     * 지나면 트랜잭션을 롤백하고 실패 응답한다. 행 Lock 은 트랜잭션과 함께 끝나므로 lease 는 쓰지 않는다.
+     */
+    @Override
+    public void lockAll(List<String> accountNumbers, long waitMillis, long leaseMillis) {
+        log.debug("Trying row lock for accountNumbers : {}", accountNumbers);
+        TransactionStatus status = transactionManager.getTransaction(definition);
+        try {
+            for (String accountNumber : LockService.canonicalOrder(accountNumbers)) {
+                accountRepository.findForUpdateByAccountNumber(accountNumber);
+            }
+        } catch (PessimisticLockingFailureException e) {
+            transactionManager.rollback(status);
+            log.error("======Lock acquisition failed======");
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            throw e;
+        }
+        TRANSACTIONS.get().push(status);
+    }
+
+    @Override
+    public void unlockAll(List<String> accountNumbers) {
+        release();
+    }
+
+    private void release() {
+        TransactionStatus status = TRANSACTIONS.get().pop();
+        // 서비스가 롤백으로 표시한 트랜잭션(AccountException 등)은 커밋하지 않는다
+        if (status.isRollbackOnly()) {
+            transactionManager.rollback(status);
+        } else {
+            transactionManager.commit(status);
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.cache.LocalLruCache;
+import com.example.accountproject.cache.TransactionCache;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.type.TransactionType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_NOT_FOUND;
+import static com.example.accountproject.type.TransactionResultType.FAIL;
+
+/**
+ * 실패 거래 기록 비동기 저장
+ * 실패 거래는 크기가 제한된 메모리 큐에 넣고, 백그라운드 스레드가 모아서 JDBC batch insert 로 저장한다.
+ * 요청 스레드는 insert 를 기다리지 않으므로 계좌 Lock 을 잡고 있는 시간이 줄어든다.
+ * 계좌 번호는 요청 스레드에서 계좌 아이디로 바꿔서 없는 계좌는 ACCOUNT_NOT_FOUND 로 실패시킨다.
+ * 계좌는 삭제되지 않으므로 계좌 아이디는 로컬 캐시에 두고, 처음 보는 계좌만 조회한다.
+ *
+ * 저장 정책
+ * - 큐가 가득 차면 overflow-policy 에 따라 처리한다.
+ *   DROP : 바로 버리고 dropped 카운터를 올린다.
+ *   BLOCK : offer-timeout-millis 동안 기다리고(backpressure), 그래도 자리가 없으면 버린다.
+ * - 종료 시에는 새 기록을 받지 않고 큐에 남은 기록을 모두 저장한 뒤 종료한다.
+ *   종료와 겹쳐서 들어온 기록이나 제한 시간 안에 저장하지 못한 기록은 dropped 로 집계한다.
+ * - batch 중 한 건이 실패하면 (BatchUpdateException) 실행되지 않은 건을 한 건씩 다시 저장하고, 실패한 건만 write_failed 로 집계한다.
+ * - 프로세스가 비정상 종료되면 큐에 남아 있던 기록은 유실된다.
+ * - 잔액 스냅샷은 기록을 저장하는 시점의 계좌 잔액이다.
+ */
+@Slf4j
+@Component
+public class FailedTransactionWriter implements MeterBinder {
+    private static final String INSERT_SQL = "insert into transaction "
+            + "(id, transaction_id, transaction_type, transaction_result_type, account_id, amount, "
+            + "balance_snapshot, transaction_at, created_at, updated_at) "
+            + "select next value for hibernate_sequence, ?, ?, ?, a.id, ?, a.balance, ?, ?, ? "
+            + "from account a where a.id = ?";
+    private static final String SELECT_ACCOUNT_ID_SQL = "select id from account where account_number = ?";
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000L;
+
+    public enum OverflowPolicy {
+        DROP,
+        BLOCK
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionCache transactionCache;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final LocalLruCache<String, Long> accountIds;
+    private final BlockingQueue<FailedTransaction> queue;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutMillis;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writeFailed = new LongAdder();
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public FailedTransactionWriter(JdbcTemplate jdbcTemplate,
+                                   TransactionCache transactionCache,
+                                   TransactionIdGenerator transactionIdGenerator,
+                                   @Value("${account.failure-writer.queue-capacity:10000}") int queueCapacity,
+                                   @Value("${account.failure-writer.batch-size:500}") int batchSize,
+                                   @Value("${account.failure-writer.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                                   @Value("${account.failure-writer.offer-timeout-millis:100}") long offerTimeoutMillis,
+                                   @Value("${account.failure-writer.account-id-cache-size:10000}") int accountIdCacheSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionCache = transactionCache;
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.accountIds = new LocalLruCache<>(accountIdCacheSize, 0);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writerThread = new Thread(this::drain, "failed-transaction-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        List<FailedTransaction> unwritten = new ArrayList<>();
+        queue.drainTo(unwritten);
+        if (!unwritten.isEmpty()) {
+            dropped.add(unwritten.size());
+            log.error("{} failed transaction records were not written before shutdown.", unwritten.size());
+        }
+    }
+
+    /**
+     * 실패 거래 기록 요청
+     * @param accountNumber
+     * @param transactionType
+     * @param amount
+     * 거래 아이디는 바로 발급해서 거래 조회 캐시에 등록하고, 저장은 백그라운드 스레드에서 한다.
+     * 없는 계좌 번호이면 ACCOUNT_NOT_FOUND 로 실패한다.
+     */
+    public void enqueue(String accountNumber, TransactionType transactionType, Long amount) {
+        long accountId = getAccountId(accountNumber);
+        if (!running) {
+            dropped.increment();
+            log.error("Failed transaction writer is stopped. accountNumber : {}", accountNumber);
+            return;
+        }
+
+        FailedTransaction failedTransaction = new FailedTransaction(
+                transactionIdGenerator.generate(),
+                accountId, transactionType, amount, LocalDateTime.now());
+        transactionCache.addTransactionId(failedTransaction.transactionId);
+
+        if (offer(failedTransaction)) {
+            if (!running && queue.remove(failedTransaction)) {
+                // stop() 의 마지막 저장이 끝난 뒤에 들어온 기록
+                dropped.increment();
+                log.error("Failed transaction writer is stopped. accountNumber : {}", accountNumber);
+                return;
+            }
+            enqueued.increment();
+        } else {
+            dropped.increment();
+            log.warn("Failed transaction queue is full. accountNumber : {}", accountNumber);
+        }
+    }
+
+    private long getAccountId(String accountNumber) {
+        Long accountId = accountIds.get(accountNumber);
+        if (accountId != null) {
+            return accountId;
+        }
+
+        accountId = jdbcTemplate.query(SELECT_ACCOUNT_ID_SQL, (rs, rowNum) -> rs.getLong(1), accountNumber)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        accountIds.put(accountNumber, accountId);
+        return accountId;
+    }
+
+    private boolean offer(FailedTransaction failedTransaction) {
+        if (overflowPolicy == OverflowPolicy.DROP) {
+            return queue.offer(failedTransaction);
+        }
+
+        try {
+            return queue.offer(failedTransaction, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void drain() {
+        List<FailedTransaction> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                FailedTransaction first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<FailedTransaction> batch) {
+        try {
+            int[] updateCounts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setInsertValues(ps, batch.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return batch.size();
+                }
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                countWritten(batch.get(i), i < updateCounts.length ? updateCounts[i] : Statement.SUCCESS_NO_INFO);
+            }
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof BatchUpdateException) {
+                writeRowByRow(batch, ((BatchUpdateException) e.getCause()).getUpdateCounts());
+                return;
+            }
+            writeFailed.add(batch.size());
+            log.error("Failed to write {} failed transaction records.", batch.size(), e);
+        }
+    }
+
+    /**
+     * batch 중 일부가 실패했을 때 실행되지 않은 기록만 한 건씩 다시 저장
+     * 드라이버가 실패한 건 뒤로 실행을 멈추면 updateCounts 가 batch 보다 짧다.
+     */
+    private void writeRowByRow(List<FailedTransaction> batch, int[] updateCounts) {
+        for (int i = 0; i < batch.size(); i++) {
+            FailedTransaction failedTransaction = batch.get(i);
+            if (i < updateCounts.length && updateCounts[i] != Statement.EXECUTE_FAILED) {
+                countWritten(failedTransaction, updateCounts[i]);
+                continue;
+            }
+
+            try {
+                countWritten(failedTransaction,
+                        jdbcTemplate.update(INSERT_SQL, ps -> setInsertValues(ps, failedTransaction)));
+            } catch (RuntimeException e) {
+                writeFailed.increment();
+                log.error("Failed to write failed transaction record. transactionId : {}",
+                        failedTransaction.transactionId, e);
+            }
+        }
+    }
+
+    // insert ... select 는 계좌 행이 없으면 0 건을 저장한다
+    private void countWritten(FailedTransaction failedTransaction, int updateCount) {
+        if (updateCount == 0) {
+            writeFailed.increment();
+            log.error("Account of failed transaction record not found. transactionId : {}, accountId : {}",
+                    failedTransaction.transactionId, failedTransaction.accountId);
+            return;
+        }
+        written.increment();
+    }
+
+    private void setInsertValues(PreparedStatement ps, FailedTransaction failedTransaction) throws SQLException {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        ps.setString(1, failedTransaction.transactionId);
+        ps.setString(2, failedTransaction.transactionType.name());
+        ps.setString(3, FAIL.name());
+        ps.setLong(4, failedTransaction.amount);
+        ps.setTimestamp(5, Timestamp.valueOf(failedTransaction.transactionAt));
+        ps.setTimestamp(6, now);
+        ps.setTimestamp(7, now);
+        ps.setLong(8, failedTransaction.accountId);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("account.failure.writer.queue.size", queue, BlockingQueue::size)
+                .register(registry);
+        FunctionCounter.builder("account.failure.writer.records", enqueued, LongAdder::sum)
+                .tag("result", "enqueued")
+                .register(registry);
+        FunctionCounter.builder("account.failure.writer.records", dropped, LongAdder::sum)
+                .tag("result", "dropped")
+                .register(registry);
+        FunctionCounter.builder("account.failure.writer.records", written, LongAdder::sum)
+                .tag("result", "written")
+                .register(registry);
+        FunctionCounter.builder("account.failure.writer.records", writeFailed, LongAdder::sum)
+                .tag("result", "write_failed")
+                .register(registry);
+    }
+
+    private static final class FailedTransaction {
+        private final String transactionId;
+        private final long accountId;
+        private final TransactionType transactionType;
+        private final Long amount;
+        private final LocalDateTime transactionAt;
+
+        private FailedTransaction(String transactionId, long accountId, TransactionType transactionType,
+                                  Long amount, LocalDateTime transactionAt) {
+            this.transactionId = transactionId;
+            this.accountId = accountId;
+            this.transactionType = transactionType;
+            this.amount = amount;
+            this.transactionAt = transactionAt;
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.cache.AccountInfoCache;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.ledger.HotAccountLedger;
+import com.example.accountproject.metrics.PhaseTimer;
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.RequestPhase;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static com.example.accountproject.type.ErrorCode.INVALID_SERVER_ERROR;
+import static com.example.accountproject.type.ErrorCode.TRANSACTION_RESULT_UNKNOWN;
+
+/**
+ * 잔액 사용/취소 group commit 실행기 (account.balance.group-commit.enabled=true)
+ * 요청 스레드는 작업을 큐에 넣고 기다리며, 커밋 스레드가 window-micros 동안 또는 max-size 건까지 모은 작업을
+ * 하나의 DB 트랜잭션에서 실행한다. 줄어드는 것은 커밋(로그 동기화) 횟수이고 SQL 문 수는 줄지 않는다.
+ * 각 작업의 계좌 조회가 앞 작업의 변경을 먼저 flush 하고, ATOMIC 모드의 조건부 UPDATE 는
+ * 결과 행 수가 바로 필요해서 작업마다 즉시 실행되므로 작업 사이의 insert/update 는 JDBC batch 로 묶이지 않는다.
+ * 요청 스레드는 묶음 커밋이 끝난 뒤에 자기 결과나 AccountException 을 받는다.
+ *
+ * 실행 정책
+ * - AccountException 은 쓰기 전에 검증에서 나므로 해당 작업만 실패시키고 묶음은 그대로 커밋한다.
+ * - 그 밖의 예외(낙관적 Lock 충돌, DB 오류)로 묶음이 롤백되면 작업을 각자의 트랜잭션으로 다시 실행한다.
+ *   묶음 안에서는 @OptimisticRetry 가 재시도하지 않으므로 커밋 스레드가 기다리지 않고, 단건 재실행에서만 재시도한다.
+ * - Hot 계좌 작업은 메모리 원장에서 처리하므로 묶지 않는다.
+ * - 큐가 가득 차거나 종료 중이면 묶지 않고 요청 스레드에서 바로 실행한다.
+ * - 요청 스레드에 이미 트랜잭션이 있으면(DB 행 Lock) 묶지 않고 그 트랜잭션에서 실행한다.
+ * - 계좌 Lock 은 요청 스레드가 잡고 있으므로 Lock 보유 시간에 group commit 대기 시간이 더해진다.
+ * - 요청 스레드는 wait-timeout-millis 까지만 기다린다. 제한 시간이 지나거나 인터럽트되면
+ *   커밋 스레드가 아직 가져가지 않은 작업은 취소해서 INVALID_SERVER_ERROR 로, 이미 실행 중인 작업은
+ *   커밋되었을 수 있으므로 TRANSACTION_RESULT_UNKNOWN 으로 응답한다.
+ * - 묶음 실행 중 Error 가 나면 커밋되었는지 알 수 없으므로 묶음의 작업을 TRANSACTION_RESULT_UNKNOWN 으로 끝내고
+ *   커밋 스레드는 계속 돈다. 커밋 스레드가 그래도 죽으면 큐에 남은 작업을 실패시키고 이후 작업은 요청 스레드에서 실행한다.
+ * - 커밋 뒤의 계좌 목록 캐시 삭제는 묶음의 사용자 별로 한 번씩 Redis batch 로 보내고, 완료 스레드에서 처리한 뒤에
+ *   요청 스레드에 결과를 넘긴다. 커밋 스레드는 기다리지 않고 다음 묶음을 커밋한다.
+ */
+@Slf4j
+@Component
+public class GroupCommitExecutor {
+    private static final long POLL_TIMEOUT_MILLIS = 100L;
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = 10_000L;
+
+    private final TransactionTemplate transactionTemplate;
+    private final HotAccountLedger hotAccountLedger;
+    private final AccountInfoCache accountInfoCache;
+    private final boolean enabled;
+    private final long windowNanos;
+    private final int maxSize;
+    private final long waitTimeoutMillis;
+    private final BlockingQueue<PendingOperation<?>> queue;
+
+    private final DistributionSummary groupSize;
+    private final Timer commitTimer;
+    private final Counter fallbacks;
+
+    private volatile boolean running;
+    private Thread committerThread;
+    private ExecutorService completer;
+
+    public GroupCommitExecutor(PlatformTransactionManager transactionManager,
+                               HotAccountLedger hotAccountLedger,
+                               AccountInfoCache accountInfoCache,
+                               MeterRegistry meterRegistry,
+                               @Value("${account.balance.group-commit.enabled:false}") boolean enabled,
+                               @Value("${account.balance.group-commit.window-micros:1000}") long windowMicros,
+                               @Value("${account.balance.group-commit.max-size:100}") int maxSize,
+                               @Value("${account.balance.group-commit.queue-capacity:10000}") int queueCapacity,
+                               @Value("${account.balance.group-commit.wait-timeout-millis:5000}") long waitTimeoutMillis) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hotAccountLedger = hotAccountLedger;
+        this.accountInfoCache = accountInfoCache;
+        this.enabled = enabled;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxSize = maxSize;
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+
+        this.groupSize = DistributionSummary.builder("account.group-commit.size")
+                .description("한 번에 커밋한 잔액 작업 수")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("account.group-commit.commit")
+                .description("묶음 실행 및 커밋 시간")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.fallbacks = Counter.builder("account.group-commit.fallbacks")
+                .description("롤백되어 작업을 하나씩 다시 실행한 묶음 수")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        completer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "group-commit-completer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        committerThread = new Thread(this::commitLoop, "group-committer");
+        committerThread.setDaemon(true);
+        committerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (committerThread == null) {
+            return;
+        }
+        running = false;
+        committerThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+        completer.shutdown();
+        completer.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 잔액 작업 실행
+     * @param accountNumber
+     * @param operation 자기 @Transactional 을 가진 TransactionService 호출
+     * @return 묶음 커밋이 끝난 뒤의 작업 결과
+     */
+    public <T> T execute(String accountNumber, Supplier<T> operation) {
+        // DB 행 Lock(database, resilient)을 잡은 요청은 그 트랜잭션 안에서 실행해야 한다.
+        // 커밋 스레드에 넘기면 행 Lock 을 기다리는 커밋 스레드와 커밋을 기다리는 요청 스레드가 서로를 기다린다.
+        if (!running || hotAccountLedger.isHot(accountNumber)
+                || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return operation.get();
+        }
+
+        PendingOperation<T> pending = new PendingOperation<>(operation);
+        if (!queue.offer(pending)) {
+            return operation.get();
+        }
+        // 종료 직전에 넣은 작업은 커밋 스레드가 가져가지 않았으면 직접 실행한다
+        if (!running && queue.remove(pending)) {
+            return operation.get();
+        }
+
+        long startedAt = PhaseTimer.start();
+        try {
+            return pending.future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw (Error) e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw abandon(pending);
+        } catch (TimeoutException e) {
+            log.error("Group commit did not finish in {} ms. accountNumber : {}", waitTimeoutMillis, accountNumber);
+            throw abandon(pending);
+        } finally {
+            PhaseTimer.stop(RequestPhase.GROUP_COMMIT, startedAt);
+        }
+    }
+
+    // 커밋 스레드가 가져가기 전이면 작업을 취소하고 실패로, 이미 가져갔으면 결과를 알 수 없다고 응답한다
+    private AccountException abandon(PendingOperation<?> pending) {
+        if (pending.claim()) {
+            return new AccountException(INVALID_SERVER_ERROR);
+        }
+        return new AccountException(TRANSACTION_RESULT_UNKNOWN);
+    }
+
+    private void commitLoop() {
+        List<PendingOperation<?>> group = new ArrayList<>(maxSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                try {
+                    PendingOperation<?> first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    group.add(first);
+                    collect(group);
+                } catch (InterruptedException e) {
+                    // 새 작업은 받지 않고 큐에 남은 작업만 커밋한 뒤 종료한다
+                    running = false;
+                }
+
+                // 요청 스레드가 기다리다 취소한 작업은 실행하지 않는다
+                group.removeIf(pending -> !pending.claim());
+                if (!group.isEmpty()) {
+                    commitSafely(group);
+                    group.clear();
+                }
+            }
+        } finally {
+            if (running) {
+                running = false;
+                log.error("Group committer stopped unexpectedly. Operations now run on request threads.");
+            }
+            List<PendingOperation<?>> left = new ArrayList<>(group);
+            queue.drainTo(left);
+            for (PendingOperation<?> pending : left) {
+                pending.fail(pending.claim() ? INVALID_SERVER_ERROR : TRANSACTION_RESULT_UNKNOWN);
+            }
+        }
+    }
+
+    private void commitSafely(List<PendingOperation<?>> group) {
+        try {
+            commit(group);
+        } catch (Throwable t) {
+            // 커밋되었는지 알 수 없다. 이미 결과를 받은 작업은 그대로 둔다
+            log.error("Group commit of {} operations failed with an unexpected error.", group.size(), t);
+            for (PendingOperation<?> pending : group) {
+                pending.fail(TRANSACTION_RESULT_UNKNOWN);
+            }
+        }
+    }
+
+    private void collect(List<PendingOperation<?>> group) throws InterruptedException {
+        long deadline = System.nanoTime() + windowNanos;
+        while (group.size() < maxSize) {
+            long remaining = deadline - System.nanoTime();
+            // window 가 지나도 이미 큐에 있는 작업은 함께 커밋한다
+            PendingOperation<?> next = remaining > 0
+                    ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                    : queue.poll();
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<PendingOperation<?>> group) {
+        long startedAt = System.nanoTime();
+        Set<Long> evictions;
+        try {
+            evictions = transactionTemplate.execute(status -> {
+                for (PendingOperation<?> pending : group) {
+                    pending.runInGroup();
+                }
+                return accountInfoCache.detachPendingEvictions();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Group commit of {} operations failed. Retrying each operation alone.", group.size(), e);
+            fallbacks.increment();
+            for (PendingOperation<?> pending : group) {
+                pending.runAlone();
+            }
+            return;
+        }
+
+        commitTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        groupSize.record(group.size());
+        List<PendingOperation<?>> committed = new ArrayList<>(group);
+        Runnable completion = () -> {
+            try {
+                accountInfoCache.evict(evictions);
+            } finally {
+                for (PendingOperation<?> pending : committed) {
+                    pending.complete();
+                }
+            }
+        };
+        try {
+            completer.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    private static final class PendingOperation<T> {
+        private final Supplier<T> operation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private T result;
+        private AccountException failure;
+
+        private PendingOperation(Supplier<T> operation) {
+            this.operation = operation;
+        }
+
+        // 커밋 스레드와 기다리다 포기한 요청 스레드 중 먼저 가져간 쪽만 true
+        private boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+
+        private void fail(ErrorCode errorCode) {
+            future.completeExceptionally(new AccountException(errorCode));
+        }
+
+        private void runInGroup() {
+            result = null;
+            failure = null;
+            try {
+                result = operation.get();
+            } catch (AccountException e) {
+                failure = e;
+            }
+        }
+
+        private void complete() {
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        private void runAlone() {
+            try {
+                future.complete(operation.get());
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            } catch (Error e) {
+                log.error("Group commit operation failed with an unexpected error.", e);
+                fail(TRANSACTION_RESULT_UNKNOWN);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * 단일 인스턴스 배포용 JVM 내부 Lock
+ * 계좌 번호의 해시로 고정 크기의 ReentrantLock 테이블(stripe)을 선택하므로
+ * 계좌 수와 관계 없이 메모리 사용량이 일정하다.
+ * 서로 다른 계좌가 같은 stripe 를 공유할 수 있으므로 stripe 수는 동시 요청 수보다 충분히 크게 잡는다.
+ * 비동기 실행(executeAsync)은 스레드 풀 스레드를 붙잡고 기다리지 않고, 기다리지 않는 tryLock 을 간격을 늘려가며 다시 시도한다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "account.lock.type", havingValue = "local")
+public class LocalLockService implements LockService {
+    private static final long INITIAL_RETRY_MILLIS = 1L;
+    private static final long MAX_RETRY_MILLIS = 16L;
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public LocalLockService(@Value("${account.lock.local.stripes:1024}") int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * 스레드가 소유하는 Lock 이고 프로세스가 죽으면 함께 사라지므로 lease 는 쓰지 않는다.
+     */
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+
+        try {
+            if (!getLock(accountNumber).tryLock(waitMillis, TimeUnit.MILLISECONDS)) {
+                log.error("======Lock acquisition failed======");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber : {}", accountNumber);
+        getLock(accountNumber).unlock();
+    }
+
+    /**
+     * 여러 계좌의 stripe 를 stripe 번호 순으로 취득
+     * 서로 다른 계좌가 같은 stripe 를 쓸 수 있으므로 계좌 번호가 아닌 stripe 번호로 순서를 정하고, 같은 stripe 는 한 번만 잡는다.
+     */
+    @Override
+    public void lockAll(List<String> accountNumbers, long waitMillis, long leaseMillis) {
+        int[] stripes = stripes(accountNumbers);
+        for (int i = 0; i < stripes.length; i++) {
+            boolean locked = false;
+            try {
+                locked = locks[stripes[i]].tryLock(waitMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (!locked) {
+                for (int j = i - 1; j >= 0; j--) {
+                    locks[stripes[j]].unlock();
+                }
+                log.error("======Lock acquisition failed======");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+        }
+    }
+
+    @Override
+    public void unlockAll(List<String> accountNumbers) {
+        int[] stripes = stripes(accountNumbers);
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].unlock();
+        }
+    }
+
+    /**
+     * Lock 을 잡은 상태로 work 를 executor 에서 실행
+     * 스레드 소유 Lock 이므로 취득, 실행, 해제를 모두 같은 executor 스레드에서 하되,
+     * Lock 이 잡혀 있으면 스레드를 돌려주고 잠시 뒤 다시 시도한다. 대기 시간이 지나면 ACCOUNT_TRANSACTION_LOCK 으로 실패한다.
+     */
+    @Override
+    public <T> CompletableFuture<T> executeAsync(String accountNumber, long waitMillis, long leaseMillis,
+                                                 Supplier<T> work, Executor executor) {
+        log.debug("Trying async lock for accountNumber : {}", accountNumber);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMillis);
+        executor.execute(() -> tryExecute(getLock(accountNumber), deadline, INITIAL_RETRY_MILLIS, work, executor, result));
+        return result;
+    }
+
+    private <T> void tryExecute(ReentrantLock lock, long deadline, long retryMillis,
+                                Supplier<T> work, Executor executor, CompletableFuture<T> result) {
+        if (lock.tryLock()) {
+            try {
+                result.complete(work.get());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+
+        long remainingNanos = deadline - System.nanoTime();
+        if (remainingNanos <= 0) {
+            log.error("======Lock acquisition failed======");
+            result.completeExceptionally(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+            return;
+        }
+
+        long delayMillis = Math.max(1L, Math.min(retryMillis, TimeUnit.NANOSECONDS.toMillis(remainingNanos)));
+        long nextRetryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+        // 지연 실행 스레드에서 넘기다 거절되면 결과가 완료되지 않으므로 직접 실패 처리한다
+        Executor retryExecutor = runnable -> {
+            try {
+                executor.execute(runnable);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+            }
+        };
+        CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS, retryExecutor)
+                .execute(() -> tryExecute(lock, deadline, nextRetryMillis, work, executor, result));
+    }
+
+    private int[] stripes(List<String> accountNumbers) {
+        return accountNumbers.stream()
+                .mapToInt(this::stripe)
+                .distinct()
+                .sorted()
+                .toArray();
+    }
+
+    private ReentrantLock getLock(String accountNumber) {
+        return locks[stripe(accountNumber)];
+    }
+
+    private int stripe(String accountNumber) {
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
@@ -1,29 +1,79 @@
 package com.example.accountproject.service;
 
+import com.example.accountproject.aop.AccountLock;
 import com.example.accountproject.aop.AccountLockIdInterface;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Aspect
 @Component
 @Slf4j
 @RequiredArgsConstructor
 public class LockAopAspect {
-    private final LockService lockService;
+    private final AccountLockExecutor accountLockExecutor;
+    private final AccountLockPolicy accountLockPolicy;
+    private final LockTimePolicy lockTimePolicy;
+    private final ObjectProvider<AsyncAccountLockExecutor> asyncAccountLockExecutor;
+
+    @Around("@annotation(accountLock) && args(request)")
+    public Object aroundMethod(ProceedingJoinPoint pjp, AccountLock accountLock,
+                               AccountLockIdInterface request) throws Throwable{
+        if (!accountLockPolicy.requiresLock(request.getAccountNumber())) {
+            return pjp.proceed();
+        }
+
+        String endpoint = endpoint(pjp);
+        long waitMillis = lockTimePolicy.waitMillis(endpoint, accountLock.tryLockTime());
+        long leaseMillis = lockTimePolicy.leaseMillis(accountLock.leaseTime());
+
+        if (returnsFuture(pjp)) {
+            // Lock 을 비동기로 취득하고, 메서드 본문은 Lock 을 잡은 뒤 잔액 처리 스레드 풀에서 실행
+            return asyncAccountLockExecutor.getObject()
+                    .execute(request.getAccountNumber(), waitMillis, leaseMillis, () -> {
+                        long acquiredAt = System.nanoTime();
+                        try {
+                            return proceedAndJoin(pjp);
+                        } finally {
+                            lockTimePolicy.recordHold(endpoint, System.nanoTime() - acquiredAt);
+                        }
+                    });
+        }
 
-    @Around("@annotation(com.example.accountproject.aop.AccountLock) && args(request)")
-    public Object aroundMethod(ProceedingJoinPoint pjp, AccountLockIdInterface request) throws Throwable{
         // Lock 취득
-        lockService.lock(request.getAccountNumber());
+        long acquiredAt = accountLockExecutor.lock(request.getAccountNumber(), waitMillis, leaseMillis);
         try {
             return pjp.proceed();
         } finally {
             // Lock 해제
-            lockService.unlock(request.getAccountNumber());
+            lockTimePolicy.recordHold(endpoint, System.nanoTime() - acquiredAt);
+            accountLockExecutor.unlock(request.getAccountNumber(), acquiredAt);
+        }
+    }
+
+    private static String endpoint(ProceedingJoinPoint pjp) {
+        return pjp.getSignature().getDeclaringType().getSimpleName() + "." + pjp.getSignature().getName();
+    }
+
+    private static boolean returnsFuture(ProceedingJoinPoint pjp) {
+        return CompletableFuture.class.isAssignableFrom(((MethodSignature) pjp.getSignature()).getReturnType());
+    }
+
+    private static Object proceedAndJoin(ProceedingJoinPoint pjp) {
+        try {
+            return ((CompletableFuture<?>) pjp.proceed()).join();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new CompletionException(t);
         }
     }
 }
@@ -1,47 +1,123 @@
 package com.example.accountproject.service;
 
 import com.example.accountproject.exception.AccountException;
-import com.example.accountproject.type.ErrorCode;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
-import org.springframework.stereotype.Service;
 
-import java.util.concurrent.TimeUnit;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
 
-@Slf4j
-@Service
-@RequiredArgsConstructor
-public class LockService {
-    private final RedissonClient redissonClient;
+/**
+ * 계좌 Lock 서비스
+ * account.lock.type 설정으로 구현체를 선택한다.
+ * redis(기본값) : Redisson 분산 Lock. account.lock.coalescing.enabled=true 이면 인스턴스 내부 대기열을 둔다
+ * local : 단일 인스턴스 배포용 JVM 내부 striped Lock
+ * database : DB 행 Lock (select ... for update)
+ * resilient : Redisson 분산 Lock, Redis 장애 시 DB 행 Lock
+ * none : Lock 을 걸지 않음 (테스트용)
+ */
+public interface LockService {
+    long DEFAULT_WAIT_MILLIS = 1000L;
+    long DEFAULT_LEASE_MILLIS = 15000L;
+    // 고정 lease 대신 Redisson watchdog 이 보유 중에 lease 를 갱신한다
+    long WATCHDOG_LEASE = -1L;
 
-    public void lock(String accountNumber) {
-        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
-        log.debug("Trying lock for accountNumber : {}", accountNumber);
+    default void lock(String accountNumber) {
+        lock(accountNumber, DEFAULT_WAIT_MILLIS, DEFAULT_LEASE_MILLIS);
+    }
+
+    /**
+     * Lock 취득
+     * @param accountNumber
+     * @param waitMillis 대기 시간. 지나면 ACCOUNT_TRANSACTION_LOCK 으로 실패
+     * @param leaseMillis 해제하지 않아도 풀리는 시간 또는 WATCHDOG_LEASE. 프로세스 밖에 Lock 을 두는 구현체만 사용한다
+     */
+    void lock(String accountNumber, long waitMillis, long leaseMillis);
 
-        try{
-            boolean isLock = lock.tryLock(1, 15, TimeUnit.SECONDS);
+    void unlock(String accountNumber);
+
+    default void lockAll(List<String> accountNumbers) {
+        lockAll(accountNumbers, DEFAULT_WAIT_MILLIS, DEFAULT_LEASE_MILLIS);
+    }
 
-            if (!isLock) {
-                log.error("======Lock acquisition failed======");
-                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+    /**
+     * 여러 계좌 Lock 을 한 번에 취득
+     * @param accountNumbers
+     * @param waitMillis
+     * @param leaseMillis
+     * 모든 요청이 같은 순서(계좌 번호 순)로 Lock 을 잡으므로 서로를 기다리는 교착이 생기지 않는다.
+     * 하나라도 취득하지 못하면 이미 잡은 Lock 을 풀고 실패 응답한다.
+     */
+    default void lockAll(List<String> accountNumbers, long waitMillis, long leaseMillis) {
+        List<String> ordered = canonicalOrder(accountNumbers);
+        for (int i = 0; i < ordered.size(); i++) {
+            try {
+                lock(ordered.get(i), waitMillis, leaseMillis);
+            } catch (RuntimeException e) {
+                for (int j = i - 1; j >= 0; j--) {
+                    unlock(ordered.get(j));
+                }
+                throw e;
             }
-        } catch (AccountException e) {
-            throw e;
-        } catch (Exception e) {
-            log.error("Redis lock failed");
         }
     }
 
-    public void unlock(String accountNumber) {
-        log.debug("Unlock for accountNumber : {}", accountNumber);
-        redissonClient.getLock(getLockKey(accountNumber)).unlock();
+    default void unlockAll(List<String> accountNumbers) {
+        List<String> ordered = canonicalOrder(accountNumbers);
+        for (int i = ordered.size() - 1; i >= 0; i--) {
+            unlock(ordered.get(i));
+        }
+    }
+
+    /**
+     * Lock 저장소(Redis 등) 오류로 Lock 을 잡지 못했을 때의 실패
+     * 응답은 경합과 같은 ACCOUNT_TRANSACTION_LOCK 이지만, 원인을 남겨서 지표에서 경합과 구분한다.
+     */
+    static AccountException backendError(Throwable cause) {
+        AccountException exception = new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        exception.initCause(cause);
+        return exception;
     }
 
-    private static String getLockKey(String accountNumber) {
-        return "ACLK:" + accountNumber;
+    // 원인이 남은 AccountException 이나 AccountException 이 아닌 예외는 저장소 오류이다
+    static boolean isBackendError(Throwable e) {
+        return !(e instanceof AccountException) || e.getCause() != null;
+    }
+
+    static List<String> canonicalOrder(List<String> accountNumbers) {
+        return accountNumbers.stream()
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    default <T> CompletableFuture<T> executeAsync(String accountNumber, Supplier<T> work, Executor executor) {
+        return executeAsync(accountNumber, DEFAULT_WAIT_MILLIS, DEFAULT_LEASE_MILLIS, work, executor);
+    }
+
+    /**
+     * 계좌 Lock 을 잡은 상태로 work 를 executor 에서 실행
+     * @param accountNumber
+     * @param waitMillis
+     * @param leaseMillis
+     * @param work Lock 을 잡은 동안 실행할 작업
+     * @param executor work 를 실행할 스레드 풀
+     * @return work 결과. Lock 취득 실패 시 AccountException 으로 완료
+     * 기본 구현은 executor 스레드에서 lock, work, unlock 을 차례로 실행하므로 대기하는 동안 스레드를 붙잡는다.
+     * redis, local 구현체는 대기 중에 스레드를 붙잡지 않도록 재정의한다.
+     */
+    default <T> CompletableFuture<T> executeAsync(String accountNumber, long waitMillis, long leaseMillis,
+                                                  Supplier<T> work, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            lock(accountNumber, waitMillis, leaseMillis);
+            try {
+                return work.get();
+            } finally {
+                unlock(accountNumber);
+            }
+        }, executor);
     }
 }
@@ -0,0 +1,137 @@
+package com.example.accountproject.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 계좌 Lock 대기 시간과 lease 결정
+ * 대기 시간은 @AccountLock(tryLockTime) 을 쓰고, lease 는 @AccountLock(leaseTime) 을 쓴다.
+ *
+ * adaptive (account.lock.adaptive.enabled=true)
+ * endpoint 별 최근 window-seconds 동안의 Lock 보유 시간 percentile 에 queue-depth 를 곱한 값을 대기 시간으로 쓴다.
+ * 앞에 queue-depth 개보다 많은 요청이 줄 서 있으면 기다려도 제시간에 잡기 어려우므로 일찍 실패 응답한다.
+ * tryLockTime 이 상한, min-wait-millis 가 하한이며, 보유 시간이 min-samples 건 쌓이기 전에는 tryLockTime 을 쓴다.
+ *
+ * watchdog (account.lock.lease.watchdog=true)
+ * leaseTime 대신 Redisson watchdog 이 짧은 lease(watchdog-timeout-millis)를 보유 중에 계속 갱신한다.
+ * 보유한 프로세스가 죽으면 leaseTime 이 아니라 watchdog-timeout-millis 뒤에 Lock 이 풀린다. Redis Lock 에만 적용된다.
+ */
+@Component
+public class LockTimePolicy {
+    private final MeterRegistry meterRegistry;
+    private final boolean adaptive;
+    private final double percentile;
+    private final int queueDepth;
+    private final long minWaitMillis;
+    private final long minSamples;
+    private final long refreshNanos;
+    private final Duration window;
+    private final boolean watchdog;
+    private final Map<String, EndpointHoldTime> endpoints = new ConcurrentHashMap<>();
+
+    public LockTimePolicy(MeterRegistry meterRegistry,
+                          @Value("${account.lock.adaptive.enabled:false}") boolean adaptive,
+                          @Value("${account.lock.adaptive.percentile:0.99}") double percentile,
+                          @Value("${account.lock.adaptive.queue-depth:4}") int queueDepth,
+                          @Value("${account.lock.adaptive.min-wait-millis:20}") long minWaitMillis,
+                          @Value("${account.lock.adaptive.min-samples:100}") long minSamples,
+                          @Value("${account.lock.adaptive.refresh-millis:1000}") long refreshMillis,
+                          @Value("${account.lock.adaptive.window-seconds:60}") long windowSeconds,
+                          @Value("${account.lock.lease.watchdog:false}") boolean watchdog) {
+        this.meterRegistry = meterRegistry;
+        this.adaptive = adaptive;
+        this.percentile = percentile;
+        this.queueDepth = queueDepth;
+        this.minWaitMillis = minWaitMillis;
+        this.minSamples = minSamples;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos(refreshMillis);
+        this.window = Duration.ofSeconds(windowSeconds);
+        this.watchdog = watchdog;
+    }
+
+    /**
+     * Lock 대기 시간
+     * @param endpoint
+     * @param tryLockMillis @AccountLock(tryLockTime)
+     * @return Lock 대기 시간(ms)
+     */
+    public long waitMillis(String endpoint, long tryLockMillis) {
+        if (!adaptive) {
+            return tryLockMillis;
+        }
+        EndpointHoldTime holdTime = endpoints.get(endpoint);
+        if (holdTime == null) {
+            return tryLockMillis;
+        }
+        return holdTime.waitMillis(tryLockMillis);
+    }
+
+    /**
+     * Lock lease
+     * @param leaseMillis @AccountLock(leaseTime)
+     * @return lease(ms). watchdog 이면 LockService.WATCHDOG_LEASE
+     */
+    public long leaseMillis(long leaseMillis) {
+        return watchdog ? LockService.WATCHDOG_LEASE : leaseMillis;
+    }
+
+    public void recordHold(String endpoint, long holdNanos) {
+        if (!adaptive) {
+            return;
+        }
+        endpoints.computeIfAbsent(endpoint, EndpointHoldTime::new)
+                .timer.record(holdNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private final class EndpointHoldTime {
+        private final Timer timer;
+        // percentile 계산은 histogram 을 복사하므로 refresh-millis 마다 한 번만 한다
+        private volatile long adaptiveWaitMillis = -1;
+        private volatile long refreshedAt = System.nanoTime();
+
+        private EndpointHoldTime(String endpoint) {
+            this.timer = Timer.builder("account.lock.hold.endpoint")
+                    .description("endpoint 별 Lock 보유 시간 (adaptive 대기 시간 계산용)")
+                    .tag("endpoint", endpoint)
+                    .publishPercentiles(percentile)
+                    .distributionStatisticExpiry(window)
+                    .distributionStatisticBufferLength(3)
+                    .register(meterRegistry);
+        }
+
+        private long waitMillis(long tryLockMillis) {
+            long now = System.nanoTime();
+            if (adaptiveWaitMillis < 0 || now - refreshedAt >= refreshNanos) {
+                refreshedAt = now;
+                adaptiveWaitMillis = compute();
+            }
+            if (adaptiveWaitMillis == 0) {
+                return tryLockMillis;
+            }
+            return Math.max(minWaitMillis, Math.min(tryLockMillis, adaptiveWaitMillis));
+        }
+
+        // 0 : 표본이 부족하거나 window 안에 보유 기록이 없음
+        private long compute() {
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            ValueAtPercentile[] percentiles = snapshot.percentileValues();
+            if (snapshot.count() < minSamples || percentiles.length == 0) {
+                return 0;
+            }
+            double holdNanos = percentiles[0].value(TimeUnit.NANOSECONDS);
+            if (holdNanos <= 0) {
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil(holdNanos * queueDepth / 1_000_000));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.accountproject.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Lock 을 걸지 않는 테스트용 구현체
+ */
+@Service
+@ConditionalOnProperty(name = "account.lock.type", havingValue = "none")
+public class NoOpLockService implements LockService {
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+    }
+}
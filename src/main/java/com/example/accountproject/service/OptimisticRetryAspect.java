@@ -0,0 +1,83 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.type.BalanceUpdateMode;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * OPTIMISTIC 모드에서 @OptimisticRetry 메소드를 버전 충돌 시 재시도
+ * 커밋 시점의 충돌까지 잡아야 하므로 트랜잭션보다 바깥에서 실행되도록 순서를 지정한다.
+ * 재시도 사이에는 지수적으로 늘어나는 범위 안에서 임의의 시간(full jitter)만큼 기다린다.
+ * 이미 바깥 트랜잭션(group commit 묶음 등) 안에서 호출되면 충돌로 그 트랜잭션이 롤백 전용이 되어 재시도할 수 없으므로
+ * 한 번만 실행하고 예외를 그대로 던진다. 재시도는 트랜잭션을 연 쪽(GroupCommitExecutor 의 단건 재실행)이 맡는다.
+ * 다른 모드에서는 재시도하지 않는다. 계좌 Lock 이 겹쳤을 때(resilient Lock 의 Redis/DB 행 Lock 전환 중)만 나는 충돌이므로
+ * 500 대신 ACCOUNT_TRANSACTION_LOCK 으로 응답한다. 바깥 트랜잭션 안에서는 위와 같이 그대로 던진다.
+ */
+@Aspect
+@Component
+@Slf4j
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class OptimisticRetryAspect {
+    private final BalanceUpdateMode balanceUpdateMode;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    public OptimisticRetryAspect(@Value("${account.balance.update-mode:LOCKED}") BalanceUpdateMode balanceUpdateMode,
+                                 @Value("${account.balance.optimistic.max-attempts:5}") int maxAttempts,
+                                 @Value("${account.balance.optimistic.initial-backoff-millis:2}") long initialBackoffMillis,
+                                 @Value("${account.balance.optimistic.max-backoff-millis:50}") long maxBackoffMillis) {
+        this.balanceUpdateMode = balanceUpdateMode;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+    }
+
+    @Around("@annotation(com.example.accountproject.aop.OptimisticRetry)")
+    public Object aroundMethod(ProceedingJoinPoint pjp) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return pjp.proceed();
+        }
+        if (balanceUpdateMode != BalanceUpdateMode.OPTIMISTIC) {
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                log.error("======Version conflict while holding the account lock======");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return pjp.proceed();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("======Optimistic lock retry exhausted======");
+                    throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+                }
+                log.debug("Optimistic lock conflict. attempt : {}", attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    private void backoff(int attempt) throws InterruptedException {
+        long bound = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+        if (bound > 0) {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(bound + 1));
+        }
+    }
+}
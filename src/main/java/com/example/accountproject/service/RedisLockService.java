@@ -0,0 +1,166 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RLock;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "account.lock.type", havingValue = "redis", matchIfMissing = true)
+public class RedisLockService implements LockService {
+    // 비동기 Lock 의 소유자 아이디. 실제 스레드 아이디(양수)와 겹치지 않도록 음수 범위를 사용한다
+    private static final AtomicLong ASYNC_OWNER_IDS = new AtomicLong(Long.MIN_VALUE);
+
+    private final RedissonClient redissonClient;
+
+    /**
+     * Redis 오류는 Lock 없이 진행하지 않고 실패로 응답한다.
+     * Redis 장애 시 DB 행 Lock 으로 넘어가려면 account.lock.type=resilient 를 사용한다.
+     */
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+        try {
+            if (!tryLock(accountNumber, waitMillis, leaseMillis)) {
+                log.error("======Lock acquisition failed======");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (RedisException e) {
+            log.error("Redis lock failed", e);
+            throw LockService.backendError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    /**
+     * Lease 가 지나서 이미 풀린 Lock 은 경고만 남긴다. 요청은 이미 처리되었으므로 실패로 바꾸지 않는다.
+     */
+    @Override
+    public void unlock(String accountNumber) {
+        log.debug("Unlock for accountNumber : {}", accountNumber);
+        try {
+            redissonClient.getLock(getLockKey(accountNumber)).unlock();
+        } catch (IllegalMonitorStateException e) {
+            log.warn("Lock for accountNumber {} was not held. The lease may have expired.", accountNumber);
+        }
+    }
+
+    /**
+     * Redisson multi-lock 으로 여러 계좌 Lock 을 계좌 번호 순으로 취득
+     * 하나라도 대기 시간 안에 잡지 못하면 잡은 Lock 을 모두 풀고 처음부터 다시 시도한다.
+     */
+    @Override
+    public void lockAll(List<String> accountNumbers, long waitMillis, long leaseMillis) {
+        try {
+            if (!tryLockAll(accountNumbers, waitMillis, leaseMillis)) {
+                log.error("======Lock acquisition failed======");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+        } catch (RedisException e) {
+            log.error("Redis lock failed", e);
+            throw LockService.backendError(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+    }
+
+    @Override
+    public void unlockAll(List<String> accountNumbers) {
+        log.debug("Unlock for accountNumbers : {}", accountNumbers);
+        try {
+            getMultiLock(accountNumbers).unlock();
+        } catch (IllegalMonitorStateException e) {
+            log.warn("Lock for accountNumbers {} was not held. The lease may have expired.", accountNumbers);
+        }
+    }
+
+    /**
+     * Lock 취득 시도
+     * @param accountNumber
+     * @param waitMillis
+     * @param leaseMillis WATCHDOG_LEASE(-1) 이면 Redisson watchdog 이 lease 를 갱신한다
+     * @return 대기 시간 안에 취득했는지 여부
+     * Redis 오류는 RedisException 으로 그대로 던지므로 호출하는 쪽에서 장애와 경합을 구분할 수 있다.
+     */
+    boolean tryLock(String accountNumber, long waitMillis, long leaseMillis) throws InterruptedException {
+        log.debug("Trying lock for accountNumber : {}", accountNumber);
+        return redissonClient.getLock(getLockKey(accountNumber))
+                .tryLock(waitMillis, leaseMillis, TimeUnit.MILLISECONDS);
+    }
+
+    boolean tryLockAll(List<String> accountNumbers, long waitMillis, long leaseMillis) throws InterruptedException {
+        log.debug("Trying multi lock for accountNumbers : {}", accountNumbers);
+        return getMultiLock(accountNumbers).tryLock(waitMillis, leaseMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private RLock getMultiLock(List<String> accountNumbers) {
+        return redissonClient.getMultiLock(LockService.canonicalOrder(accountNumbers).stream()
+                .map(accountNumber -> redissonClient.getLock(getLockKey(accountNumber)))
+                .toArray(RLock[]::new));
+    }
+
+    /**
+     * Redisson 비동기 Lock 으로 대기하고, Lock 을 잡은 뒤에만 work 를 executor 에 넘긴다
+     * Lock 소유자는 스레드가 아닌 요청 단위 아이디이므로 다른 스레드에서 해제할 수 있다.
+     * Redis 오류는 Lock 없이 진행하지 않고 실패로 응답한다.
+     */
+    @Override
+    public <T> CompletableFuture<T> executeAsync(String accountNumber, long waitMillis, long leaseMillis,
+                                                 Supplier<T> work, Executor executor) {
+        RLock lock = redissonClient.getLock(getLockKey(accountNumber));
+        long ownerId = ASYNC_OWNER_IDS.incrementAndGet();
+        log.debug("Trying async lock for accountNumber : {}", accountNumber);
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        lock.tryLockAsync(waitMillis, leaseMillis, TimeUnit.MILLISECONDS, ownerId).whenComplete((isLock, e) -> {
+            if (e != null) {
+                log.error("Redis lock failed", e);
+                result.completeExceptionally(LockService.backendError(e));
+                return;
+            }
+            if (!isLock) {
+                log.error("======Lock acquisition failed======");
+                result.completeExceptionally(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+                return;
+            }
+
+            try {
+                executor.execute(() -> {
+                    try {
+                        result.complete(work.get());
+                    } catch (Throwable t) {
+                        result.completeExceptionally(t);
+                    } finally {
+                        lock.unlockAsync(ownerId);
+                    }
+                });
+            } catch (RejectedExecutionException rejected) {
+                lock.unlockAsync(ownerId);
+                result.completeExceptionally(new AccountException(ACCOUNT_TRANSACTION_LOCK));
+            }
+        });
+        return result;
+    }
+
+    private static String getLockKey(String accountNumber) {
+        return "ACLK:" + accountNumber;
+    }
+}
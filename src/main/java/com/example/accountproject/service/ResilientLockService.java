@@ -0,0 +1,150 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+
+/**
+ * Redis 장애 시 DB 행 Lock 으로 넘어가는 계좌 Lock (account.lock.type=resilient)
+ * Redisson 호출을 CircuitBreaker 로 감싸고, 회로가 열려 있거나 Redis 호출이 실패하면 DatabaseLockService 로 Lock 을 잡는다.
+ * Redis 호출은 제한 시간과 재시도를 줄인 전용 Redisson(resilientLockRedissonClient)으로 한다.
+ * 회로가 열린 뒤 open-millis 가 지나면 요청 하나로 Redis 를 다시 시험하고, 성공하면 Redis Lock 으로 돌아간다.
+ *
+ * - 요청마다 실제로 잡은 Lock(Redis 또는 DB)을 기억해서 unlock 에서 그 Lock 만 푼다.
+ * - Redis 해제 실패는 경고만 남긴다. 풀지 못한 Lock 은 lease 가 지나면 풀린다.
+ * - 전환 중에는 같은 계좌를 Redis Lock 과 DB 행 Lock 으로 동시에 잡을 수 있다. 이때 동시 변경은 계좌 @Version 으로 감지되어
+ *   한쪽이 ACCOUNT_TRANSACTION_LOCK 으로 실패한다 (서비스 커밋은 OptimisticRetryAspect, DB 행 Lock 커밋은 release 에서 바꾼다).
+ * - 비동기 모드에서도 잔액 처리 스레드에서 Lock 을 기다린다 (LockService 기본 구현). DB 행 Lock 은 스레드에 묶이기 때문이다.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "account.lock.type", havingValue = "resilient")
+public class ResilientLockService implements LockService {
+    private static final ThreadLocal<Deque<Backend>> HELD = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private enum Backend {
+        REDIS, DATABASE
+    }
+
+    @FunctionalInterface
+    private interface RedisAttempt {
+        boolean tryLock() throws InterruptedException;
+    }
+
+    private final RedisLockService redisLockService;
+    private final DatabaseLockService databaseLockService;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter fallbacks;
+
+    public ResilientLockService(@Qualifier("resilientLockRedissonClient") RedissonClient redissonClient,
+                                AccountRepository accountRepository,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${account.lock.resilient.failure-threshold:5}") int failureThreshold,
+                                @Value("${account.lock.resilient.open-millis:5000}") long openMillis) {
+        this.redisLockService = new RedisLockService(redissonClient);
+        this.databaseLockService = new DatabaseLockService(accountRepository, transactionManager);
+        this.circuitBreaker = new CircuitBreaker("redis-lock", failureThreshold, openMillis);
+
+        this.fallbacks = Counter.builder("account.lock.fallback")
+                .description("Redis 대신 DB 행 Lock 으로 잡은 계좌 Lock 수")
+                .register(meterRegistry);
+        Gauge.builder("account.lock.circuit.state", circuitBreaker, breaker -> breaker.getState().ordinal())
+                .description("Redis Lock 회로 상태 (0 : CLOSED, 1 : OPEN, 2 : HALF_OPEN)")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void lock(String accountNumber, long waitMillis, long leaseMillis) {
+        acquire(List.of(accountNumber), () -> redisLockService.tryLock(accountNumber, waitMillis, leaseMillis));
+    }
+
+    @Override
+    public void unlock(String accountNumber) {
+        release(() -> redisLockService.unlock(accountNumber), () -> databaseLockService.unlock(accountNumber));
+    }
+
+    @Override
+    public void lockAll(List<String> accountNumbers, long waitMillis, long leaseMillis) {
+        acquire(accountNumbers, () -> redisLockService.tryLockAll(accountNumbers, waitMillis, leaseMillis));
+    }
+
+    @Override
+    public void unlockAll(List<String> accountNumbers) {
+        release(() -> redisLockService.unlockAll(accountNumbers), () -> databaseLockService.unlockAll(accountNumbers));
+    }
+
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    private void acquire(List<String> accountNumbers, RedisAttempt redisAttempt) {
+        if (!circuitBreaker.allowRequest()) {
+            lockWithDatabase(accountNumbers);
+            return;
+        }
+
+        boolean isLock;
+        try {
+            isLock = redisAttempt.tryLock();
+        } catch (InterruptedException e) {
+            circuitBreaker.recordFailure();
+            Thread.currentThread().interrupt();
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            log.warn("Redis lock failed. Falling back to row lock for accountNumbers : {}", accountNumbers, e);
+            lockWithDatabase(accountNumbers);
+            return;
+        }
+
+        // 대기 시간 안에 못 잡은 것은 경합이지 Redis 장애가 아니다
+        circuitBreaker.recordSuccess();
+        if (!isLock) {
+            log.error("======Lock acquisition failed======");
+            throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+        }
+        HELD.get().push(Backend.REDIS);
+    }
+
+    private void lockWithDatabase(List<String> accountNumbers) {
+        databaseLockService.lockAll(accountNumbers);
+        HELD.get().push(Backend.DATABASE);
+        fallbacks.increment();
+    }
+
+    private void release(Runnable redisUnlock, Runnable databaseUnlock) {
+        if (HELD.get().pop() == Backend.DATABASE) {
+            try {
+                databaseUnlock.run();
+            } catch (OptimisticLockingFailureException e) {
+                log.error("======Version conflict on row lock commit======");
+                throw new AccountException(ACCOUNT_TRANSACTION_LOCK);
+            }
+            return;
+        }
+
+        try {
+            redisUnlock.run();
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            log.warn("Redis unlock failed. The lock is released when its lease expires.", e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.accountproject.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간 순서 거래 아이디 발급기 (Snowflake 방식)
+ * 64bit = 시각(41bit, 2020-01-01 기준 ms) + 노드(10bit) + 순번(12bit)
+ * 13자리 Crockford base32 로 표현하므로 문자열 순서와 발급 순서가 같고,
+ * 새 거래 아이디가 인덱스의 끝에 쌓인다.
+ *
+ * - 같은 ms 안에서는 순번을 올리고, 순번(4096개)을 다 쓰면 다음 ms 를 미리 사용한다.
+ * - 시계가 뒤로 가도 마지막 발급 시각부터 이어서 발급하므로 아이디는 항상 증가한다.
+ * - 노드 아이디(account.transaction-id.node-id, 0~1023)는 인스턴스마다 달라야 한다.
+ *   같은 노드 아이디의 두 인스턴스는 같은 ms 에 같은 아이디를 발급하고, transaction_id 유니크 인덱스 위반으로 거래가 실패한다.
+ * - 설정하지 않으면 호스트 이름과 프로세스 아이디의 해시로 정한다. 1024개 중 하나이므로 인스턴스끼리 겹칠 수 있고,
+ *   겹쳐도 알 수 없다. 단일 인스턴스에서만 쓰고, 이때도 WARN 로그를 남긴다.
+ * - 여러 인스턴스로 운영할 때는 account.transaction-id.require-node-id=true 로 두면
+ *   노드 아이디를 설정하지 않은 인스턴스는 시작하지 않는다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.type", havingValue = "time-ordered", matchIfMissing = true)
+public class TimeOrderedTransactionIdGenerator implements TransactionIdGenerator {
+    static final long EPOCH_MILLIS = Instant.parse("2020-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int ID_LENGTH = 13;
+
+    private final long nodeId;
+    // (시각 << SEQUENCE_BITS) | 순번
+    private final AtomicLong lastState = new AtomicLong();
+
+    public TimeOrderedTransactionIdGenerator(long nodeId) {
+        this(nodeId, false);
+    }
+
+    @Autowired
+    public TimeOrderedTransactionIdGenerator(@Value("${account.transaction-id.node-id:-1}") long nodeId,
+                                             @Value("${account.transaction-id.require-node-id:false}") boolean requireNodeId) {
+        if (nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("account.transaction-id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        if (nodeId >= 0) {
+            this.nodeId = nodeId;
+            log.info("Transaction id node id : {}", this.nodeId);
+            return;
+        }
+
+        if (requireNodeId) {
+            throw new IllegalStateException("account.transaction-id.node-id must be set "
+                    + "when account.transaction-id.require-node-id=true");
+        }
+        this.nodeId = defaultNodeId();
+        log.warn("account.transaction-id.node-id is not set. Derived node id {} from host name and process id. "
+                + "Instances with the same node id issue duplicate transaction ids. "
+                + "Set a distinct node id per instance when running more than one.", this.nodeId);
+    }
+
+    @Override
+    public String generate() {
+        return encode(nextId());
+    }
+
+    long nextId() {
+        while (true) {
+            long last = lastState.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ID_LENGTH];
+        for (int i = ID_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    private static long defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        String instance = host + "/" + ManagementFactory.getRuntimeMXBean().getName();
+        return (instance.hashCode() & 0x7fffffff) % (MAX_NODE_ID + 1);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.Transaction;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.TransactionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static com.example.accountproject.type.ErrorCode.INVALID_REQUEST;
+
+/**
+ * 기간 내 거래를 NDJSON(한 줄에 거래 하나)으로 내보낸다.
+ * 거래를 커서로 한 건씩 읽어서 바로 쓰고 CLEAR_INTERVAL 건마다 영속성 컨텍스트를 비우므로
+ * 거래 수와 관계없이 메모리 사용량이 일정하다.
+ * H2 는 결과를 모두 만든 뒤 돌려주므로 (큰 결과는 임시 파일로 넘김) 첫 줄까지 시간이 걸린다.
+ * URL 에 LAZY_QUERY_EXECUTION=1 을 주거나 커서를 지원하는 DB 에서는 바로 흘려보낸다.
+ */
+@Slf4j
+@Service
+public class TransactionExportService {
+    private static final int CLEAR_INTERVAL = 1000;
+
+    private final TransactionRepository transactionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter writer;
+
+    public TransactionExportService(TransactionRepository transactionRepository,
+                                    EntityManager entityManager,
+                                    PlatformTransactionManager transactionManager,
+                                    ObjectMapper objectMapper) {
+        this.transactionRepository = transactionRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        // 거래 한 줄마다 flush 하면 응답이 아주 작은 chunk 로 쪼개진다
+        this.writer = objectMapper.writerFor(TransactionDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * 거래 내보내기 기간 확인
+     * @param from
+     * @param to
+     * 시작 일시가 종료 일시보다 늦거나 같은 경우 실패 응답
+     * 응답을 쓰기 시작한 뒤에는 실패 응답을 보낼 수 없으므로 내보내기 전에 확인한다
+     */
+    public void validateExportWindow(LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+    }
+
+    /**
+     * 거래 내보내기 서비스
+     * @param from 포함
+     * @param to 제외
+     * @param out
+     * @return 내보낸 거래 수
+     * 거래일시, 거래 순으로 한 줄에 거래 하나씩 쓰고 out 을 닫는다
+     */
+    public long export(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        validateExportWindow(from, to);
+
+        long startedAt = System.nanoTime();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            // 거래 사이에는 줄바꿈만 쓴다
+            generator.setRootValueSeparator(null);
+            Long exported = transactionTemplate.execute(status -> write(from, to, generator));
+            log.info("Exported {} transactions between {} and {} in {} ms.",
+                    exported, from, to, (System.nanoTime() - startedAt) / 1_000_000);
+            return exported;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private long write(LocalDateTime from, LocalDateTime to, JsonGenerator generator) {
+        long exported = 0;
+        try (Stream<Transaction> transactions = transactionRepository.streamByTransactionAtBetween(from, to)) {
+            Iterator<Transaction> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, TransactionDto.fromEntity(iterator.next()));
+                generator.writeRaw('\n');
+                if (++exported % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return exported;
+    }
+}
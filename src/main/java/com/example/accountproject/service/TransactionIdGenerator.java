@@ -0,0 +1,11 @@
+package com.example.accountproject.service;
+
+/**
+ * 거래 아이디 발급기
+ * account.transaction-id.type 설정으로 구현체를 선택한다.
+ * time-ordered(기본값) : 시간 순서로 정렬되는 13자리 아이디 (Snowflake 방식)
+ * uuid : 기존 방식의 32자리 UUID
+ */
+public interface TransactionIdGenerator {
+    String generate();
+}
@@ -1,38 +1,62 @@
 package com.example.accountproject.service;
 
+import com.example.accountproject.aop.OptimisticRetry;
+import com.example.accountproject.cache.AccountInfoCache;
+import com.example.accountproject.cache.TransactionCache;
 import com.example.accountproject.domain.Account;
 import com.example.accountproject.domain.AccountUser;
 import com.example.accountproject.domain.Transaction;
+import com.example.accountproject.dto.TransactionCursor;
 import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.dto.TransactionHistoryDto;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.dto.UseBalanceBatch;
 import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.ledger.HotAccountLedger;
+import com.example.accountproject.metrics.PhaseTimer;
 import com.example.accountproject.repositorty.AccountRepository;
 import com.example.accountproject.repositorty.AccountUserRepository;
 import com.example.accountproject.repositorty.TransactionRepository;
 import com.example.accountproject.type.AccountStatus;
+import com.example.accountproject.type.BalanceUpdateMode;
 import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.RequestPhase;
 import com.example.accountproject.type.TransactionResultType;
 import com.example.accountproject.type.TransactionType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
-import java.util.Objects;
-import java.util.UUID;
+import java.util.*;
 
 import static com.example.accountproject.type.ErrorCode.*;
 import static com.example.accountproject.type.ErrorCode.ACCOUNT_ALREADY_UNREGISTERED;
 import static com.example.accountproject.type.TransactionResultType.FAIL;
 import static com.example.accountproject.type.TransactionResultType.SUCCESS;
 import static com.example.accountproject.type.TransactionType.CANCEL;
+import static com.example.accountproject.type.TransactionType.TRANSFER_IN;
+import static com.example.accountproject.type.TransactionType.TRANSFER_OUT;
 import static com.example.accountproject.type.TransactionType.USE;
 
 @Service
 @RequiredArgsConstructor
 public class TransactionService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 100;
+
     private final AccountUserRepository accountUserRepository;
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
+    private final AccountInfoCache accountInfoCache;
+    private final TransactionCache transactionCache;
+    private final FailedTransactionWriter failedTransactionWriter;
+    private final HotAccountLedger hotAccountLedger;
+    private final TransactionIdGenerator transactionIdGenerator;
+
+    @Value("${account.balance.update-mode:LOCKED}")
+    private BalanceUpdateMode balanceUpdateMode;
 
     /**
      * 잔액 사용 서비스
@@ -44,50 +68,263 @@ public class TransactionService {
      * 계좌가 이미 해지 상태인 경우, 거래금액이 잔액보다 큰 경우,
      * 거래금액이 너무 작거나 큰 경우 실패 응답.
      * 거래 정보를 저장
+     * ATOMIC 모드에서는 조건부 UPDATE 한 번으로 잔액을 차감하므로 계좌 Lock 없이도 안전하다.
+     * Hot 계좌는 메모리 원장에서 처리한다.
+     * 실패 응답은 쓰기 전 검증에서 나므로 group commit 으로 묶인 트랜잭션을 롤백시키지 않는다.
      */
-    @Transactional
+    @OptimisticRetry
+    @Transactional(dontRollbackOn = AccountException.class)
     public TransactionDto useBalance(Long userId, String accountNumber, Long amount) {
+        if (hotAccountLedger.isHot(accountNumber)) {
+            return useHotBalance(userId, accountNumber, amount);
+        }
+
+        PhaseTimer.timeCommit();
+        if (balanceUpdateMode == BalanceUpdateMode.ATOMIC) {
+            return useBalanceAtomically(userId, accountNumber, amount);
+        }
+
+        long startedAt = PhaseTimer.start();
         AccountUser accountUser = accountUserRepository.findById(userId)
                 .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.USER_LOOKUP, startedAt);
 
+        startedAt = PhaseTimer.start();
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.ACCOUNT_LOOKUP, startedAt);
 
+        startedAt = PhaseTimer.start();
         validateUseBalance(accountUser, account, amount);
+        PhaseTimer.stop(RequestPhase.VALIDATION, startedAt);
 
         account.useBalance(amount);
-        return TransactionDto.fromEntity(transactionRepository.save(Transaction.builder()
-                        .transactionId(UUID.randomUUID().toString().replace("-", ""))
+        accountInfoCache.evictAfterCommit(userId);
+        return saveTransaction(Transaction.builder()
+                        .transactionId(transactionIdGenerator.generate())
                         .transactionResultType(SUCCESS)
                         .transactionType(USE)
                         .account(account)
                         .amount(amount)
                         .balanceSnapshot(account.getBalance())
                         .transactionAt(LocalDateTime.now())
-                .build())
+                .build()
         );
     }
-    /**
-     * 잔액 사용 실패 정보 저장 서비스
-     * @param accountNumber
-     * @param amount
-     * 잔액 사용 실패했을 때 정보를 저장
-     */
-    @Transactional
-    public void saveFailedUseBalance(String accountNumber, Long amount) {
+
+    private TransactionDto useHotBalance(Long userId, String accountNumber, Long amount) {
+        long startedAt = PhaseTimer.start();
+        TransactionDto transactionDto = hotAccountLedger.use(accountNumber, userId, amount);
+        PhaseTimer.stop(RequestPhase.BALANCE_UPDATE, startedAt);
+
+        transactionCache.addTransactionId(transactionDto.getTransactionId());
+        return transactionDto;
+    }
+
+    private TransactionDto useBalanceAtomically(Long userId, String accountNumber, Long amount) {
+        long startedAt = PhaseTimer.start();
+        int updated = accountRepository.debit(
+                accountNumber, userId, amount, AccountStatus.IN_USE, LocalDateTime.now());
+        PhaseTimer.stop(RequestPhase.BALANCE_UPDATE, startedAt);
+
+        if (updated == 0) {
+            // 차감되지 않은 경우에만 실패 원인을 확인한다
+            AccountUser accountUser = accountUserRepository.findById(userId)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+            validateUseBalance(accountUser, account, amount);
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+
+        // UPDATE 로 잡힌 행 Lock 이 커밋까지 유지되므로 다시 읽은 잔액이 이 거래의 잔액 스냅샷이 된다
+        startedAt = PhaseTimer.start();
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.ACCOUNT_LOOKUP, startedAt);
 
-        transactionRepository.save(Transaction.builder()
-                .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                .transactionResultType(FAIL)
+        accountInfoCache.evictAfterCommit(userId);
+        return saveTransaction(Transaction.builder()
+                .transactionId(transactionIdGenerator.generate())
+                .transactionResultType(SUCCESS)
                 .transactionType(USE)
                 .account(account)
                 .amount(amount)
                 .balanceSnapshot(account.getBalance())
                 .transactionAt(LocalDateTime.now())
-                .build()
-        );
+                .build());
+    }
+
+    /**
+     * 잔액 사용 실패 정보 저장 서비스
+     * @param accountNumber
+     * @param amount
+     * 잔액 사용 실패했을 때 정보를 실패 거래 저장 큐에 넣고, 백그라운드에서 일괄 저장
+     * 없는 계좌이면 ACCOUNT_NOT_FOUND 로 실패한다.
+     */
+    public void saveFailedUseBalance(String accountNumber, Long amount) {
+        long startedAt = PhaseTimer.start();
+        failedTransactionWriter.enqueue(accountNumber, USE, amount);
+        PhaseTimer.stop(RequestPhase.FAILURE_SAVE, startedAt);
+    }
+
+    /**
+     * 잔액 일괄 사용 서비스
+     * @param accountNumber
+     * @param items 같은 계좌에 대한 잔액 사용 요청 목록
+     * @return 요청 순서와 같은 순서의 처리 결과
+     * 계좌는 한 번만 조회하고, 사용자도 사용자 아이디 별로 한 번만 조회한다.
+     * 항목마다 잔액 사용 서비스와 같은 검증을 하고, 실패한 항목은 실패 거래로 저장한다.
+     * 모든 거래 정보는 하나의 트랜잭션에서 일괄 저장.
+     * ATOMIC 모드에서는 계좌 Lock 이 없으므로 항목마다 조건부 UPDATE 로 차감한다.
+     * OPTIMISTIC 모드에서는 Lock 없이 처리되는 단건 요청과 버전이 충돌할 수 있으므로 묶음 전체를 다시 실행한다.
+     */
+    @OptimisticRetry
+    @Transactional
+    public List<UseBalanceBatch.ItemResult> useBalanceGroup(String accountNumber, List<UseBalance.Request> items) {
+        if (hotAccountLedger.isHot(accountNumber)) {
+            return useHotBalanceGroup(accountNumber, items);
+        }
+
+        Optional<Account> optionalAccount = accountRepository.findByAccountNumber(accountNumber);
+        if (optionalAccount.isEmpty()) {
+            List<UseBalanceBatch.ItemResult> results = new ArrayList<>(items.size());
+            for (UseBalance.Request item : items) {
+                results.add(UseBalanceBatch.ItemResult.fail(item, ACCOUNT_NOT_FOUND));
+            }
+            return results;
+        }
+
+        Account account = optionalAccount.get();
+        if (balanceUpdateMode == BalanceUpdateMode.ATOMIC) {
+            return useBalanceGroupAtomically(account, items);
+        }
+
+        Map<Long, Optional<AccountUser>> accountUsers = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(items.size());
+        List<ErrorCode> errorCodes = new ArrayList<>(items.size());
+
+        for (UseBalance.Request item : items) {
+            TransactionResultType resultType = SUCCESS;
+            ErrorCode errorCode = null;
+            try {
+                AccountUser accountUser = accountUsers
+                        .computeIfAbsent(item.getUserId(), accountUserRepository::findById)
+                        .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+
+                validateUseBalance(accountUser, account, item.getAmount());
+                account.useBalance(item.getAmount());
+            } catch (AccountException e) {
+                resultType = FAIL;
+                errorCode = e.getErrorCode();
+            }
+
+            transactions.add(Transaction.builder()
+                    .transactionId(transactionIdGenerator.generate())
+                    .transactionResultType(resultType)
+                    .transactionType(USE)
+                    .account(account)
+                    .amount(item.getAmount())
+                    .balanceSnapshot(account.getBalance())
+                    .transactionAt(LocalDateTime.now())
+                    .build());
+            errorCodes.add(errorCode);
+        }
+
+        return saveGroup(account, transactions, errorCodes);
+    }
+
+    private List<UseBalanceBatch.ItemResult> useBalanceGroupAtomically(Account account, List<UseBalance.Request> items) {
+        String accountNumber = account.getAccountNumber();
+        Map<Long, Optional<AccountUser>> accountUsers = new HashMap<>();
+        List<Transaction> transactions = new ArrayList<>(items.size());
+        List<ErrorCode> errorCodes = new ArrayList<>(items.size());
+        // 처음 차감에 성공하면 UPDATE 로 잡힌 행 Lock 이 커밋까지 유지되므로,
+        // 그때 다시 읽은 잔액에서 이후 잔액을 계산한다
+        // 그 전에 실패한 항목의 잔액은 Lock 없이 읽은 값이므로 그 항목의 스냅샷에만 쓴다
+        boolean debited = false;
+        long balance = 0L;
+
+        for (UseBalance.Request item : items) {
+            ErrorCode errorCode = null;
+            long balanceSnapshot;
+            int updated = accountRepository.debit(accountNumber, item.getUserId(), item.getAmount(),
+                    AccountStatus.IN_USE, LocalDateTime.now());
+            if (updated == 0) {
+                // 차감되지 않은 경우에만 실패 원인을 확인한다
+                Account current = accountRepository.findByAccountNumber(accountNumber)
+                        .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+                errorCode = useFailureReason(accountUsers, current, item);
+                balanceSnapshot = debited ? balance : current.getBalance();
+            } else if (!debited) {
+                debited = true;
+                balance = accountRepository.findByAccountNumber(accountNumber)
+                        .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND))
+                        .getBalance();
+                balanceSnapshot = balance;
+            } else {
+                balance -= item.getAmount();
+                balanceSnapshot = balance;
+            }
+
+            transactions.add(Transaction.builder()
+                    .transactionId(transactionIdGenerator.generate())
+                    .transactionResultType(errorCode == null ? SUCCESS : FAIL)
+                    .transactionType(USE)
+                    .account(account)
+                    .amount(item.getAmount())
+                    .balanceSnapshot(balanceSnapshot)
+                    .transactionAt(LocalDateTime.now())
+                    .build());
+            errorCodes.add(errorCode);
+        }
+
+        return saveGroup(account, transactions, errorCodes);
+    }
+
+    private ErrorCode useFailureReason(Map<Long, Optional<AccountUser>> accountUsers, Account account,
+                                       UseBalance.Request item) {
+        try {
+            AccountUser accountUser = accountUsers
+                    .computeIfAbsent(item.getUserId(), accountUserRepository::findById)
+                    .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+            validateUseBalance(accountUser, account, item.getAmount());
+            return AMOUNT_EXCEED_BALANCE;
+        } catch (AccountException e) {
+            return e.getErrorCode();
+        }
+    }
+
+    private List<UseBalanceBatch.ItemResult> saveGroup(Account account, List<Transaction> transactions,
+                                                       List<ErrorCode> errorCodes) {
+        List<Transaction> savedTransactions = transactionRepository.saveAll(transactions);
+        if (errorCodes.contains(null)) {
+            accountInfoCache.evictAfterCommit(account.getAccountUser().getId());
+        }
+
+        List<UseBalanceBatch.ItemResult> results = new ArrayList<>(savedTransactions.size());
+        for (int i = 0; i < savedTransactions.size(); i++) {
+            TransactionDto transactionDto = TransactionDto.fromEntity(savedTransactions.get(i));
+            transactionCache.onSaved(transactionDto);
+            results.add(UseBalanceBatch.ItemResult.from(transactionDto, errorCodes.get(i)));
+        }
+        return results;
+    }
+
+    private List<UseBalanceBatch.ItemResult> useHotBalanceGroup(String accountNumber, List<UseBalance.Request> items) {
+        List<UseBalanceBatch.ItemResult> results = new ArrayList<>(items.size());
+        for (UseBalance.Request item : items) {
+            try {
+                results.add(UseBalanceBatch.ItemResult.from(
+                        useHotBalance(item.getUserId(), accountNumber, item.getAmount()), null));
+            } catch (AccountException e) {
+                saveFailedUseBalance(accountNumber, item.getAmount());
+                results.add(UseBalanceBatch.ItemResult.fail(item, e.getErrorCode()));
+            }
+        }
+        return results;
     }
 
     private void validateUseBalance(AccountUser accountUser, Account account, Long amount) {
@@ -113,36 +350,101 @@ public class TransactionService {
      * 거래 아이디에 해당하는 거래 정보가 없을 경우, 계좌 번호가 없을 경우
      * 원거래 금액과 취소 금액이 다른 경우, 트랜잭션이 해당 계좌의 거래가 아닌경우 실패 응답.
      * 거래 사용 취소 정보를 저장
+     * 실패 응답은 쓰기 전 검증에서 나므로 group commit 으로 묶인 트랜잭션을 롤백시키지 않는다.
      */
-    @Transactional
+    @OptimisticRetry
+    @Transactional(dontRollbackOn = AccountException.class)
     public TransactionDto cancelBalance(String transactionId, String accountNumber, Long amount) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+        PhaseTimer.timeCommit();
+        long startedAt = PhaseTimer.start();
+        TransactionDto transaction = findTransaction(transactionId)
                 .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.TRANSACTION_LOOKUP, startedAt);
+
+        if (hotAccountLedger.isHot(accountNumber)) {
+            return cancelHotBalance(transaction, accountNumber, amount);
+        }
+
+        if (balanceUpdateMode == BalanceUpdateMode.ATOMIC) {
+            return cancelBalanceAtomically(transaction, accountNumber, amount);
+        }
 
+        startedAt = PhaseTimer.start();
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.ACCOUNT_LOOKUP, startedAt);
 
+        startedAt = PhaseTimer.start();
         validateCancelBalance(transaction, account, amount);
+        PhaseTimer.stop(RequestPhase.VALIDATION, startedAt);
 
         account.cancelBalance(amount);
-        return TransactionDto.fromEntity(transactionRepository.save(Transaction.builder()
-                .transactionId(UUID.randomUUID().toString().replace("-", ""))
+        accountInfoCache.evictAfterCommit(account.getAccountUser().getId());
+        return saveTransaction(Transaction.builder()
+                .transactionId(transactionIdGenerator.generate())
+                .transactionResultType(SUCCESS)
+                .transactionType(CANCEL)
+                .account(account)
+                .amount(amount)
+                .balanceSnapshot(account.getBalance())
+                .transactionAt(LocalDateTime.now())
+                .build());
+
+    }
+
+    private TransactionDto cancelHotBalance(TransactionDto transaction, String accountNumber, Long amount) {
+        validateCancelBalance(transaction, accountNumber, amount);
+
+        long startedAt = PhaseTimer.start();
+        TransactionDto transactionDto = hotAccountLedger.cancel(accountNumber, amount);
+        PhaseTimer.stop(RequestPhase.BALANCE_UPDATE, startedAt);
+
+        transactionCache.addTransactionId(transactionDto.getTransactionId());
+        return transactionDto;
+    }
+
+    private TransactionDto cancelBalanceAtomically(TransactionDto transaction, String accountNumber, Long amount) {
+        validateCancelBalance(transaction, accountNumber, amount);
+
+        long startedAt = PhaseTimer.start();
+        int updated = accountRepository.credit(accountNumber, amount, LocalDateTime.now());
+        PhaseTimer.stop(RequestPhase.BALANCE_UPDATE, startedAt);
+        if (updated == 0) {
+            throw new AccountException(ACCOUNT_NOT_FOUND);
+        }
+
+        startedAt = PhaseTimer.start();
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.ACCOUNT_LOOKUP, startedAt);
+
+        accountInfoCache.evictAfterCommit(account.getAccountUser().getId());
+        return saveTransaction(Transaction.builder()
+                .transactionId(transactionIdGenerator.generate())
                 .transactionResultType(SUCCESS)
                 .transactionType(CANCEL)
                 .account(account)
                 .amount(amount)
                 .balanceSnapshot(account.getBalance())
                 .transactionAt(LocalDateTime.now())
-                .build()));
+                .build());
+    }
 
+    private void validateCancelBalance(TransactionDto transaction, Account account, Long amount) {
+        validateCancelBalance(transaction, account.getAccountNumber(), amount);
     }
 
-    private void validateCancelBalance(Transaction transaction, Account account, Long amount) {
+    private void validateCancelBalance(TransactionDto transaction, String accountNumber, Long amount) {
+        // 이체는 두 계좌를 함께 되돌려야 하므로 한 계좌만 취소하는 잔액 사용 취소로는 취소할 수 없다
+        if (transaction.getTransactionType() == TRANSFER_OUT || transaction.getTransactionType() == TRANSFER_IN) {
+            throw new AccountException(TRANSFER_CANNOT_CANCEL);
+        }
+
         if (!Objects.equals(transaction.getAmount(), amount)) {
             throw new AccountException(CANCEL_MUST_FULLY);
         }
 
-        if (!Objects.equals(transaction.getAccount().getAccountNumber(), account.getAccountNumber())) {
+        if (!Objects.equals(transaction.getAccountNumber(), accountNumber)) {
             throw  new AccountException(TRANSACTION_ACCOUNT_UN_MATCH);
         }
     }
@@ -151,22 +453,137 @@ public class TransactionService {
      * 잔액 사용 취소 실패 정보 저장 서비스
      * @param accountNumber
      * @param amount
-     * 잔액 사용 취소 실패했을 때 정보를 저장
+     * 잔액 사용 취소 실패했을 때 정보를 실패 거래 저장 큐에 넣고, 백그라운드에서 일괄 저장
      */
     public void saveFailedCancelBalance(String accountNumber, Long amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        long startedAt = PhaseTimer.start();
+        failedTransactionWriter.enqueue(accountNumber, CANCEL, amount);
+        PhaseTimer.stop(RequestPhase.FAILURE_SAVE, startedAt);
+    }
+
+    /**
+     * 계좌 이체 서비스
+     * @param userId
+     * @param fromAccountNumber
+     * @param toAccountNumber
+     * @param amount
+     * @return 출금 거래. linkedTransactionId 가 입금 거래 아이디
+     * 출금 계좌와 입금 계좌가 같은 경우, Hot 계좌가 포함된 경우 실패 응답
+     * 사용자가 없는 경우, 사용자 아이디와 출금 계좌 소유주가 다른 경우, 두 계좌 중 하나라도 해지 상태인 경우,
+     * 이체 금액이 출금 계좌 잔액보다 큰 경우 실패 응답
+     * 출금, 입금과 두 거래(TRANSFER_OUT, TRANSFER_IN) 저장을 한 트랜잭션에서 처리한다
+     * 두 계좌의 Lock 은 호출하는 쪽에서 계좌 번호 순으로 잡고, ATOMIC 모드의 UPDATE 도 계좌 번호 순으로 실행한다
+     */
+    @OptimisticRetry
+    @Transactional
+    public TransactionDto transfer(Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        if (Objects.equals(fromAccountNumber, toAccountNumber)) {
+            throw new AccountException(TRANSFER_SAME_ACCOUNT);
+        }
+        if (hotAccountLedger.isHot(fromAccountNumber) || hotAccountLedger.isHot(toAccountNumber)) {
+            throw new AccountException(HOT_ACCOUNT_TRANSFER_NOT_ALLOWED);
+        }
+
+        PhaseTimer.timeCommit();
+        long startedAt = PhaseTimer.start();
+        AccountUser accountUser = accountUserRepository.findById(userId)
+                .orElseThrow(() -> new AccountException(USER_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.USER_LOOKUP, startedAt);
+
+        startedAt = PhaseTimer.start();
+        Account from = accountRepository.findByAccountNumber(fromAccountNumber)
                 .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        Account to = accountRepository.findByAccountNumber(toAccountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        PhaseTimer.stop(RequestPhase.ACCOUNT_LOOKUP, startedAt);
 
-        transactionRepository.save(Transaction.builder()
-                .transactionId(UUID.randomUUID().toString().replace("-", ""))
-                .transactionResultType(FAIL)
-                .transactionType(CANCEL)
-                .account(account)
+        startedAt = PhaseTimer.start();
+        validateUseBalance(accountUser, from, amount);
+        if (to.getAccountStatus() == AccountStatus.UNREGISTERED) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+        PhaseTimer.stop(RequestPhase.VALIDATION, startedAt);
+
+        startedAt = PhaseTimer.start();
+        if (balanceUpdateMode == BalanceUpdateMode.ATOMIC) {
+            transferAtomically(userId, fromAccountNumber, toAccountNumber, amount);
+            // 조건부 UPDATE 가 영속성 컨텍스트를 비우므로 잔액 스냅샷을 위해 다시 읽는다
+            from = accountRepository.findByAccountNumber(fromAccountNumber)
+                    .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+            to = accountRepository.findByAccountNumber(toAccountNumber)
+                    .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+        } else {
+            from.useBalance(amount);
+            to.depositBalance(amount);
+        }
+        PhaseTimer.stop(RequestPhase.BALANCE_UPDATE, startedAt);
+
+        String outTransactionId = transactionIdGenerator.generate();
+        String inTransactionId = transactionIdGenerator.generate();
+        LocalDateTime transactionAt = LocalDateTime.now();
+
+        accountInfoCache.evictAfterCommit(from.getAccountUser().getId());
+        accountInfoCache.evictAfterCommit(to.getAccountUser().getId());
+        TransactionDto transferOut = saveTransaction(Transaction.builder()
+                .transactionId(outTransactionId)
+                .transactionResultType(SUCCESS)
+                .transactionType(TRANSFER_OUT)
+                .account(from)
                 .amount(amount)
-                .balanceSnapshot(account.getBalance())
-                .transactionAt(LocalDateTime.now())
-                .build()
-        );
+                .balanceSnapshot(from.getBalance())
+                .transactionAt(transactionAt)
+                .linkedTransactionId(inTransactionId)
+                .build());
+        saveTransaction(Transaction.builder()
+                .transactionId(inTransactionId)
+                .transactionResultType(SUCCESS)
+                .transactionType(TRANSFER_IN)
+                .account(to)
+                .amount(amount)
+                .balanceSnapshot(to.getBalance())
+                .transactionAt(transactionAt)
+                .linkedTransactionId(outTransactionId)
+                .build());
+        return transferOut;
+    }
+
+    private void transferAtomically(Long userId, String fromAccountNumber, String toAccountNumber, Long amount) {
+        // 반대 방향 이체와 행 Lock 을 엇갈려 잡지 않도록 계좌 번호가 작은 쪽부터 UPDATE 한다
+        LocalDateTime now = LocalDateTime.now();
+        if (fromAccountNumber.compareTo(toAccountNumber) < 0) {
+            debitForTransfer(userId, fromAccountNumber, amount, now);
+            depositForTransfer(toAccountNumber, amount, now);
+        } else {
+            depositForTransfer(toAccountNumber, amount, now);
+            debitForTransfer(userId, fromAccountNumber, amount, now);
+        }
+    }
+
+    private void depositForTransfer(String accountNumber, Long amount, LocalDateTime now) {
+        // 검증 뒤에 입금 계좌가 해지되었으면 0 건이 바뀌고, 예외로 출금까지 롤백한다
+        int updated = accountRepository.deposit(accountNumber, amount, AccountStatus.IN_USE, now);
+        if (updated == 0) {
+            throw new AccountException(ACCOUNT_ALREADY_UNREGISTERED);
+        }
+    }
+
+    private void debitForTransfer(Long userId, String accountNumber, Long amount, LocalDateTime now) {
+        int updated = accountRepository.debit(accountNumber, userId, amount, AccountStatus.IN_USE, now);
+        if (updated == 0) {
+            throw new AccountException(AMOUNT_EXCEED_BALANCE);
+        }
+    }
+
+    /**
+     * 계좌 이체 실패 정보 저장 서비스
+     * @param fromAccountNumber
+     * @param amount
+     * 이체 실패했을 때 출금 계좌의 실패 거래를 실패 거래 저장 큐에 넣고, 백그라운드에서 일괄 저장
+     */
+    public void saveFailedTransfer(String fromAccountNumber, Long amount) {
+        long startedAt = PhaseTimer.start();
+        failedTransactionWriter.enqueue(fromAccountNumber, TRANSFER_OUT, amount);
+        PhaseTimer.stop(RequestPhase.FAILURE_SAVE, startedAt);
     }
 
     /**
@@ -176,11 +593,79 @@ public class TransactionService {
      * 해당 거래아이디가 없는 경우 실패 응답
      * 계좌번호, 거래종류(잔액 사용, 잔액 사용 취소), transaction_result, transaction_id, 거래금액, 거래일시
      * 성공거래 뿐 아니라 실패한 거래도 거래 확인할 수 있도록 합니다.
+     * 거래 정보는 변경되지 않으므로 캐시에서 먼저 조회하고, 없는 거래 아이디는 DB 조회 없이 실패 응답
      */
     public TransactionDto getTransactionInfo(String transactionId) {
-        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+        return findTransaction(transactionId)
                 .orElseThrow(() -> new AccountException(TRANSACTION_NOT_FOUND));
+    }
+
+    /**
+     * 거래 내역 조회 서비스
+     * @param accountNumber
+     * @param cursor
+     * @param size
+     * @param type
+     * @param result
+     * @return 최신 거래부터 size 건의 거래 정보와 다음 페이지 cursor
+     * 계좌가 없는 경우, size 가 1~100 이 아닌 경우, cursor 가 잘못된 경우 실패 응답
+     * 거래종류, 거래결과로 거르고 마지막 페이지에서는 다음 페이지 cursor 가 없다
+     * (transactionAt, id) keyset 으로 이어서 조회하므로 뒤 페이지도 첫 페이지와 비용이 같다
+     * Hot 계좌 거래는 체크포인트 이후에 내역에 나타난다
+     */
+    @Transactional
+    public TransactionHistoryDto getTransactionHistory(String accountNumber, String cursor, int size,
+                                                       TransactionType type, TransactionResultType result) {
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new AccountException(INVALID_REQUEST);
+        }
+
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountException(ACCOUNT_NOT_FOUND));
+
+        // 한 건 더 읽어서 다음 페이지가 있는지 확인한다
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Transaction> transactions;
+        if (cursor == null) {
+            transactions = transactionRepository.findHistory(account, type, result, page);
+        } else {
+            TransactionCursor after = TransactionCursor.decode(cursor);
+            transactions = transactionRepository.findHistoryAfter(
+                    account, after.getTransactionAt(), after.getId(), type, result, page);
+        }
+
+        String nextCursor = null;
+        if (transactions.size() > size) {
+            transactions = transactions.subList(0, size);
+            nextCursor = TransactionCursor.of(transactions.get(size - 1)).encode();
+        }
+
+        List<TransactionDto> transactionDtos = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            transactionDtos.add(TransactionDto.fromEntity(transaction));
+        }
+
+        return TransactionHistoryDto.builder()
+                .transactions(transactionDtos)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private Optional<TransactionDto> findTransaction(String transactionId) {
+        // Hot 계좌 거래는 체크포인트 전까지 DB 에 없으므로 메모리 원장에서 먼저 찾는다
+        Optional<TransactionDto> uncheckpointed = hotAccountLedger.findUncheckpointed(transactionId);
+        if (uncheckpointed.isPresent()) {
+            return uncheckpointed;
+        }
+        return transactionCache.find(transactionId, id -> transactionRepository.findByTransactionId(id)
+                .map(TransactionDto::fromEntity));
+    }
 
-        return TransactionDto.fromEntity(transaction);
+    private TransactionDto saveTransaction(Transaction transaction) {
+        long startedAt = PhaseTimer.start();
+        TransactionDto transactionDto = TransactionDto.fromEntity(transactionRepository.save(transaction));
+        PhaseTimer.stop(RequestPhase.TRANSACTION_INSERT, startedAt);
+        transactionCache.onSaved(transactionDto);
+        return transactionDto;
     }
 }
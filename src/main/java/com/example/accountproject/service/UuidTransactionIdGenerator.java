@@ -0,0 +1,15 @@
+package com.example.accountproject.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+@ConditionalOnProperty(name = "account.transaction-id.type", havingValue = "uuid")
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+    @Override
+    public String generate() {
+        return UUID.randomUUID().toString().replace("-", "");
+    }
+}
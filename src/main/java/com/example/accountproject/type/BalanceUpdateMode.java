@@ -0,0 +1,7 @@
+package com.example.accountproject.type;
+
+public enum BalanceUpdateMode {
+    LOCKED,
+    ATOMIC,
+    OPTIMISTIC
+}
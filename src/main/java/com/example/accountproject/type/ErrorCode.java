@@ -7,6 +7,7 @@ import lombok.Getter;
 @AllArgsConstructor
 public enum ErrorCode {
     INVALID_SERVER_ERROR("내부 서버 오류가 발생했습니다."),
+    TRANSACTION_RESULT_UNKNOWN("거래 처리 결과를 확인할 수 없습니다. 거래 조회로 확인해 주세요."),
     INVALID_REQUEST("잘못된 요청입니다."),
     USER_NOT_FOUND("사용자가 없습니다."),
     ACCOUNT_NOT_FOUND("계좌가 없습니다."),
@@ -19,7 +20,12 @@ public enum ErrorCode {
     ACCOUNT_ALREADY_UNREGISTERED("계좌가 이미 해지되었습니다."),
     BALANCE_NOT_EMPTY("잔액이 있는 계좌는 해지할 수 없습니다."),
     MAX_ACCOUNT_PER_USER_10("사용자 당 최대 계좌는 10개 입니다."),
-    AMOUNT_EXCEED_BALANCE("거래 금액이 계좌 잔액보다 큽니다.");
+    ACCOUNT_NUMBER_EXHAUSTED("발급 가능한 계좌 번호가 없습니다."),
+    AMOUNT_EXCEED_BALANCE("거래 금액이 계좌 잔액보다 큽니다."),
+    TRANSFER_SAME_ACCOUNT("출금 계좌와 입금 계좌가 같습니다."),
+    HOT_ACCOUNT_TRANSFER_NOT_ALLOWED("Hot 계좌는 이체할 수 없습니다."),
+    HOT_ACCOUNT_UNREGISTER_NOT_ALLOWED("Hot 계좌는 해지할 수 없습니다."),
+    TRANSFER_CANNOT_CANCEL("이체 거래는 취소할 수 없습니다.");
 
     private final String description;
 }
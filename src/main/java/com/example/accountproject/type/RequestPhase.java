@@ -0,0 +1,22 @@
+package com.example.accountproject.type;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum RequestPhase {
+    LOCK("lock", "계좌 Lock 취득"),
+    USER_LOOKUP("user", "사용자 조회"),
+    ACCOUNT_LOOKUP("account", "계좌 조회"),
+    TRANSACTION_LOOKUP("transaction", "원거래 조회"),
+    VALIDATION("validate", "검증"),
+    BALANCE_UPDATE("balance", "잔액 조건부 갱신"),
+    TRANSACTION_INSERT("insert", "거래 저장"),
+    COMMIT("commit", "flush 및 커밋"),
+    GROUP_COMMIT("group", "group commit 대기 및 커밋"),
+    FAILURE_SAVE("failure", "실패 거래 저장");
+
+    private final String metricName;
+    private final String description;
+}
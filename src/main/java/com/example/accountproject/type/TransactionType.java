@@ -2,5 +2,7 @@ package com.example.accountproject.type;
 
 public enum TransactionType {
     USE,
-    CANCEL
+    CANCEL,
+    TRANSFER_OUT,
+    TRANSFER_IN
 }
@@ -5,4 +5,10 @@ insert into account_user(id, name, created_at, updated_at)
 values (2, 'Lupi', now(), now());
 
 insert into account_user(id, name, created_at, updated_at)
-values (3, 'Eddie', now(), now());
\ No newline at end of file
+values (3, 'Eddie', now(), now());
+
+insert into account_number_sequence(name, next_value)
+values ('ACCOUNT_NUMBER', 1000000000);
+
+-- 위의 사용자들은 id 를 직접 지정하므로 새로 생성되는 엔티티의 id 와 겹치지 않도록 시퀀스를 뒤로 미룬다
+alter sequence hibernate_sequence restart with 1000;
@@ -0,0 +1,145 @@
+package com.example.accountproject.cache;
+
+import com.example.accountproject.dto.AccountDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.LongCodec;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AccountInfoCacheTest {
+    @Autowired
+    private AccountInfoCache accountInfoCache;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Test
+    void listLoadedBeforeEvictionIsNotCached() {
+        // given
+        long userId = 900_001L;
+        AtomicInteger loads = new AtomicInteger();
+        List<AccountDto> stale = Collections.emptyList();
+
+        // when
+        // 목록을 읽은 뒤 캐시에 넣기 전에 다른 트랜잭션이 커밋되고 캐시를 지운다
+        accountInfoCache.get(userId, () -> {
+            loads.incrementAndGet();
+            accountInfoCache.evictAfterCommit(userId);
+            return stale;
+        });
+        accountInfoCache.get(userId, () -> {
+            loads.incrementAndGet();
+            return stale;
+        });
+
+        // then
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadedListIsCached() {
+        // given
+        long userId = 900_002L;
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        accountInfoCache.get(userId, () -> {
+            loads.incrementAndGet();
+            return Collections.emptyList();
+        });
+        accountInfoCache.get(userId, () -> {
+            loads.incrementAndGet();
+            return Collections.emptyList();
+        });
+
+        // then
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evictionOfOtherUserDoesNotBlockLocalPut() {
+        // given
+        long userId = 900_003L;
+        long otherUserId = 900_004L;
+
+        // when
+        // 목록을 읽는 사이에 다른 사용자의 캐시만 지워진다
+        accountInfoCache.get(userId, () -> {
+            accountInfoCache.evictAfterCommit(otherUserId);
+            return Collections.emptyList();
+        });
+        double localHitsBefore = localHits();
+        accountInfoCache.get(userId, Collections::emptyList);
+
+        // then
+        assertEquals(1, localHits() - localHitsBefore);
+    }
+
+    @Test
+    void evictsEachUserOncePerTransaction() {
+        // given
+        long userId = 900_005L;
+        double invalidationsBefore = invalidations();
+
+        // when : 배치 처럼 한 트랜잭션에서 같은 사용자를 여러 번 지운다
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                accountInfoCache.evictAfterCommit(userId);
+            }
+        });
+
+        // then
+        assertEquals(1, invalidations() - invalidationsBefore);
+    }
+
+    @Test
+    void evictionPublishesInvalidationFromScript() throws Exception {
+        // given
+        long userId = 900_006L;
+        CompletableFuture<Long> received = new CompletableFuture<>();
+        RTopic topic = redissonClient.getTopic("ACINFO:INVALIDATE", LongCodec.INSTANCE);
+        int listenerId = topic.addListener(Long.class, (channel, message) -> {
+            if (message == userId) {
+                received.complete(message);
+            }
+        });
+
+        // when
+        try {
+            accountInfoCache.evictAfterCommit(userId);
+
+            // then : 다른 인스턴스도 같은 topic 으로 알림을 받는다
+            assertEquals(userId, received.get(5, TimeUnit.SECONDS));
+        } finally {
+            topic.removeListener(listenerId);
+        }
+    }
+
+    private double invalidations() {
+        return meterRegistry.get("cache.invalidations")
+                .tags("cache", "accountInfo")
+                .functionCounter().count();
+    }
+
+    private double localHits() {
+        return meterRegistry.get("cache.gets")
+                .tags("cache", "accountInfo", "tier", "local", "result", "hit")
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.accountproject.cache;
+
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.repositorty.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RBloomFilter;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.RedisException;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TransactionCacheBloomFilterTest {
+    private RBloomFilter<String> bloomFilter;
+    private RBucket<String> bloomState;
+    private TransactionRepository transactionRepository;
+    private TransactionCache transactionCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        RedissonClient redissonClient = mock(RedissonClient.class);
+        bloomFilter = mock(RBloomFilter.class);
+        bloomState = mock(RBucket.class);
+        given(redissonClient.<String>getBloomFilter("TXID:BLOOM", StringCodec.INSTANCE)).willReturn(bloomFilter);
+        given(redissonClient.<String>getBucket("TXID:BLOOM:STATE", StringCodec.INSTANCE)).willReturn(bloomState);
+        given(bloomFilter.tryInit(anyLong(), anyDouble())).willReturn(false);
+
+        transactionRepository = mock(TransactionRepository.class);
+        transactionCache = new TransactionCache(redissonClient, transactionRepository,
+                mock(PlatformTransactionManager.class), true, 100, true, 1000, 0.01);
+        transactionCache.createBloomFilter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionCache.stop();
+    }
+
+    @Test
+    void seedingIsTakenOverAfterSeederLeaseExpires() {
+        // given : 채우던 인스턴스가 죽어서 임대만 남아 있다가 만료된다
+        given(bloomState.get()).willReturn("SEEDING:dead-instance", null, "READY");
+        given(bloomState.trySet(anyString(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+        given(bloomState.compareAndSet(anyString(), eq("READY"))).willReturn(true);
+        given(transactionRepository.streamAllTransactionIds()).willReturn(Stream.of("tx-1", "tx-2", "tx-3"));
+
+        // when
+        transactionCache.seedIfRequired();
+        verify(bloomState, never()).trySet(anyString(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        transactionCache.seedIfRequired();
+
+        // then : 이어받아 모두 넣고 READY 로 바꾼 뒤 없다는 결과를 믿는다
+        verify(bloomFilter).add("tx-1");
+        verify(bloomFilter).add("tx-2");
+        verify(bloomFilter).add("tx-3");
+        AtomicInteger loads = new AtomicInteger();
+        find("unknown-transaction-id", loads);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void failedSeedingReleasesLease() {
+        // given
+        given(bloomState.get()).willReturn((String) null);
+        given(bloomState.trySet(anyString(), anyLong(), eq(TimeUnit.MILLISECONDS))).willReturn(true);
+        given(transactionRepository.streamAllTransactionIds()).willReturn(Stream.of("tx-1"));
+        willThrow(new RedisException("add failed")).given(bloomFilter).add("tx-1");
+
+        // when
+        transactionCache.seedIfRequired();
+
+        // then : 다른 인스턴스가 만료를 기다리지 않고 이어받을 수 있다
+        verify(bloomState).compareAndSet(anyString(), isNull());
+        verify(bloomState, never()).compareAndSet(anyString(), eq("READY"));
+        AtomicInteger loads = new AtomicInteger();
+        find("unknown-transaction-id", loads);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void negativeIsTrustedWhileBloomFilterIsReady() {
+        // given
+        given(bloomState.get()).willReturn("READY");
+        given(bloomFilter.contains("unknown-transaction-id")).willReturn(false);
+        transactionCache.initBloomFilter();
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        Optional<TransactionDto> transaction = find("unknown-transaction-id", loads);
+
+        // then
+        assertTrue(transaction.isEmpty());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void negativeIsNotTrustedAfterAddFailure() {
+        // given
+        given(bloomState.get()).willReturn("READY");
+        given(bloomFilter.contains("lost-transaction-id")).willReturn(false);
+        willThrow(new RedisException("add failed")).given(bloomFilter).add("lost-transaction-id");
+        transactionCache.initBloomFilter();
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        transactionCache.addTransactionId("lost-transaction-id");
+        find("lost-transaction-id", loads);
+
+        // then
+        verify(bloomState).set("INCOMPLETE");
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void negativeIsNotTrustedAfterOtherInstanceMarkedIncomplete() {
+        // given
+        given(bloomState.get()).willReturn("READY", "INCOMPLETE");
+        given(bloomFilter.contains("lost-transaction-id")).willReturn(false);
+        transactionCache.initBloomFilter();
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        find("lost-transaction-id", loads);
+
+        // then
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void incompleteMarkIsRetriedWhenRedisRecovers() {
+        // given
+        given(bloomState.get()).willReturn("READY");
+        willThrow(new RedisException("add failed")).given(bloomFilter).add("lost-transaction-id");
+        willThrow(new RedisException("set failed")).willDoNothing().given(bloomState).set("INCOMPLETE");
+        transactionCache.initBloomFilter();
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        transactionCache.addTransactionId("lost-transaction-id");
+        find("lost-transaction-id", loads);
+
+        // then
+        verify(bloomState, times(2)).set("INCOMPLETE");
+        assertEquals(1, loads.get());
+    }
+
+    private Optional<TransactionDto> find(String transactionId, AtomicInteger loads) {
+        return transactionCache.find(transactionId, id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.accountproject.cache;
+
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.type.TransactionResultType;
+import com.example.accountproject.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionCacheTest {
+    @Autowired
+    private TransactionCache transactionCache;
+
+    @Test
+    void unknownTransactionIdIsRejectedWithoutLoading() {
+        // given
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        Optional<TransactionDto> transaction = transactionCache.find("unknown-transaction-id", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        // then
+        assertTrue(transaction.isEmpty());
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void savedTransactionIsServedFromCache() {
+        // given
+        TransactionDto saved = TransactionDto.builder()
+                .transactionId("cached-transaction-id")
+                .accountNumber("1000000000")
+                .amount(1000L)
+                .balanceSnapshot(9000L)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.SUCCESS)
+                .transactionAt(LocalDateTime.now())
+                .build();
+        AtomicInteger loads = new AtomicInteger();
+
+        // when
+        transactionCache.onSaved(saved);
+        Optional<TransactionDto> transaction = transactionCache.find("cached-transaction-id", id -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        // then
+        assertSame(saved, transaction.get());
+        assertEquals(0, loads.get());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.accountproject.controller;
+
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.metrics.ServerTimingFilter;
+import com.example.accountproject.service.AccountService;
+import com.example.accountproject.service.AsyncAccountLockExecutor;
+import com.example.accountproject.service.LockService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 비동기 잔액 사용 (account.lock.async.enabled=true) 공통 테스트
+ * Lock 구현체 별 설정은 하위 클래스에서 정한다.
+ */
+abstract class AsyncBalanceControllerTest {
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private LockService lockService;
+
+    @Autowired
+    private AsyncAccountLockExecutor asyncAccountLockExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void phaseTimingIsRecordedAcrossAsyncBoundary() throws Exception {
+        // given
+        String accountNumber = accountService.createAccount(1L, 10_000L).getAccountNumber();
+        long lockTimingsBefore = phaseCount("lock");
+        long accountTimingsBefore = phaseCount("account");
+
+        // when
+        MvcResult started = mockMvc.perform(post("/transaction/use")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalance.Request(1L, accountNumber, 1000L))))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        started.getAsyncResult(5_000L);
+        MvcResult completed = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // then
+        String serverTiming = completed.getResponse().getHeader(ServerTimingFilter.HEADER);
+        assertNotNull(serverTiming);
+        assertTrue(serverTiming.contains("lock;dur="), serverTiming);
+        assertTrue(serverTiming.contains("account;dur="), serverTiming);
+        assertEquals(lockTimingsBefore + 1, phaseCount("lock"));
+        assertEquals(accountTimingsBefore + 1, phaseCount("account"));
+    }
+
+    @Test
+    void waitingForLockDoesNotHoldWorkerThread() throws Exception {
+        // given : 작업 스레드가 하나뿐이고 다른 스레드가 계좌 Lock 을 잡고 있다
+        String lockedAccount = "3000000001";
+        String freeAccount = "3000000002";
+        lockService.lock(lockedAccount, 1_000L, 15_000L);
+
+        CompletableFuture<String> waiting;
+        CompletableFuture<String> other;
+        try {
+            // when
+            waiting = asyncAccountLockExecutor.execute(lockedAccount, 5_000L, 15_000L, () -> "locked");
+            other = asyncAccountLockExecutor.execute(freeAccount, 5_000L, 15_000L, () -> "free");
+
+            // then : Lock 을 기다리는 작업이 유일한 스레드를 붙잡지 않으므로 다른 계좌 작업이 먼저 끝난다
+            assertEquals("free", other.get(1, TimeUnit.SECONDS));
+            assertFalse(waiting.isDone());
+        } finally {
+            lockService.unlock(lockedAccount);
+        }
+        assertEquals("locked", waiting.get(5, TimeUnit.SECONDS));
+    }
+
+    private long phaseCount(String phase) {
+        Timer timer = meterRegistry.find("account.request.phase")
+                .tag("phase", phase)
+                .tag("uri", "/transaction/use")
+                .timer();
+        return timer == null ? 0L : timer.count();
+    }
+}
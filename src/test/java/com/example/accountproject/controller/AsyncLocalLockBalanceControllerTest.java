@@ -0,0 +1,17 @@
+package com.example.accountproject.controller;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(properties = {
+        "spring.redis.port=6388",
+        "spring.datasource.url=jdbc:h2:mem:asynclocal",
+        "account.lock.type=local",
+        "account.lock.async.enabled=true",
+        "account.lock.async.pool-size=1"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class AsyncLocalLockBalanceControllerTest extends AsyncBalanceControllerTest {
+}
@@ -0,0 +1,17 @@
+package com.example.accountproject.controller;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+@SpringBootTest(properties = {
+        "spring.redis.port=6387",
+        "spring.datasource.url=jdbc:h2:mem:asyncredis",
+        "account.lock.type=redis",
+        "account.lock.async.enabled=true",
+        "account.lock.async.pool-size=1"
+})
+@AutoConfigureMockMvc
+@DirtiesContext
+class AsyncRedisLockBalanceControllerTest extends AsyncBalanceControllerTest {
+}
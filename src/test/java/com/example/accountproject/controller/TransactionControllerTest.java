@@ -0,0 +1,243 @@
+package com.example.accountproject.controller;
+
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.dto.TransferBalance;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.dto.UseBalanceBatch;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.metrics.ServerTimingFilter;
+import com.example.accountproject.service.AccountLockExecutor;
+import com.example.accountproject.service.AccountLockPolicy;
+import com.example.accountproject.service.TransactionExportService;
+import com.example.accountproject.service.TransactionService;
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.TransactionResultType;
+import com.example.accountproject.type.TransactionType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = TransactionController.class,
+        excludeFilters = @ComponentScan.Filter(type = FilterType.ASSIGNABLE_TYPE, classes = ServerTimingFilter.class))
+class TransactionControllerTest {
+    private static final String ACCOUNT_A = "1000000001";
+    private static final String ACCOUNT_B = "1000000002";
+
+    @MockBean
+    private TransactionService transactionService;
+
+    @MockBean
+    private AccountLockExecutor accountLockExecutor;
+
+    @MockBean
+    private AccountLockPolicy accountLockPolicy;
+
+    @MockBean
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() {
+        given(accountLockPolicy.requiresLock(anyString())).willReturn(true);
+        given(accountLockExecutor.execute(anyString(), anyString(), any()))
+                .willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+    }
+
+    @Test
+    void batchIsGroupedByAccountAndAnsweredInRequestOrder() throws Exception {
+        // given
+        UseBalance.Request a1 = new UseBalance.Request(1L, ACCOUNT_A, 100L);
+        UseBalance.Request b1 = new UseBalance.Request(2L, ACCOUNT_B, 200L);
+        UseBalance.Request a2 = new UseBalance.Request(1L, ACCOUNT_A, 300L);
+        given(transactionService.useBalanceGroup(eq(ACCOUNT_A), amounts(100L, 300L)))
+                .willReturn(List.of(success(ACCOUNT_A, "txA1", 100L), success(ACCOUNT_A, "txA2", 300L)));
+        given(transactionService.useBalanceGroup(eq(ACCOUNT_B), amounts(200L)))
+                .willReturn(List.of(success(ACCOUNT_B, "txB1", 200L)));
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(a1, b1, a2)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].index").value(0))
+                .andExpect(jsonPath("$.results[0].transactionId").value("txA1"))
+                .andExpect(jsonPath("$.results[1].index").value(1))
+                .andExpect(jsonPath("$.results[1].transactionId").value("txB1"))
+                .andExpect(jsonPath("$.results[2].index").value(2))
+                .andExpect(jsonPath("$.results[2].transactionId").value("txA2"))
+                .andDo(print());
+        verify(accountLockExecutor, times(1)).execute(eq(ACCOUNT_A), anyString(), any());
+        verify(accountLockExecutor, times(1)).execute(eq(ACCOUNT_B), anyString(), any());
+    }
+
+    @Test
+    void failedGroupFailsOnlyItsItemsAndRecordsEachFailure() throws Exception {
+        // given : A 계좌 Lock 취득 실패
+        UseBalance.Request a1 = new UseBalance.Request(1L, ACCOUNT_A, 100L);
+        UseBalance.Request b1 = new UseBalance.Request(2L, ACCOUNT_B, 200L);
+        UseBalance.Request a2 = new UseBalance.Request(1L, ACCOUNT_A, 300L);
+        given(accountLockExecutor.execute(eq(ACCOUNT_A), anyString(), any()))
+                .willThrow(new AccountException(ErrorCode.ACCOUNT_TRANSACTION_LOCK));
+        given(transactionService.useBalanceGroup(eq(ACCOUNT_B), amounts(200L)))
+                .willReturn(List.of(success(ACCOUNT_B, "txB1", 200L)));
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(a1, b1, a2)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionResultType").value("FAIL"))
+                .andExpect(jsonPath("$.results[0].errorCode").value("ACCOUNT_TRANSACTION_LOCK"))
+                .andExpect(jsonPath("$.results[1].transactionResultType").value("SUCCESS"))
+                .andExpect(jsonPath("$.results[2].transactionResultType").value("FAIL"))
+                .andExpect(jsonPath("$.results[2].amount").value(300))
+                .andDo(print());
+        verify(transactionService).saveFailedUseBalance(ACCOUNT_A, 100L);
+        verify(transactionService).saveFailedUseBalance(ACCOUNT_A, 300L);
+        verify(transactionService, never()).saveFailedUseBalance(eq(ACCOUNT_B), anyLong());
+    }
+
+    @Test
+    void groupThatNeedsNoLockRunsWithoutLock() throws Exception {
+        // given : A 계좌는 Hot 계좌이거나 ATOMIC/OPTIMISTIC 모드라서 Lock 이 필요 없다
+        UseBalance.Request a1 = new UseBalance.Request(1L, ACCOUNT_A, 100L);
+        UseBalance.Request b1 = new UseBalance.Request(2L, ACCOUNT_B, 200L);
+        given(accountLockPolicy.requiresLock(ACCOUNT_A)).willReturn(false);
+        given(transactionService.useBalanceGroup(eq(ACCOUNT_A), amounts(100L)))
+                .willReturn(List.of(success(ACCOUNT_A, "txA1", 100L)));
+        given(transactionService.useBalanceGroup(eq(ACCOUNT_B), amounts(200L)))
+                .willReturn(List.of(success(ACCOUNT_B, "txB1", 200L)));
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/use/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new UseBalanceBatch.Request(List.of(a1, b1)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.results[0].transactionId").value("txA1"))
+                .andExpect(jsonPath("$.results[1].transactionId").value("txB1"));
+        verify(accountLockExecutor, never()).execute(eq(ACCOUNT_A), anyString(), any());
+        verify(accountLockExecutor, times(1)).execute(eq(ACCOUNT_B), anyString(), any());
+    }
+
+    @Test
+    void exportUsesItsOwnAsyncTimeout() throws Exception {
+        // given
+        // when
+        MvcResult result = mockMvc.perform(get("/transaction/export")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-01-02T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // then : 전역 spring.mvc.async.request-timeout 이 아닌 account.export.timeout-millis
+        assertEquals(1_800_000L, result.getRequest().getAsyncContext().getTimeout());
+    }
+
+    @Test
+    void exportHonorsAcceptEncodingQuality() throws Exception {
+        // given
+        // when
+        // then : q=0 은 gzip 을 받지 않는다는 뜻이다
+        mockMvc.perform(get("/transaction/export")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-01-02T00:00:00")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, identity"))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+        mockMvc.perform(get("/transaction/export")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-01-02T00:00:00")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.5"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+    }
+
+    @Test
+    void transferLocksOnlyAccountsThatRequireALock() throws Exception {
+        // given : 입금 계좌는 Lock 이 필요 없는 계좌다
+        given(accountLockPolicy.requiresLock(ACCOUNT_B)).willReturn(false);
+        given(accountLockExecutor.executeAll(any(), anyString(), any()))
+                .willAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+        given(transactionService.transfer(1L, ACCOUNT_A, ACCOUNT_B, 100L))
+                .willReturn(TransactionDto.builder()
+                        .accountNumber(ACCOUNT_A)
+                        .transactionType(TransactionType.TRANSFER_OUT)
+                        .transactionResultType(TransactionResultType.SUCCESS)
+                        .transactionId("txT1")
+                        .amount(100L)
+                        .balanceSnapshot(0L)
+                        .transactionAt(LocalDateTime.now())
+                        .build());
+
+        // when
+        // then
+        mockMvc.perform(post("/transaction/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new TransferBalance.Request(1L, ACCOUNT_A, ACCOUNT_B, 100L))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value("txT1"));
+        verify(accountLockExecutor).executeAll(eq(List.of(ACCOUNT_A)), eq("TransactionController.transfer"), any());
+    }
+
+    // 요청 본문에서 역직렬화된 항목이므로 금액 순서로 묶음을 확인한다
+    private static List<UseBalance.Request> amounts(Long... amounts) {
+        return argThat(items -> items.stream()
+                .map(UseBalance.Request::getAmount)
+                .collect(Collectors.toList())
+                .equals(List.of(amounts)));
+    }
+
+    private static UseBalanceBatch.ItemResult success(String accountNumber, String transactionId, Long amount) {
+        return UseBalanceBatch.ItemResult.from(TransactionDto.builder()
+                .accountNumber(accountNumber)
+                .transactionType(TransactionType.USE)
+                .transactionResultType(TransactionResultType.SUCCESS)
+                .transactionId(transactionId)
+                .amount(amount)
+                .balanceSnapshot(0L)
+                .transactionAt(LocalDateTime.now())
+                .build(), null);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.accountproject.controller;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.domain.Transaction;
+import com.example.accountproject.dto.TransferBalance;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.repositorty.TransactionRepository;
+import com.example.accountproject.service.AccountService;
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 같은 계좌들 사이에서 양방향 이체를 동시에 실행해도 교착 없이 끝나고 잔액 합계가 유지되는지 확인한다.
+ */
+@SpringBootTest
+class TransferStressTest {
+    private static final int ACCOUNTS = 3;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final long INITIAL_BALANCE = 100_000L;
+
+    @Autowired
+    private TransactionController transactionController;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void concurrentTransfersInBothDirectionsConserveBalance() throws Exception {
+        // given
+        AccountUser accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("transfer")
+                .build());
+        List<String> accountNumbers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountNumbers.add(accountService.createAccount(accountUser.getId(), INITIAL_BALANCE).getAccountNumber());
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<TransferBalance.Response>>> futures = new ArrayList<>();
+
+        // when : 스레드마다 임의의 방향으로 이체한다
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                List<TransferBalance.Response> succeeded = new ArrayList<>();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    try {
+                        succeeded.add(transactionController.transfer(new TransferBalance.Request(
+                                accountUser.getId(), accountNumbers.get(from), accountNumbers.get(to),
+                                10L + random.nextInt(90))));
+                    } catch (AccountException e) {
+                        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, e.getErrorCode());
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        start.countDown();
+
+        List<TransferBalance.Response> transfers = new ArrayList<>();
+        for (Future<List<TransferBalance.Response>> future : futures) {
+            // 교착이 생기면 여기서 시간 초과로 실패한다
+            transfers.addAll(future.get(60, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        // then
+        assertFalse(transfers.isEmpty());
+
+        Map<String, Long> expected = new HashMap<>();
+        for (String accountNumber : accountNumbers) {
+            expected.put(accountNumber, INITIAL_BALANCE);
+        }
+        for (TransferBalance.Response transfer : transfers) {
+            expected.merge(transfer.getFromAccountNumber(), -transfer.getAmount(), Long::sum);
+            expected.merge(transfer.getToAccountNumber(), transfer.getAmount(), Long::sum);
+
+            Transaction transferIn = transactionRepository.findByTransactionId(transfer.getLinkedTransactionId()).get();
+            assertEquals(TransactionType.TRANSFER_IN, transferIn.getTransactionType());
+            assertEquals(transfer.getTransactionId(), transferIn.getLinkedTransactionId());
+            assertEquals(transfer.getToAccountNumber(), transferIn.getAccount().getAccountNumber());
+        }
+
+        long total = 0;
+        for (String accountNumber : accountNumbers) {
+            long balance = accountRepository.findByAccountNumber(accountNumber).get().getBalance();
+            assertEquals(expected.get(accountNumber), balance);
+            total += balance;
+        }
+        assertEquals(INITIAL_BALANCE * ACCOUNTS, total);
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.accountproject.ledger;
+
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.service.AccountService;
+import com.example.accountproject.service.TimeOrderedTransactionIdGenerator;
+import com.example.accountproject.type.AccountStatus;
+import com.example.accountproject.type.ErrorCode;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotAccountLedgerTest {
+    private static final String ACCOUNT_NUMBER = "1000000012";
+    private static final long ACCOUNT_ID = 1L;
+    private static final long USER_ID = 1L;
+
+    @TempDir
+    Path walDir;
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        // given
+        FakeCheckpointStore store = new FakeCheckpointStore(1_000L);
+        HotAccountLedger ledger = newLedger(store);
+        ledger.start();
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Long> snapshots = Collections.synchronizedList(new ArrayList<>());
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 100; j++) {
+                    try {
+                        snapshots.add(ledger.use(ACCOUNT_NUMBER, USER_ID, 7L).getBalanceSnapshot());
+                        succeeded.incrementAndGet();
+                    } catch (AccountException e) {
+                        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        ledger.stop();
+
+        // then
+        assertEquals(1_000L / 7, succeeded.get());
+        assertEquals(1_000L - 7L * succeeded.get(), ledger.getBalance(ACCOUNT_NUMBER));
+        assertTrue(snapshots.stream().allMatch(balance -> balance >= 0));
+        assertEquals(ledger.getBalance(ACCOUNT_NUMBER), store.balance);
+        assertEquals(succeeded.get(), store.transactionIds.size());
+    }
+
+    @Test
+    void recoversAcknowledgedTransactionsAfterCrash() throws Exception {
+        // given
+        FakeCheckpointStore store = new FakeCheckpointStore(1_000_000L);
+        HotAccountLedger ledger = newLedger(store);
+        ledger.start();
+        Set<String> acknowledged = new HashSet<>();
+        for (int i = 0; i < 20; i++) {
+            acknowledged.add(ledger.use(ACCOUNT_NUMBER, USER_ID, 100L).getTransactionId());
+        }
+        while (ledger.checkpoint() > 0) {
+            // 처음 20 건은 체크포인트까지 반영
+        }
+        for (int i = 0; i < 30; i++) {
+            TransactionDto used = ledger.use(ACCOUNT_NUMBER, USER_ID, 100L);
+            acknowledged.add(used.getTransactionId());
+            if (i % 10 == 0) {
+                acknowledged.add(ledger.cancel(ACCOUNT_NUMBER, 100L).getTransactionId());
+            }
+        }
+        long balanceBeforeCrash = ledger.getBalance(ACCOUNT_NUMBER);
+
+        // when
+        ledger.halt();
+        appendTornRecord();
+        HotAccountLedger recovered = newLedger(store);
+        recovered.start();
+
+        // then
+        assertEquals(balanceBeforeCrash, recovered.getBalance(ACCOUNT_NUMBER));
+        assertEquals(20, store.transactionIds.size());
+
+        recovered.stop();
+        assertEquals(acknowledged, new HashSet<>(store.transactionIds));
+        assertEquals(acknowledged.size(), store.transactionIds.size());
+        assertEquals(balanceBeforeCrash, store.balance);
+    }
+
+    @Test
+    void uncheckpointedTransactionIsFoundInLedger() {
+        // given
+        FakeCheckpointStore store = new FakeCheckpointStore(1_000L);
+        HotAccountLedger ledger = newLedger(store);
+        ledger.start();
+
+        // when
+        TransactionDto used = ledger.use(ACCOUNT_NUMBER, USER_ID, 10L);
+
+        // then
+        assertEquals(used.getTransactionId(),
+                ledger.findUncheckpointed(used.getTransactionId()).orElseThrow().getTransactionId());
+        ledger.stop();
+        assertTrue(ledger.findUncheckpointed(used.getTransactionId()).isEmpty());
+    }
+
+    @Test
+    void creditIsSpendableOnlyAfterWalWrite() throws Exception {
+        // given : 잔액 0, WAL 쓰기를 잠시 막는다
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        WriteAheadLog blockingLog = new WriteAheadLog(walDir, 1024, true) {
+            @Override
+            public synchronized void append(List<LedgerEntry> entries) throws IOException {
+                writing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                super.append(entries);
+            }
+        };
+        HotAccountLedger ledger = newLedger(new FakeCheckpointStore(0L), blockingLog);
+        ledger.start();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when : 취소가 WAL 에 쓰이는 중에 사용 요청
+        Future<TransactionDto> cancel = executor.submit(() -> ledger.cancel(ACCOUNT_NUMBER, 100L));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        AccountException exception = assertThrows(AccountException.class,
+                () -> ledger.use(ACCOUNT_NUMBER, USER_ID, 100L));
+        release.countDown();
+        cancel.get(5, TimeUnit.SECONDS);
+
+        // then : 쓰기가 끝난 뒤에야 사용할 수 있다
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, exception.getErrorCode());
+        assertEquals(0L, ledger.use(ACCOUNT_NUMBER, USER_ID, 100L).getBalanceSnapshot());
+        executor.shutdown();
+        ledger.stop();
+    }
+
+    @Test
+    void failedWalWriteLeavesBalanceUnchanged() {
+        // given
+        WriteAheadLog failingLog = new WriteAheadLog(walDir, 1024, true) {
+            @Override
+            public synchronized void append(List<LedgerEntry> entries) throws IOException {
+                throw new IOException("disk full");
+            }
+        };
+        HotAccountLedger ledger = newLedger(new FakeCheckpointStore(1_000L), failingLog);
+        ledger.start();
+
+        // when
+        AccountException use = assertThrows(AccountException.class, () -> ledger.use(ACCOUNT_NUMBER, USER_ID, 100L));
+        AccountException cancel = assertThrows(AccountException.class, () -> ledger.cancel(ACCOUNT_NUMBER, 100L));
+
+        // then : 사용은 되돌리고 취소는 더하지 않았다
+        assertEquals(ErrorCode.INVALID_SERVER_ERROR, use.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, cancel.getErrorCode());
+        assertEquals(1_000L, ledger.getBalance(ACCOUNT_NUMBER));
+        ledger.stop();
+    }
+
+    @Nested
+    @SpringBootTest(properties = {
+            "spring.redis.port=6390",
+            "spring.datasource.url=jdbc:h2:mem:hotledgercache"
+    })
+    @DirtiesContext
+    class WithAccountListCache {
+        @Autowired
+        private AccountService accountService;
+
+        @Autowired
+        private CheckpointStore checkpointStore;
+
+        @Test
+        void checkpointRefreshesOwnerAccountList() throws Exception {
+            // given : 계좌 목록을 한 번 읽어 캐시에 올린다
+            String accountNumber = accountService.createAccount(USER_ID, 1_000L).getAccountNumber();
+            assertEquals(1_000L, balanceOf(accountNumber));
+            HotAccountLedger ledger = new HotAccountLedger(checkpointStore, new WriteAheadLog(walDir, 1024, true),
+                    new TimeOrderedTransactionIdGenerator(1),
+                    List.of(accountNumber), TimeUnit.HOURS.toMillis(1), 7, 1000);
+            ledger.start();
+
+            // when : Hot 계좌에서 사용한 뒤 체크포인트
+            for (int i = 0; i < 3; i++) {
+                ledger.use(accountNumber, USER_ID, 100L);
+            }
+            while (ledger.checkpoint() > 0) {
+                // 모두 반영
+            }
+            ledger.stop();
+
+            // then : 캐시에 남은 이전 잔액이 아니라 체크포인트된 잔액을 읽는다
+            assertEquals(700L, balanceOf(accountNumber));
+        }
+
+        private long balanceOf(String accountNumber) {
+            return accountService.getAccountsInfo(USER_ID).stream()
+                    .filter(account -> accountNumber.equals(account.getAccountNumber()))
+                    .map(AccountDto::getBalance)
+                    .findFirst()
+                    .orElseThrow();
+        }
+    }
+
+    private HotAccountLedger newLedger(CheckpointStore store) {
+        return newLedger(store, new WriteAheadLog(walDir, 1024, true));
+    }
+
+    private HotAccountLedger newLedger(CheckpointStore store, WriteAheadLog writeAheadLog) {
+        return new HotAccountLedger(store, writeAheadLog,
+                new TimeOrderedTransactionIdGenerator(1),
+                List.of(ACCOUNT_NUMBER), TimeUnit.HOURS.toMillis(1), 7, 1000);
+    }
+
+    private void appendTornRecord() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(walDir)) {
+            segments = files.sorted().collect(Collectors.toList());
+        }
+        // 길이 헤더만 쓰고 본문을 쓰기 전에 종료된 기록
+        Files.write(segments.get(segments.size() - 1), new byte[]{0, 0, 0, 64, 1, 2, 3}, StandardOpenOption.APPEND);
+    }
+
+    private static class FakeCheckpointStore implements CheckpointStore {
+        private final List<String> transactionIds = new ArrayList<>();
+        private long balance;
+        private long lastSequence;
+
+        private FakeCheckpointStore(long balance) {
+            this.balance = balance;
+        }
+
+        @Override
+        public synchronized Optional<HotAccountState> load(String accountNumber) {
+            if (!ACCOUNT_NUMBER.equals(accountNumber)) {
+                return Optional.empty();
+            }
+            return Optional.of(HotAccountState.builder()
+                    .accountId(ACCOUNT_ID)
+                    .accountNumber(ACCOUNT_NUMBER)
+                    .userId(USER_ID)
+                    .accountStatus(AccountStatus.IN_USE)
+                    .balance(balance)
+                    .lastSequence(lastSequence)
+                    .build());
+        }
+
+        @Override
+        public synchronized void checkpoint(List<LedgerEntry> entries) {
+            for (LedgerEntry entry : entries) {
+                assertTrue(entry.getSequence() > lastSequence);
+                transactionIds.add(entry.getTransactionId());
+                balance += entry.balanceDelta();
+                lastSequence = entry.getSequence();
+            }
+        }
+    }
+}
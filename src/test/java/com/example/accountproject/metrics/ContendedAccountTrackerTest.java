@@ -0,0 +1,59 @@
+package com.example.accountproject.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContendedAccountTrackerTest {
+    @Test
+    void topOrdersAccountsByTotalWaitTime() {
+        // given
+        ContendedAccountTracker tracker = new ContendedAccountTracker(60_000, 2, 100);
+        tracker.record("1000000001", 1_000_000, false);
+        tracker.record("1000000002", 5_000_000, false);
+        tracker.record("1000000002", 3_000_000, true);
+        tracker.record("1000000003", 2_000_000, false);
+
+        // when
+        List<ContendedAccount> top = tracker.top(2);
+
+        // then
+        assertEquals(2, top.size());
+        assertEquals("1000000002", top.get(0).getAccountNumber());
+        assertEquals(2, top.get(0).getContendedAcquisitions());
+        assertEquals(1, top.get(0).getFailures());
+        assertEquals(8.0, top.get(0).getTotalWaitMillis());
+        assertEquals(5.0, top.get(0).getMaxWaitMillis());
+        assertEquals("1000000003", top.get(1).getAccountNumber());
+    }
+
+    @Test
+    void accountsBeyondBucketLimitAreNotTracked() {
+        // given
+        ContendedAccountTracker tracker = new ContendedAccountTracker(60_000, 1, 1);
+
+        // when
+        tracker.record("1000000001", 1_000_000, false);
+        tracker.record("1000000002", 9_000_000, false);
+
+        // then
+        List<ContendedAccount> top = tracker.top(10);
+        assertEquals(1, top.size());
+        assertEquals("1000000001", top.get(0).getAccountNumber());
+    }
+
+    @Test
+    void negativeLimitReturnsNoAccounts() {
+        // given
+        ContendedAccountTracker tracker = new ContendedAccountTracker(60_000, 1, 100);
+        tracker.record("1000000001", 1_000_000, false);
+
+        // when
+        List<ContendedAccount> top = tracker.top(-1);
+
+        // then
+        assertTrue(top.isEmpty());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.accountproject.metrics;
+
+import com.example.accountproject.type.RequestPhase;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PhaseTimerTest {
+    @Test
+    void phasesAreRecordedOnlyWhileActive() {
+        // given
+        PhaseTimer.stop(RequestPhase.LOCK, PhaseTimer.start() - 5_000_000);
+
+        // when
+        PhaseTimer.begin();
+        PhaseTimer.stop(RequestPhase.ACCOUNT_LOOKUP, PhaseTimer.start() - 2_000_000);
+        PhaseTimer.stop(RequestPhase.ACCOUNT_LOOKUP, PhaseTimer.start() - 1_000_000);
+        long[] elapsed = PhaseTimer.end();
+
+        // then
+        assertEquals(0L, elapsed[RequestPhase.LOCK.ordinal()]);
+        assertTrue(elapsed[RequestPhase.ACCOUNT_LOOKUP.ordinal()] >= 3_000_000);
+        assertFalse(PhaseTimer.isActive());
+    }
+
+    @Test
+    void serverTimingListsRecordedPhasesInMillis() {
+        // given
+        PhaseTimer.begin();
+        PhaseTimer.stop(RequestPhase.LOCK, PhaseTimer.start() - 1_500_000);
+        PhaseTimer.stop(RequestPhase.COMMIT, PhaseTimer.start() - 20_000_000);
+
+        // when
+        String serverTiming = PhaseTimer.serverTiming();
+        PhaseTimer.end();
+
+        // then
+        assertTrue(serverTiming.matches("lock;dur=1\\.\\d{3}, commit;dur=20\\.\\d{3}"), serverTiming);
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.accountproject.repositorty;
+
+import com.example.accountproject.domain.Account;
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.type.TransactionResultType;
+import com.example.accountproject.type.TransactionType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ParameterMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 리포지토리 조회 쿼리가 테이블 전체 스캔을 하지 않는지 H2 EXPLAIN 으로 확인한다.
+ */
+@SpringBootTest
+class RepositoryQueryPlanTest {
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findAccountByAccountNumberUsesIndex() {
+        assertNoTableScan(() -> accountRepository.findByAccountNumber("1000000000"));
+    }
+
+    @Test
+    void findAccountsByAccountUserUsesIndex() {
+        AccountUser accountUser = accountUserRepository.findById(1L).get();
+
+        assertNoTableScan(() -> accountRepository.findByAccountUser(accountUser));
+    }
+
+    @Test
+    void findAccountDtosByAccountUserIdUsesIndex() {
+        assertNoTableScan(() -> accountRepository.findAccountDtosByAccountUserId(1L));
+    }
+
+    @Test
+    void countAccountsByAccountUserUsesIndex() {
+        AccountUser accountUser = accountUserRepository.findById(1L).get();
+
+        assertNoTableScan(() -> accountRepository.countByAccountUser(accountUser));
+    }
+
+    @Test
+    void findTransactionByTransactionIdUsesIndex() {
+        assertNoTableScan(() -> transactionRepository.findByTransactionId("0"));
+    }
+
+    @Test
+    void findTransactionHistoryUsesIndex() {
+        Account account = accountRepository.getReferenceById(1L);
+
+        assertNoTableScan(() -> transactionRepository.findHistory(
+                account, null, null, PageRequest.of(0, 21)));
+    }
+
+    @Test
+    void findTransactionHistoryAfterCursorUsesIndex() {
+        Account account = accountRepository.getReferenceById(1L);
+
+        assertNoTableScan(() -> transactionRepository.findHistoryAfter(
+                account, LocalDateTime.now(), 1L, TransactionType.USE, TransactionResultType.SUCCESS,
+                PageRequest.of(0, 21)));
+    }
+
+    @Test
+    void findAccountUserByIdUsesIndex() {
+        assertNoTableScan(() -> accountUserRepository.findById(1L));
+    }
+
+    private void assertNoTableScan(Runnable query) {
+        List<String> statements = SqlCaptureInspector.capture(query);
+
+        assertFalse(statements.isEmpty(), "no statement captured");
+        for (String sql : statements) {
+            String plan = explain(sql);
+            assertFalse(plan.contains("tableScan"), () -> "table scan in plan:\n" + plan);
+        }
+    }
+
+    private String explain(String sql) {
+        int parameterCount = (int) sql.chars().filter(c -> c == '?').count();
+
+        return jdbcTemplate.query("EXPLAIN " + sql,
+                ps -> {
+                    // 시각 파라미터는 문자열 "0" 으로 변환할 수 없으므로 현재 시각을 넣는다
+                    ParameterMetaData metaData = ps.getParameterMetaData();
+                    for (int i = 1; i <= parameterCount; i++) {
+                        if (metaData.getParameterType(i) == Types.TIMESTAMP) {
+                            ps.setTimestamp(i, Timestamp.valueOf(LocalDateTime.now()));
+                        } else {
+                            ps.setString(i, "0");
+                        }
+                    }
+                },
+                rs -> {
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                    return plan.toString();
+                });
+    }
+}
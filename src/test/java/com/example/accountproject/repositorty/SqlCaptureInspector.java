@@ -0,0 +1,33 @@
+package com.example.accountproject.repositorty;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * capture 로 실행한 구간에서 Hibernate 가 만든 SQL 을 현재 스레드 기준으로 수집한다.
+ */
+public class SqlCaptureInspector implements StatementInspector {
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    public static List<String> capture(Runnable runnable) {
+        List<String> statements = new ArrayList<>();
+        CAPTURED.set(statements);
+        try {
+            runnable.run();
+        } finally {
+            CAPTURED.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> statements = CAPTURED.get();
+        if (statements != null) {
+            statements.add(sql);
+        }
+        return sql;
+    }
+}
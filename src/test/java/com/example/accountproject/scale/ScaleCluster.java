@@ -0,0 +1,114 @@
+package com.example.accountproject.scale;
+
+import com.example.accountproject.AccountProjectApplication;
+import org.h2.tools.Server;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 한 JVM 에 애플리케이션 인스턴스 N 개를 띄운다
+ * 인스턴스는 각자 다른 포트로 HTTP 요청을 받고, 내장 Redis 하나와 H2 TCP 서버의 메모리 DB 하나를 함께 쓴다.
+ * 첫 번째 인스턴스가 스키마와 data.sql 을 만들고, 나머지 인스턴스는 만들어진 스키마를 그대로 쓴다.
+ * 거래 아이디가 겹치지 않도록 인스턴스마다 다른 node-id 를 준다.
+ */
+final class ScaleCluster implements AutoCloseable {
+    private final Server h2Server;
+    private final RedisServer redisServer;
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    private ScaleCluster(Server h2Server, RedisServer redisServer) {
+        this.h2Server = h2Server;
+        this.redisServer = redisServer;
+    }
+
+    /**
+     * @param nodeCount 인스턴스 수
+     * @param properties 모든 인스턴스에 추가로 줄 설정 (key=value)
+     */
+    static ScaleCluster start(int nodeCount, String... properties) throws SQLException {
+        int h2Port = freePort();
+        int redisPort = freePort();
+        Server h2Server = Server.createTcpServer("-tcpPort", String.valueOf(h2Port), "-ifNotExists").start();
+        RedisServer redisServer = RedisServer.builder()
+                .port(redisPort)
+                .setting("maxmemory 512M")
+                .build();
+        redisServer.start();
+
+        ScaleCluster cluster = new ScaleCluster(h2Server, redisServer);
+        try {
+            String url = "jdbc:h2:tcp://localhost:" + h2Port + "/mem:scale-" + h2Port + ";DB_CLOSE_DELAY=-1";
+            for (int i = 0; i < nodeCount; i++) {
+                boolean first = i == 0;
+                // 명령행 인자로 넘겨야 application.yml 보다 우선한다
+                cluster.nodes.add(new SpringApplicationBuilder(AccountProjectApplication.class)
+                        .run(arguments(properties,
+                                "server.port=0",
+                                "spring.datasource.url=" + url,
+                                "spring.jpa.hibernate.ddl-auto=" + (first ? "create-drop" : "none"),
+                                "spring.sql.init.mode=" + (first ? "always" : "never"),
+                                "spring.redis.port=" + redisPort,
+                                "account.redis.embedded.enabled=false",
+                                "account.transaction-id.node-id=" + i,
+                                "spring.jpa.properties.hibernate.show_sql=false",
+                                "spring.jpa.properties.hibernate.format_sql=false",
+                                "logging.level.root=WARN"
+                        )));
+            }
+        } catch (RuntimeException e) {
+            cluster.close();
+            throw e;
+        }
+        return cluster;
+    }
+
+    List<ConfigurableApplicationContext> nodes() {
+        return nodes;
+    }
+
+    ConfigurableApplicationContext node(int index) {
+        return nodes.get(index);
+    }
+
+    List<URI> baseUris() {
+        return nodes.stream()
+                .map(node -> URI.create("http://localhost:" + node.getEnvironment().getProperty("local.server.port")))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void close() {
+        // 스키마를 만든 첫 번째 인스턴스를 마지막에 닫는다
+        for (int i = nodes.size() - 1; i >= 0; i--) {
+            nodes.get(i).close();
+        }
+        redisServer.stop();
+        h2Server.stop();
+    }
+
+    private static String[] arguments(String[] extra, String... properties) {
+        return Stream.concat(Arrays.stream(properties), Arrays.stream(extra))
+                .map(property -> "--" + property)
+                .toArray(String[]::new);
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.accountproject.scale;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 인스턴스에 잔액 사용 / 잔액 사용 취소 / 계좌 생성 / 계좌 조회 요청을 섞어 보낸다
+ * 클라이언트 스레드는 응답을 받으면 바로 다음 요청을 보내고(closed loop), 요청마다 다음 인스턴스를 고른다.
+ * 2xx 가 아닌 응답은 모두 실패로 센다. (업무 오류도 500 으로 응답된다)
+ *
+ * - USE : 시드 계좌 중 하나에서 AMOUNT 원 사용, 성공한 거래 아이디는 취소 대기열에 넣는다.
+ * - CANCEL : 취소 대기열의 거래를 취소, 대기열이 비어 있으면 USE 로 대신한다.
+ * - CREATE : 생성용 사용자에게 잔액 0 계좌 생성 (사용자당 최대 계좌 수까지), 사용자가 모자라면 LIST 로 대신한다.
+ * - LIST : 시드 계좌 사용자의 계좌 목록 조회
+ */
+final class ScaleLoadDriver {
+    static final long AMOUNT = 10L;
+    private static final int MAX_ACCOUNTS_PER_USER = 10;
+
+    enum Operation {
+        USE(50), CANCEL(20), CREATE(10), LIST(20);
+
+        private final int weight;
+
+        Operation(int weight) {
+            this.weight = weight;
+        }
+    }
+
+    static final class SeededAccount {
+        final long userId;
+        final String accountNumber;
+
+        SeededAccount(long userId, String accountNumber) {
+            this.userId = userId;
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    private static final class Pending {
+        final String transactionId;
+        final String accountNumber;
+
+        Pending(String transactionId, String accountNumber) {
+            this.transactionId = transactionId;
+            this.accountNumber = accountNumber;
+        }
+    }
+
+    private final List<URI> baseUris;
+    private final List<SeededAccount> accounts;
+    private final List<Long> creatorIds;
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<Pending> cancellable = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger nextNode = new AtomicInteger();
+    private final AtomicInteger creates = new AtomicInteger();
+
+    ScaleLoadDriver(List<URI> baseUris, List<SeededAccount> accounts, List<Long> creatorIds) {
+        this.baseUris = baseUris;
+        this.accounts = accounts;
+        this.creatorIds = creatorIds;
+    }
+
+    /**
+     * duration 동안 clients 개 스레드로 요청을 보낸다
+     * 인스턴스들의 계좌 Lock 지표(account.lock.wait)를 실행 전후로 읽어 Lock 획득 실패율을 함께 계산한다.
+     */
+    Result run(List<ConfigurableApplicationContext> nodes, Duration duration, int clients) throws Exception {
+        double[] locksBefore = lockCounts(nodes);
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<Recorder>> futures = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        long startedAt = System.nanoTime();
+        long deadline = startedAt + duration.toNanos();
+        try {
+            for (int i = 0; i < clients; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    Recorder recorder = new Recorder();
+                    while (System.nanoTime() < deadline) {
+                        call(pick(), recorder);
+                    }
+                    return recorder;
+                }));
+            }
+            start.countDown();
+
+            Recorder total = new Recorder();
+            for (Future<Recorder> future : futures) {
+                total.merge(future.get(duration.toSeconds() + 60, TimeUnit.SECONDS));
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+            double[] locksAfter = lockCounts(nodes);
+            return new Result(baseUris.size(), clients, elapsedNanos, total,
+                    (long) (locksAfter[0] - locksBefore[0]), (long) (locksAfter[1] - locksBefore[1]));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Operation pick() {
+        int value = ThreadLocalRandom.current().nextInt(100);
+        for (Operation operation : Operation.values()) {
+            value -= operation.weight;
+            if (value < 0) {
+                return operation;
+            }
+        }
+        return Operation.USE;
+    }
+
+    private void call(Operation operation, Recorder recorder) throws IOException, InterruptedException {
+        URI baseUri = baseUris.get(Math.floorMod(nextNode.getAndIncrement(), baseUris.size()));
+        SeededAccount account = accounts.get(ThreadLocalRandom.current().nextInt(accounts.size()));
+        Pending pending = null;
+        HttpRequest request;
+        switch (operation) {
+            case CANCEL:
+                pending = cancellable.poll();
+                if (pending == null) {
+                    call(Operation.USE, recorder);
+                    return;
+                }
+                request = post(baseUri, "/transaction/cancel", Map.of(
+                        "transactionId", pending.transactionId,
+                        "accountNumber", pending.accountNumber,
+                        "amount", AMOUNT));
+                break;
+            case CREATE:
+                int index = creates.getAndIncrement() / MAX_ACCOUNTS_PER_USER;
+                if (index >= creatorIds.size()) {
+                    call(Operation.LIST, recorder);
+                    return;
+                }
+                request = post(baseUri, "/account", Map.of(
+                        "userId", creatorIds.get(index),
+                        "initialBalance", 0L));
+                break;
+            case LIST:
+                request = HttpRequest.newBuilder(baseUri.resolve("/account?user_id=" + account.userId))
+                        .GET()
+                        .build();
+                break;
+            default:
+                request = post(baseUri, "/transaction/use", Map.of(
+                        "userId", account.userId,
+                        "accountNumber", account.accountNumber,
+                        "amount", AMOUNT));
+        }
+
+        long startedAt = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        long latencyNanos = System.nanoTime() - startedAt;
+        boolean success = response.statusCode() / 100 == 2;
+        recorder.record(operation, latencyNanos, success);
+
+        if (success && operation == Operation.USE) {
+            String transactionId = objectMapper.readTree(response.body()).get("transactionId").asText();
+            cancellable.add(new Pending(transactionId, account.accountNumber));
+        }
+    }
+
+    private HttpRequest post(URI baseUri, String path, Map<String, Object> body) throws IOException {
+        return HttpRequest.newBuilder(baseUri.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                .build();
+    }
+
+    // [acquired, failed]
+    private static double[] lockCounts(List<ConfigurableApplicationContext> nodes) {
+        double[] counts = new double[2];
+        for (ConfigurableApplicationContext node : nodes) {
+            MeterRegistry meterRegistry = node.getBean(MeterRegistry.class);
+            counts[0] += meterRegistry.timer("account.lock.wait", "result", "acquired").count();
+            counts[1] += meterRegistry.timer("account.lock.wait", "result", "failed").count();
+        }
+        return counts;
+    }
+
+    /**
+     * 클라이언트 스레드 하나의 응답 시간과 성공 / 실패 수
+     */
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int size;
+        private final long[] successes = new long[Operation.values().length];
+        private final long[] failures = new long[Operation.values().length];
+
+        void record(Operation operation, long latencyNanos, boolean success) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            (success ? successes : failures)[operation.ordinal()]++;
+        }
+
+        void merge(Recorder other) {
+            if (size + other.size > latencies.length) {
+                latencies = Arrays.copyOf(latencies, size + other.size);
+            }
+            System.arraycopy(other.latencies, 0, latencies, size, other.size);
+            size += other.size;
+            for (int i = 0; i < successes.length; i++) {
+                successes[i] += other.successes[i];
+                failures[i] += other.failures[i];
+            }
+        }
+    }
+
+    static final class Result {
+        final int nodes;
+        final int clients;
+        final long requests;
+        final double throughput;
+        final double p50Millis;
+        final double p99Millis;
+        final long lockAcquired;
+        final long lockFailed;
+        private final long[] successes;
+        private final long[] failures;
+
+        private Result(int nodes, int clients, long elapsedNanos, Recorder recorder, long lockAcquired, long lockFailed) {
+            long[] sorted = Arrays.copyOf(recorder.latencies, recorder.size);
+            Arrays.sort(sorted);
+            this.nodes = nodes;
+            this.clients = clients;
+            this.requests = sorted.length;
+            this.throughput = sorted.length / (elapsedNanos / 1e9);
+            this.p50Millis = percentile(sorted, 0.50) / 1e6;
+            this.p99Millis = percentile(sorted, 0.99) / 1e6;
+            this.lockAcquired = lockAcquired;
+            this.lockFailed = lockFailed;
+            this.successes = recorder.successes;
+            this.failures = recorder.failures;
+        }
+
+        long successes(Operation operation) {
+            return successes[operation.ordinal()];
+        }
+
+        long failures(Operation operation) {
+            return failures[operation.ordinal()];
+        }
+
+        long totalFailures() {
+            return Arrays.stream(failures).sum();
+        }
+
+        double lockConflictRate() {
+            long attempts = lockAcquired + lockFailed;
+            return attempts == 0 ? 0 : (double) lockFailed / attempts;
+        }
+
+        private static long percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1)];
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.accountproject.scale;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.scale.ScaleLoadDriver.Operation;
+import com.example.accountproject.scale.ScaleLoadDriver.Result;
+import com.example.accountproject.scale.ScaleLoadDriver.SeededAccount;
+import com.example.accountproject.service.AccountService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 인스턴스 수를 늘려가며 같은 요청 부하를 주고 처리량, 응답 시간, 계좌 Lock 충돌률을 비교한다
+ * 시간이 오래 걸리므로 test 에서는 빠지고 scaleTest 태스크로만 실행한다.
+ * ./gradlew scaleTest -Pscale.nodes=1,2,4 -Pscale.seconds=30 -Pscale.clients=32 -Pscale.accounts=100
+ *
+ * - scale.lock-type 으로 계좌 Lock 종류(account.lock.type)를 바꿀 수 있다.
+ * - 결과는 표로 출력하고 build/reports/scale/scale.csv 에도 쓴다.
+ * - 실행마다 성공한 사용 / 취소 수로 계산한 잔액 합계와 DB 의 잔액 합계가 같은지 확인한다.
+ */
+@Tag("scale")
+class ScaleTest {
+    private static final long INITIAL_BALANCE = 1_000_000_000L;
+    private static final int CREATOR_USERS = 2000;
+
+    @Test
+    void throughputAndLockConflictsAsInstancesGrow() throws Exception {
+        List<Integer> nodeCounts = Arrays.stream(System.getProperty("scale.nodes", "1,2,4").split(","))
+                .map(String::trim)
+                .map(Integer::valueOf)
+                .collect(Collectors.toList());
+        Duration duration = Duration.ofSeconds(Long.getLong("scale.seconds", 20L));
+        int clients = Integer.getInteger("scale.clients", 32);
+        int accountCount = Integer.getInteger("scale.accounts", 100);
+        String lockType = System.getProperty("scale.lock-type", "redis");
+
+        List<Result> results = new ArrayList<>();
+        for (int nodeCount : nodeCounts) {
+            try (ScaleCluster cluster = ScaleCluster.start(nodeCount, "account.lock.type=" + lockType)) {
+                // given
+                List<SeededAccount> accounts = seedAccounts(cluster, accountCount);
+                List<Long> creatorIds = seedCreators(cluster);
+
+                // when
+                Result result = new ScaleLoadDriver(cluster.baseUris(), accounts, creatorIds)
+                        .run(cluster.nodes(), duration, clients);
+                results.add(result);
+
+                // then
+                assertTrue(result.successes(Operation.USE) > 0);
+                long expectedTotal = INITIAL_BALANCE * accountCount - ScaleLoadDriver.AMOUNT
+                        * (result.successes(Operation.USE) - result.successes(Operation.CANCEL));
+                assertEquals(expectedTotal, balanceTotal(cluster, accounts));
+            }
+        }
+
+        report(lockType, results);
+    }
+
+    private static List<SeededAccount> seedAccounts(ScaleCluster cluster, int accountCount) {
+        AccountUserRepository accountUserRepository = cluster.node(0).getBean(AccountUserRepository.class);
+        AccountService accountService = cluster.node(0).getBean(AccountService.class);
+        List<SeededAccount> accounts = new ArrayList<>();
+        AccountUser accountUser = null;
+        for (int i = 0; i < accountCount; i++) {
+            if (i % 10 == 0) {
+                accountUser = accountUserRepository.save(AccountUser.builder()
+                        .name("scale-" + i)
+                        .build());
+            }
+            String accountNumber = accountService.createAccount(accountUser.getId(), INITIAL_BALANCE).getAccountNumber();
+            accounts.add(new SeededAccount(accountUser.getId(), accountNumber));
+        }
+        return accounts;
+    }
+
+    private static List<Long> seedCreators(ScaleCluster cluster) {
+        AccountUserRepository accountUserRepository = cluster.node(0).getBean(AccountUserRepository.class);
+        List<AccountUser> creators = new ArrayList<>();
+        for (int i = 0; i < CREATOR_USERS; i++) {
+            creators.add(AccountUser.builder()
+                    .name("creator-" + i)
+                    .build());
+        }
+        return accountUserRepository.saveAll(creators).stream()
+                .map(AccountUser::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static long balanceTotal(ScaleCluster cluster, List<SeededAccount> accounts) {
+        AccountRepository accountRepository = cluster.node(0).getBean(AccountRepository.class);
+        long total = 0;
+        for (SeededAccount account : accounts) {
+            total += accountRepository.findByAccountNumber(account.accountNumber).get().getBalance();
+        }
+        return total;
+    }
+
+    private static void report(String lockType, List<Result> results) throws Exception {
+        List<String> lines = new ArrayList<>();
+        lines.add("lock,nodes,clients,requests,throughput,p50_ms,p99_ms,failures,"
+                + "use_ok,cancel_ok,create_ok,list_ok,lock_acquired,lock_failed,lock_conflict_rate");
+        System.out.printf("%n%-6s %7s %12s %9s %9s %9s %11s%n",
+                "nodes", "clients", "req/s", "p50(ms)", "p99(ms)", "failures", "lock fail%");
+        for (Result result : results) {
+            System.out.printf("%-6d %7d %12.1f %9.2f %9.2f %9d %10.2f%%%n",
+                    result.nodes, result.clients, result.throughput, result.p50Millis, result.p99Millis,
+                    result.totalFailures(), result.lockConflictRate() * 100);
+            lines.add(String.format("%s,%d,%d,%d,%.1f,%.3f,%.3f,%d,%d,%d,%d,%d,%d,%d,%.5f",
+                    lockType, result.nodes, result.clients, result.requests, result.throughput,
+                    result.p50Millis, result.p99Millis, result.totalFailures(),
+                    result.successes(Operation.USE), result.successes(Operation.CANCEL),
+                    result.successes(Operation.CREATE), result.successes(Operation.LIST),
+                    result.lockAcquired, result.lockFailed, result.lockConflictRate()));
+        }
+
+        Path directory = Paths.get("build", "reports", "scale");
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("scale.csv"), lines);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.metrics.LockMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.client.RedisException;
+
+import java.util.List;
+
+import static com.example.accountproject.type.ErrorCode.ACCOUNT_TRANSACTION_LOCK;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.mock;
+
+class AccountLockExecutorTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LockService lockService = mock(LockService.class);
+    private final AccountLockExecutor accountLockExecutor = new AccountLockExecutor(
+            lockService, new LockMetrics(meterRegistry, 1, 10, 6, 100), mock(LockTimePolicy.class));
+
+    @Test
+    void redisErrorIsCountedAsErrorNotAcquired() {
+        // given
+        willThrow(LockService.backendError(new RedisException("connection refused")))
+                .given(lockService).lock(anyString(), anyLong(), anyLong());
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountLockExecutor.lock("1000000000"));
+
+        // then
+        assertEquals(ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        assertEquals(1, waitCount("error"));
+        assertEquals(0, waitCount("acquired"));
+        assertEquals(0, waitCount("failed"));
+        assertEquals(1.0, meterRegistry.get("account.lock.acquire.errors").counter().count());
+        assertEquals(0.0, meterRegistry.get("account.lock.acquire.failures").counter().count());
+    }
+
+    @Test
+    void lockTimeoutIsCountedAsFailed() {
+        // given
+        willThrow(new AccountException(ACCOUNT_TRANSACTION_LOCK))
+                .given(lockService).lock(anyString(), anyLong(), anyLong());
+
+        // when
+        assertThrows(AccountException.class, () -> accountLockExecutor.lock("1000000000"));
+
+        // then
+        assertEquals(1, waitCount("failed"));
+        assertEquals(0, waitCount("error"));
+        assertEquals(0.0, meterRegistry.get("account.lock.acquire.errors").counter().count());
+    }
+
+    @Test
+    void backendErrorOfLockAllIsCountedForEveryAccount() {
+        // given : DB Lock 대체 경로의 예외는 그대로 올라온다
+        List<String> accountNumbers = List.of("1000000000", "1000000001");
+        willThrow(new IllegalStateException("database down"))
+                .given(lockService).lockAll(eq(accountNumbers), anyLong(), anyLong());
+
+        // when
+        assertThrows(IllegalStateException.class,
+                () -> accountLockExecutor.executeAll(accountNumbers, "TransactionController.transfer", () -> "done"));
+
+        // then
+        assertEquals(2, waitCount("error"));
+        assertEquals(0, waitCount("acquired"));
+    }
+
+    private long waitCount(String result) {
+        return meterRegistry.get("account.lock.wait").tag("result", result).timer().count();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "spring.redis.port=6389",
+        "spring.datasource.url=jdbc:h2:mem:allocatorpool",
+        "spring.datasource.hikari.maximum-pool-size=4",
+        "spring.datasource.hikari.connection-timeout=2000",
+        "account.number.block-size=5"
+})
+@DirtiesContext
+class AccountNumberAllocatorPoolTest {
+    private static final int THREADS = 16;
+    private static final int ACCOUNTS_PER_USER = 10;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Test
+    void createAccountsConcurrentlyWithFewerConnectionsThanThreads() throws Exception {
+        // given : 연결 4개에 계좌 생성 16개가 동시에, 5건마다 번호 구간을 새로 예약한다
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            userIds.add(accountUserRepository.save(AccountUser.builder()
+                    .name("pool-" + i)
+                    .build()).getId());
+        }
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when : 구간 예약이 연결을 기다리며 멈추면 connection-timeout 으로 실패한다
+        for (Long userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ACCOUNTS_PER_USER; j++) {
+                    accountNumbers.add(accountService.createAccount(userId, 0L).getAccountNumber());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(THREADS * ACCOUNTS_PER_USER, accountNumbers.size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountNumberSequence;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountNumberSequenceRepository;
+import com.example.accountproject.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class AccountNumberAllocatorTest {
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Autowired
+    private AccountNumberSequenceRepository accountNumberSequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void allocateConcurrentlyWithoutDuplicates() throws Exception {
+        // given
+        int threads = 16;
+        int perThread = 1000;
+        Set<String> accountNumbers = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < perThread; j++) {
+                    accountNumbers.add(accountNumberAllocator.allocate());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(threads * perThread, accountNumbers.size());
+        accountNumbers.forEach(accountNumber -> assertEquals(10, accountNumber.length()));
+    }
+
+    @Test
+    void allocateFailsWhenAccountNumberSpaceIsExhausted() {
+        // given
+        AccountNumberSequence sequence = accountNumberSequenceRepository
+                .findById(AccountNumberAllocator.SEQUENCE_NAME).get();
+        Long originalNextValue = sequence.getNextValue();
+        sequence.setNextValue(AccountNumberAllocator.MAX_ACCOUNT_NUMBER - 1);
+        accountNumberSequenceRepository.save(sequence);
+
+        AccountNumberAllocator allocator =
+                new AccountNumberAllocator(accountNumberSequenceRepository, transactionManager, 100);
+
+        try {
+            // when
+            String first = allocator.allocate();
+            String second = allocator.allocate();
+            AccountException exception = assertThrows(AccountException.class, allocator::allocate);
+
+            // then
+            assertEquals("9999999998", first);
+            assertEquals("9999999999", second);
+            assertEquals(ErrorCode.ACCOUNT_NUMBER_EXHAUSTED, exception.getErrorCode());
+        } finally {
+            sequence.setNextValue(originalNextValue);
+            accountNumberSequenceRepository.save(sequence);
+        }
+    }
+}
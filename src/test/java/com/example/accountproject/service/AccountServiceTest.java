@@ -0,0 +1,45 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.cache.AccountInfoCache;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.ledger.HotAccountLedger;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class AccountServiceTest {
+    private static final String HOT_ACCOUNT_NUMBER = "1000000012";
+
+    private final AccountUserRepository accountUserRepository = mock(AccountUserRepository.class);
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final AccountInfoCache accountInfoCache = mock(AccountInfoCache.class);
+    private final HotAccountLedger hotAccountLedger = mock(HotAccountLedger.class);
+    private final AccountService accountService = new AccountService(accountUserRepository, accountRepository,
+            mock(AccountNumberAllocator.class), accountInfoCache, hotAccountLedger, mock(TransactionTemplate.class));
+
+    @Test
+    void hotAccountCannotBeDeleted() {
+        // given : DB 잔액은 0 이어도 메모리 원장이 거래를 받고 있다
+        given(hotAccountLedger.isHot(HOT_ACCOUNT_NUMBER)).willReturn(true);
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(1L, HOT_ACCOUNT_NUMBER));
+
+        // then
+        assertEquals(ErrorCode.HOT_ACCOUNT_UNREGISTER_NOT_ALLOWED, exception.getErrorCode());
+        verifyNoInteractions(accountRepository);
+        verify(accountInfoCache, never()).evictAfterCommit(any());
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.Account;
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.dto.UseBalanceBatch;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.repositorty.TransactionRepository;
+import com.example.accountproject.type.AccountStatus;
+import com.example.accountproject.type.ErrorCode;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {
+        "account.balance.update-mode=ATOMIC",
+        "spring.redis.port=6380",
+        "spring.datasource.url=jdbc:h2:mem:atomic"
+})
+@DirtiesContext
+class AtomicBalanceUpdateTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void concurrentDebitsNeverOverdraw() throws Exception {
+        // given
+        long initialBalance = 10_000L;
+        long amount = 100L;
+        int threads = 300;
+        int attemptsPerThread = 2;
+        AccountDto account = accountService.createAccount(1L, initialBalance);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger exceeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < attemptsPerThread; j++) {
+                    try {
+                        transactionService.useBalance(1L, account.getAccountNumber(), amount);
+                        succeeded.incrementAndGet();
+                    } catch (AccountException e) {
+                        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                        exceeded.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(initialBalance / amount, succeeded.get());
+        assertEquals(threads * attemptsPerThread - succeeded.get(), exceeded.get());
+        assertEquals(0L, accountRepository.findByAccountNumber(account.getAccountNumber()).get().getBalance());
+    }
+
+    @Test
+    void groupAndSingleDebitsTogetherNeverOverdraw() throws Exception {
+        // given
+        long initialBalance = 10_000L;
+        long amount = 100L;
+        int threads = 40;
+        AccountDto account = accountService.createAccount(1L, initialBalance);
+        List<UseBalance.Request> group = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            group.add(new UseBalance.Request(1L, account.getAccountNumber(), amount));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when : 절반은 묶음으로, 절반은 한 건씩 차감
+        for (int i = 0; i < threads; i++) {
+            boolean grouped = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 5; j++) {
+                    if (grouped) {
+                        for (UseBalanceBatch.ItemResult result
+                                : transactionService.useBalanceGroup(account.getAccountNumber(), group)) {
+                            if (result.getErrorCode() == null) {
+                                succeeded.incrementAndGet();
+                            } else {
+                                assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, result.getErrorCode());
+                            }
+                        }
+                    } else {
+                        try {
+                            transactionService.useBalance(1L, account.getAccountNumber(), amount);
+                            succeeded.incrementAndGet();
+                        } catch (AccountException e) {
+                            assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, e.getErrorCode());
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then : 차감이 하나도 덮어써지지 않았다
+        assertEquals(initialBalance / amount, succeeded.get());
+        assertEquals(0L, accountRepository.findByAccountNumber(account.getAccountNumber()).get().getBalance());
+    }
+
+    @Test
+    void groupSnapshotsAfterFailedItemFollowTheDebits() {
+        // given : 실패 항목이 먼저 온다
+        AccountDto account = accountService.createAccount(1L, 1_000L);
+        String accountNumber = account.getAccountNumber();
+        List<UseBalance.Request> items = List.of(
+                new UseBalance.Request(2L, accountNumber, 100L),
+                new UseBalance.Request(1L, accountNumber, 300L),
+                new UseBalance.Request(1L, accountNumber, 200L),
+                new UseBalance.Request(1L, accountNumber, 900L),
+                new UseBalance.Request(1L, accountNumber, 100L));
+
+        // when
+        List<UseBalanceBatch.ItemResult> results = transactionService.useBalanceGroup(accountNumber, items);
+
+        // then
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, results.get(0).getErrorCode());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(3).getErrorCode());
+        assertEquals(List.of(1_000L, 700L, 500L, 500L, 400L), balanceSnapshots(results));
+        assertEquals(400L, accountRepository.findByAccountNumber(accountNumber).get().getBalance());
+    }
+
+    @Test
+    void groupSnapshotsStayExactUnderConcurrentDebits() throws Exception {
+        // given : 실패 항목으로 시작하는 묶음과 한 건씩 차감을 동시에
+        long initialBalance = 100_000L;
+        AccountDto account = accountService.createAccount(1L, initialBalance);
+        String accountNumber = account.getAccountNumber();
+        List<UseBalance.Request> group = List.of(
+                new UseBalance.Request(2L, accountNumber, 7L),
+                new UseBalance.Request(1L, accountNumber, 10L),
+                new UseBalance.Request(1L, accountNumber, 10L));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        Future<List<Long[]>> grouped = executor.submit(() -> {
+            start.await();
+            List<Long[]> debits = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                for (UseBalanceBatch.ItemResult result : transactionService.useBalanceGroup(accountNumber, group)) {
+                    if (result.getErrorCode() == null) {
+                        debits.add(new Long[]{result.getAmount(), balanceSnapshot(result)});
+                    }
+                }
+            }
+            return debits;
+        });
+        Future<List<Long[]>> single = executor.submit(() -> {
+            start.await();
+            List<Long[]> debits = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                TransactionDto used = transactionService.useBalance(1L, accountNumber, 1L);
+                debits.add(new Long[]{used.getAmount(), used.getBalanceSnapshot()});
+            }
+            return debits;
+        });
+        start.countDown();
+        List<Long[]> debits = new ArrayList<>(grouped.get(60, TimeUnit.SECONDS));
+        debits.addAll(single.get(60, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // then : 차감은 한 줄로 일어나므로 잔액 순으로 놓으면 앞 잔액 - 금액 = 다음 잔액이다
+        debits.sort((a, b) -> Long.compare(b[1], a[1]));
+        long balance = initialBalance;
+        for (Long[] debit : debits) {
+            balance -= debit[0];
+            assertEquals(balance, debit[1]);
+        }
+        assertEquals(balance, accountRepository.findByAccountNumber(accountNumber).get().getBalance());
+    }
+
+    @Test
+    void deleteAccountOnlyUnregistersEmptyAccount() {
+        // given
+        AccountDto empty = accountService.createAccount(1L, 0L);
+        AccountDto funded = accountService.createAccount(1L, 100L);
+
+        // when
+        accountService.deleteAccount(1L, empty.getAccountNumber());
+        AccountException notEmpty = assertThrows(AccountException.class,
+                () -> accountService.deleteAccount(1L, funded.getAccountNumber()));
+        AccountException unregistered = assertThrows(AccountException.class,
+                () -> transactionService.useBalance(1L, empty.getAccountNumber(), 10L));
+
+        // then
+        assertEquals(ErrorCode.BALANCE_NOT_EMPTY, notEmpty.getErrorCode());
+        assertEquals(ErrorCode.ACCOUNT_ALREADY_UNREGISTERED, unregistered.getErrorCode());
+        assertEquals(AccountStatus.UNREGISTERED,
+                accountRepository.findByAccountNumber(empty.getAccountNumber()).get().getAccountStatus());
+        assertEquals(AccountStatus.IN_USE,
+                accountRepository.findByAccountNumber(funded.getAccountNumber()).get().getAccountStatus());
+    }
+
+    @Test
+    void transferNeverCreditsAccountUnregisteredConcurrently() throws Exception {
+        // given
+        AccountDto from = accountService.createAccount(1L, 1_000_000L);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        for (int i = 0; i < 30; i++) {
+            AccountUser owner = accountUserRepository.save(AccountUser.builder()
+                    .name("transfer-target-" + i)
+                    .build());
+            AccountDto to = accountService.createAccount(owner.getId(), 0L);
+            CountDownLatch start = new CountDownLatch(1);
+
+            // when : 해지와 이체를 동시에
+            Future<Boolean> deleted = executor.submit(() -> {
+                start.await();
+                try {
+                    accountService.deleteAccount(owner.getId(), to.getAccountNumber());
+                    return true;
+                } catch (AccountException e) {
+                    return false;
+                }
+            });
+            Future<Boolean> transferred = executor.submit(() -> {
+                start.await();
+                try {
+                    transactionService.transfer(1L, from.getAccountNumber(), to.getAccountNumber(), 100L);
+                    return true;
+                } catch (AccountException e) {
+                    return false;
+                }
+            });
+            start.countDown();
+
+            // then : 둘 중 하나만 성공하고, 해지된 계좌에는 잔액이 없다
+            assertNotEquals(deleted.get(10, TimeUnit.SECONDS), transferred.get(10, TimeUnit.SECONDS));
+            Account target = accountRepository.findByAccountNumber(to.getAccountNumber()).get();
+            if (target.getAccountStatus() == AccountStatus.UNREGISTERED) {
+                assertEquals(0L, target.getBalance());
+            }
+        }
+        executor.shutdown();
+    }
+
+    private List<Long> balanceSnapshots(List<UseBalanceBatch.ItemResult> results) {
+        List<Long> snapshots = new ArrayList<>();
+        for (UseBalanceBatch.ItemResult result : results) {
+            snapshots.add(balanceSnapshot(result));
+        }
+        return snapshots;
+    }
+
+    private Long balanceSnapshot(UseBalanceBatch.ItemResult result) {
+        return transactionRepository.findByTransactionId(result.getTransactionId()).get().getBalanceSnapshot();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.type.ErrorCode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.redis.port=6386",
+        "spring.datasource.url=jdbc:h2:mem:coalescing",
+        "account.lock.coalescing.enabled=true",
+        "account.cache.accounts.enabled=false",
+        "account.cache.transactions.enabled=false"
+})
+@DirtiesContext
+class CoalescingLockServiceTest {
+    private static final int THREADS_PER_NODE = 8;
+    private static final int OPERATIONS_PER_THREAD = 100;
+
+    @Autowired
+    private LockService lockService;
+
+    @Autowired
+    private RedissonClient redissonClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private int counter;
+
+    @Test
+    void handsRedisLockOverLocallyAndStaysExclusiveAcrossNodes() throws Exception {
+        // given : 같은 Redis 를 쓰는 두 번째 인스턴스
+        assertTrue(lockService instanceof CoalescingLockService);
+        LockService otherNode = new CoalescingLockService(redissonClient, new SimpleMeterRegistry(), 64, 200, false);
+        String accountNumber = "2000000001";
+        double redisBefore = count("account.lock.coalescing.redis.acquisitions");
+        double handoffsBefore = count("account.lock.coalescing.handoffs");
+
+        // when : 두 인스턴스의 스레드가 Lock 안에서 같은 값을 증가
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_PER_NODE * 2);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS_PER_NODE * 2; i++) {
+                LockService node = i % 2 == 0 ? lockService : otherNode;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < OPERATIONS_PER_THREAD; j++) {
+                        node.lock(accountNumber, 10_000L, 15_000L);
+                        try {
+                            counter++;
+                        } finally {
+                            node.unlock(accountNumber);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // then : 증가가 하나도 사라지지 않았고, 이 인스턴스의 Lock 대부분은 Redis 를 거치지 않았다
+        int operations = THREADS_PER_NODE * OPERATIONS_PER_THREAD;
+        double redisAcquisitions = count("account.lock.coalescing.redis.acquisitions") - redisBefore;
+        double handoffs = count("account.lock.coalescing.handoffs") - handoffsBefore;
+        assertEquals(operations * 2, counter);
+        assertEquals(operations, redisAcquisitions + handoffs);
+        assertTrue(handoffs > redisAcquisitions, "handoffs " + handoffs + ", redis " + redisAcquisitions);
+        assertFalse(redissonClient.getLock("ACLK:" + accountNumber).isLocked());
+    }
+
+    @Test
+    void releasesRedisLockWhenQueuedRequestGivesUp() throws Exception {
+        // given
+        String accountNumber = "2000000002";
+        lockService.lock(accountNumber, 1000L, 15_000L);
+
+        // when : 뒤에 줄 선 요청이 대기 시간 안에 Lock 을 넘겨받지 못하고 떠난다
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> waiter = executor.submit(() -> lockService.lock(accountNumber, 50L, 15_000L));
+            ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+            assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, ((AccountException) e.getCause()).getErrorCode());
+        } finally {
+            executor.shutdownNow();
+        }
+        lockService.unlock(accountNumber);
+
+        // then : 넘겨받을 요청이 없으므로 Redis Lock 을 풀었다
+        assertFalse(redissonClient.getLock("ACLK:" + accountNumber).isLocked());
+    }
+
+    @Test
+    void refusesAsyncLockMode() {
+        // when
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new CoalescingLockService(redissonClient, new SimpleMeterRegistry(), 64, 200, true));
+
+        // then
+        assertTrue(e.getMessage().contains("account.lock.async.enabled"));
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.cache.TransactionCache;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.TransactionType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class FailedTransactionWriterTest {
+    private static final String COUNT_FAILED_SQL = "select count(*) from transaction t "
+            + "join account a on t.account_id = a.id "
+            + "where a.account_number = ? and t.transaction_result_type = 'FAIL'";
+
+    @Autowired
+    private FailedTransactionWriter failedTransactionWriter;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionCache transactionCache;
+
+    @Test
+    void failedTransactionsAreWrittenInBackground() throws InterruptedException {
+        // given
+        String accountNumber = accountService.createAccount(1L, 1000L).getAccountNumber();
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            failedTransactionWriter.enqueue(accountNumber, TransactionType.USE, 10_000L);
+        }
+
+        // then
+        long deadline = System.currentTimeMillis() + 10_000L;
+        Long written = 0L;
+        while (System.currentTimeMillis() < deadline) {
+            written = jdbcTemplate.queryForObject(COUNT_FAILED_SQL, Long.class, accountNumber);
+            if (written == 1000L) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(1000L, written);
+    }
+
+    @Test
+    void unknownAccountNumberIsRejected() {
+        // given : 없는 계좌 번호
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> failedTransactionWriter.enqueue("0000000000", TransactionType.USE, 1000L));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_NOT_FOUND, exception.getErrorCode());
+    }
+
+    @Test
+    void failingRowDoesNotDropTheRestOfTheBatch() throws InterruptedException {
+        // given : 다섯 번째 기록의 거래 아이디가 첫 번째와 같아서 unique 제약에 걸린다
+        String accountNumber = accountService.createAccount(2L, 1000L).getAccountNumber();
+        AtomicInteger sequence = new AtomicInteger();
+        String prefix = Long.toString(System.nanoTime(), 36);
+        TransactionIdGenerator duplicateFifth = () -> {
+            int next = sequence.getAndIncrement();
+            return prefix + (next == 4 ? 0 : next);
+        };
+        FailedTransactionWriter writer = new FailedTransactionWriter(jdbcTemplate, transactionCache,
+                duplicateFifth, 100, 100, FailedTransactionWriter.OverflowPolicy.DROP, 100L, 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        writer.bindTo(registry);
+        writer.start();
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            writer.enqueue(accountNumber, TransactionType.USE, 10_000L);
+        }
+        writer.stop();
+
+        // then
+        assertEquals(9L, jdbcTemplate.queryForObject(COUNT_FAILED_SQL, Long.class, accountNumber));
+        assertEquals(9.0, registry.get("account.failure.writer.records").tag("result", "written")
+                .functionCounter().count());
+        assertEquals(1.0, registry.get("account.failure.writer.records").tag("result", "write_failed")
+                .functionCounter().count());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.repositorty.TransactionRepository;
+import com.example.accountproject.type.ErrorCode;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.redis.port=6383",
+        "spring.datasource.url=jdbc:h2:mem:groupcommit",
+        "account.balance.group-commit.enabled=true",
+        "account.balance.group-commit.window-micros=20000"
+})
+@DirtiesContext
+class GroupCommitExecutorTest {
+    private static final int OPERATIONS = 20;
+
+    @Autowired
+    private GroupCommitExecutor groupCommitExecutor;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void commitsConcurrentOperationsTogetherAndIsolatesFailures() throws Exception {
+        // given : 마지막 계좌만 잔액이 부족하다
+        List<AccountDto> accounts = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < OPERATIONS; i++) {
+            AccountUser accountUser = accountUserRepository.save(AccountUser.builder()
+                    .name("group-" + i)
+                    .build());
+            userIds.add(accountUser.getId());
+            accounts.add(accountService.createAccount(accountUser.getId(), i == OPERATIONS - 1 ? 0L : 1_000L));
+        }
+        DistributionSummary groupSize = meterRegistry.get("account.group-commit.size").summary();
+        long groupsBefore = groupSize.count();
+
+        ExecutorService executor = Executors.newFixedThreadPool(OPERATIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TransactionDto>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < OPERATIONS; i++) {
+            Long userId = userIds.get(i);
+            String accountNumber = accounts.get(i).getAccountNumber();
+            futures.add(executor.submit(() -> {
+                start.await();
+                return groupCommitExecutor.execute(accountNumber,
+                        () -> transactionService.useBalance(userId, accountNumber, 100L));
+            }));
+        }
+        start.countDown();
+
+        // then
+        for (int i = 0; i < OPERATIONS - 1; i++) {
+            TransactionDto transactionDto = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertTrue(transactionRepository.findByTransactionId(transactionDto.getTransactionId()).isPresent());
+            assertEquals(900L, accountRepository.findByAccountNumber(accounts.get(i).getAccountNumber())
+                    .get().getBalance());
+        }
+        ExecutionException failed = assertThrows(ExecutionException.class,
+                () -> futures.get(OPERATIONS - 1).get(10, TimeUnit.SECONDS));
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, ((AccountException) failed.getCause()).getErrorCode());
+        executor.shutdown();
+
+        // 20ms window 안에 들어온 작업은 한 트랜잭션으로 커밋되므로 커밋 횟수가 작업 수보다 적다
+        assertTrue(groupSize.count() - groupsBefore < OPERATIONS);
+    }
+
+    @Test
+    void errorInGroupReportsUnknownResultAndKeepsCommitting() {
+        // given
+        AccountUser accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("group-error")
+                .build());
+        String accountNumber = accountService.createAccount(accountUser.getId(), 1_000L).getAccountNumber();
+
+        // when : 드라이버의 AssertionError 처럼 RuntimeException 이 아닌 예외
+        AccountException exception = assertThrows(AccountException.class,
+                () -> groupCommitExecutor.execute(accountNumber, () -> {
+                    throw new AssertionError("driver");
+                }));
+        TransactionDto used = groupCommitExecutor.execute(accountNumber,
+                () -> transactionService.useBalance(accountUser.getId(), accountNumber, 100L));
+
+        // then : 커밋 스레드는 계속 묶음을 커밋한다
+        assertEquals(ErrorCode.TRANSACTION_RESULT_UNKNOWN, exception.getErrorCode());
+        assertTrue(transactionRepository.findByTransactionId(used.getTransactionId()).isPresent());
+        assertEquals(900L, accountRepository.findByAccountNumber(accountNumber).get().getBalance());
+    }
+
+    @Test
+    void accountListIsRefreshedBeforeResultIsReturned() throws Exception {
+        // given : 한 사용자의 두 계좌, 목록을 읽어 캐시에 올린다
+        AccountUser accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("group-cache")
+                .build());
+        List<String> accountNumbers = List.of(
+                accountService.createAccount(accountUser.getId(), 1_000L).getAccountNumber(),
+                accountService.createAccount(accountUser.getId(), 1_000L).getAccountNumber());
+        accountService.getAccountsInfo(accountUser.getId());
+        ExecutorService executor = Executors.newFixedThreadPool(accountNumbers.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<TransactionDto>> futures = new ArrayList<>();
+
+        // when : 같은 묶음에서 같은 사용자의 두 계좌를 사용
+        for (String accountNumber : accountNumbers) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return groupCommitExecutor.execute(accountNumber,
+                        () -> transactionService.useBalance(accountUser.getId(), accountNumber, 100L));
+            }));
+        }
+        start.countDown();
+        for (Future<TransactionDto> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then : 결과를 받은 뒤의 목록 조회는 변경된 잔액을 읽는다
+        assertTrue(accountService.getAccountsInfo(accountUser.getId()).stream()
+                .allMatch(account -> account.getBalance() == 900L));
+    }
+}
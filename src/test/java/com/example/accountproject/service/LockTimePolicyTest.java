@@ -0,0 +1,79 @@
+package com.example.accountproject.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LockTimePolicyTest {
+    private static final String ENDPOINT = "BalanceController.useBalance";
+
+    @Test
+    void usesAnnotationTimesWhenNotAdaptive() {
+        // given
+        LockTimePolicy policy = policy(false, false);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            policy.recordHold(ENDPOINT, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        // then
+        assertEquals(1000L, policy.waitMillis(ENDPOINT, 1000L));
+        assertEquals(15000L, policy.leaseMillis(15000L));
+    }
+
+    @Test
+    void adaptsWaitToHoldTimePercentile() {
+        // given
+        LockTimePolicy policy = policy(true, false);
+
+        // when : 표본이 부족하면 tryLockTime 을 쓴다
+        for (int i = 0; i < 50; i++) {
+            policy.recordHold(ENDPOINT, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        long coldWait = policy.waitMillis(ENDPOINT, 1000L);
+        for (int i = 0; i < 950; i++) {
+            policy.recordHold(ENDPOINT, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        long adaptiveWait = policy.waitMillis(ENDPOINT, 1000L);
+
+        // then : p99 보유 시간(10ms) * queue-depth(4)
+        assertEquals(1000L, coldWait);
+        assertTrue(adaptiveWait >= 36 && adaptiveWait <= 46, "adaptive wait " + adaptiveWait);
+        assertEquals(30L, policy.waitMillis(ENDPOINT, 30L));
+        assertEquals(1000L, policy.waitMillis("AccountController.other", 1000L));
+    }
+
+    @Test
+    void neverWaitsLessThanMinimum() {
+        // given
+        LockTimePolicy policy = policy(true, false);
+
+        // when
+        for (int i = 0; i < 1000; i++) {
+            policy.recordHold(ENDPOINT, TimeUnit.MICROSECONDS.toNanos(100));
+        }
+
+        // then
+        assertEquals(20L, policy.waitMillis(ENDPOINT, 1000L));
+    }
+
+    @Test
+    void watchdogReplacesLease() {
+        // given
+        LockTimePolicy policy = policy(false, true);
+
+        // when
+        long leaseMillis = policy.leaseMillis(15000L);
+
+        // then
+        assertEquals(LockService.WATCHDOG_LEASE, leaseMillis);
+    }
+
+    private static LockTimePolicy policy(boolean adaptive, boolean watchdog) {
+        return new LockTimePolicy(new SimpleMeterRegistry(), adaptive, 0.99, 4, 20L, 100L, 0L, 60L, watchdog);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.dto.UseBalanceBatch;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.TransactionResultType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = {
+        "account.balance.update-mode=OPTIMISTIC",
+        "account.balance.optimistic.max-attempts=20",
+        "spring.redis.port=6381",
+        "spring.datasource.url=jdbc:h2:mem:optimistic"
+})
+@DirtiesContext
+class OptimisticBalanceUpdateTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void concurrentDebitsAreRetriedWithoutLostUpdates() throws Exception {
+        // given
+        long initialBalance = 1_000_000L;
+        long amount = 100L;
+        int threads = 16;
+        int attemptsPerThread = 20;
+        AccountDto account = accountService.createAccount(1L, initialBalance);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger conflicted = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < attemptsPerThread; j++) {
+                    try {
+                        transactionService.useBalance(1L, account.getAccountNumber(), amount);
+                        succeeded.incrementAndGet();
+                    } catch (AccountException e) {
+                        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, e.getErrorCode());
+                        conflicted.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(threads * attemptsPerThread, succeeded.get() + conflicted.get());
+        assertEquals(initialBalance - succeeded.get() * amount,
+                accountRepository.findByAccountNumber(account.getAccountNumber()).get().getBalance());
+    }
+
+    @Test
+    void groupDebitsConflictingWithSingleDebitsAreRetried() throws Exception {
+        // given
+        long initialBalance = 1_000_000L;
+        long amount = 100L;
+        int threads = 8;
+        int attemptsPerThread = 20;
+        AccountDto account = accountService.createAccount(1L, initialBalance);
+        List<UseBalance.Request> group = List.of(
+                new UseBalance.Request(1L, account.getAccountNumber(), amount),
+                new UseBalance.Request(1L, account.getAccountNumber(), amount));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger debited = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when : 절반은 묶음, 절반은 단건으로 같은 계좌에서 차감
+        for (int i = 0; i < threads; i++) {
+            boolean grouped = i % 2 == 0;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < attemptsPerThread; j++) {
+                    try {
+                        if (grouped) {
+                            for (UseBalanceBatch.ItemResult result
+                                    : transactionService.useBalanceGroup(account.getAccountNumber(), group)) {
+                                assertEquals(TransactionResultType.SUCCESS, result.getTransactionResultType());
+                                debited.incrementAndGet();
+                            }
+                        } else {
+                            transactionService.useBalance(1L, account.getAccountNumber(), amount);
+                            debited.incrementAndGet();
+                        }
+                    } catch (AccountException e) {
+                        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, e.getErrorCode());
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then : 버전 충돌이 그대로 새어 나가지 않고, 차감된 만큼만 잔액이 줄어든다
+        assertEquals(initialBalance - debited.get() * amount,
+                accountRepository.findByAccountNumber(account.getAccountNumber()).get().getBalance());
+    }
+}
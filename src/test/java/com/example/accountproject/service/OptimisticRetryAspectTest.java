@@ -0,0 +1,67 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.type.BalanceUpdateMode;
+import com.example.accountproject.type.ErrorCode;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class OptimisticRetryAspectTest {
+    private final OptimisticRetryAspect aspect =
+            new OptimisticRetryAspect(BalanceUpdateMode.OPTIMISTIC, 3, 0L, 0L);
+
+    @Test
+    void conflictIsRetriedUntilAttemptsRunOut() throws Throwable {
+        // given
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        given(pjp.proceed()).willThrow(new OptimisticLockingFailureException("conflict"));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class, () -> aspect.aroundMethod(pjp));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(pjp, times(3)).proceed();
+    }
+
+    @Test
+    void conflictInsideCallerTransactionIsNotRetried() throws Throwable {
+        // given : group commit 묶음처럼 바깥 트랜잭션 안에서 호출된다
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        given(pjp.proceed()).willThrow(new OptimisticLockingFailureException("conflict"));
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+
+        // when
+        try {
+            assertThrows(OptimisticLockingFailureException.class, () -> aspect.aroundMethod(pjp));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+        }
+
+        // then
+        verify(pjp, times(1)).proceed();
+    }
+
+    @Test
+    void conflictInLockedModeIsReportedAsLockFailure() throws Throwable {
+        // given : Lock 이 겹쳐서 난 충돌은 재시도하지 않는다
+        OptimisticRetryAspect lockedAspect = new OptimisticRetryAspect(BalanceUpdateMode.LOCKED, 3, 0L, 0L);
+        ProceedingJoinPoint pjp = mock(ProceedingJoinPoint.class);
+        given(pjp.proceed()).willThrow(new OptimisticLockingFailureException("conflict"));
+
+        // when
+        AccountException exception = assertThrows(AccountException.class, () -> lockedAspect.aroundMethod(pjp));
+
+        // then
+        assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, exception.getErrorCode());
+        verify(pjp, times(1)).proceed();
+    }
+}
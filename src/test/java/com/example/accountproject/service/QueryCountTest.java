@@ -0,0 +1,130 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 서비스 호출 당 SQL 수 고정
+ * 캐시를 끄고 DB 로만 처리할 때의 SQL 수이다. 수가 바뀌면 N+1 이나 불필요한 조회가 생긴 것인지 먼저 확인한다.
+ * 새 엔티티 저장에는 hibernate_sequence 조회가 한 번씩 포함된다.
+ */
+@SpringBootTest(properties = {
+        "spring.redis.port=6382",
+        "spring.datasource.url=jdbc:h2:mem:querycount",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "account.cache.accounts.enabled=false",
+        "account.cache.transactions.enabled=false"
+})
+@DirtiesContext
+class QueryCountTest {
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCounter queryCounter;
+    private AccountUser accountUser;
+    private AccountDto account;
+
+    @BeforeEach
+    void setUp() {
+        queryCounter = new QueryCounter(entityManagerFactory);
+        accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("query-count")
+                .build());
+        // 계좌 번호 블록 예약도 여기서 끝난다
+        account = accountService.createAccount(accountUser.getId(), 10_000L);
+    }
+
+    @Test
+    void createAccount() {
+        // when
+        long statements = queryCounter.countStatements(() -> accountService.createAccount(accountUser.getId(), 0L));
+
+        // then : 사용자 조회, 계좌 수, sequence, insert
+        assertEquals(4, statements);
+    }
+
+    @Test
+    void deleteAccount() {
+        // given
+        AccountDto empty = accountService.createAccount(accountUser.getId(), 0L);
+
+        // when
+        long statements = queryCounter.countStatements(() -> accountService.deleteAccount(accountUser.getId(), empty.getAccountNumber()));
+
+        // then : 사용자 조회, 계좌 조회, update
+        assertEquals(3, statements);
+    }
+
+    @Test
+    void getAccountsInfo() {
+        // given
+        accountService.createAccount(accountUser.getId(), 0L);
+        accountService.createAccount(accountUser.getId(), 0L);
+
+        // when
+        QueryCounter.Counted<List<AccountDto>> counted = queryCounter.count(
+                () -> accountService.getAccountsInfo(accountUser.getId()));
+
+        // then : 사용자 존재 여부, 계좌 목록 (계좌 수와 무관)
+        assertEquals(3, counted.result.size());
+        assertEquals(2, counted.statements);
+    }
+
+    @Test
+    void useBalance() {
+        // when
+        long statements = queryCounter.countStatements(
+                () -> transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 100L));
+
+        // then : 사용자 조회, 계좌 조회, sequence, 거래 insert, 계좌 update
+        assertEquals(5, statements);
+    }
+
+    @Test
+    void cancelBalance() {
+        // given
+        TransactionDto used = transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 100L);
+
+        // when
+        long statements = queryCounter.countStatements(
+                () -> transactionService.cancelBalance(used.getTransactionId(), account.getAccountNumber(), 100L));
+
+        // then : 거래+계좌 조회, 계좌 조회, sequence, 거래 insert, 계좌 update
+        assertEquals(5, statements);
+    }
+
+    @Test
+    void getTransactionInfo() {
+        // given
+        TransactionDto used = transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 100L);
+
+        // when
+        QueryCounter.Counted<TransactionDto> counted = queryCounter.count(
+                () -> transactionService.getTransactionInfo(used.getTransactionId()));
+
+        // then : 거래+계좌 조회 한 번
+        assertEquals(account.getAccountNumber(), counted.result.getAccountNumber());
+        assertEquals(1, counted.statements);
+    }
+}
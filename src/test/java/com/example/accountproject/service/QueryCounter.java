@@ -0,0 +1,44 @@
+package com.example.accountproject.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.function.Supplier;
+
+/**
+ * Hibernate Statistics 로 서비스 호출 한 번에 실행된 SQL 수를 센다.
+ * hibernate.generate_statistics=true 인 컨텍스트에서만 사용할 수 있다.
+ * JdbcTemplate 으로 실행한 SQL 은 세지 않는다.
+ */
+class QueryCounter {
+    private final Statistics statistics;
+
+    QueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    // 반환 값이 있는 람다는 count(Supplier) 로 결정되므로 이름을 나눈다
+    long countStatements(Runnable call) {
+        return count(() -> {
+            call.run();
+            return null;
+        }).statements;
+    }
+
+    <T> Counted<T> count(Supplier<T> call) {
+        statistics.clear();
+        T result = call.get();
+        return new Counted<>(result, statistics.getPrepareStatementCount());
+    }
+
+    static final class Counted<T> {
+        final T result;
+        final long statements;
+
+        private Counted(T result, long statements) {
+            this.result = result;
+            this.statements = statements;
+        }
+    }
+}
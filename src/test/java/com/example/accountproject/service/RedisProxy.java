@@ -0,0 +1,111 @@
+package com.example.accountproject.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis 앞에 두는 테스트용 TCP 프록시
+ * kill 은 열린 연결을 모두 끊고 새 연결을 거부하며 (Redis 프로세스 종료), restore 로 다시 연결을 받는다.
+ * delayMillis 를 주면 전달하는 데이터마다 그만큼 늦춘다 (느린 Redis).
+ */
+class RedisProxy implements Closeable {
+    private final int port;
+    private final int targetPort;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private volatile long delayMillis;
+    private ServerSocket serverSocket;
+
+    RedisProxy(int port, int targetPort) {
+        this.port = port;
+        this.targetPort = targetPort;
+    }
+
+    synchronized void start() throws IOException {
+        ServerSocket server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(new InetSocketAddress("127.0.0.1", port));
+        serverSocket = server;
+        startDaemon("redis-proxy-accept", () -> accept(server));
+    }
+
+    synchronized void kill() {
+        if (serverSocket != null) {
+            closeQuietly(serverSocket);
+            serverSocket = null;
+        }
+        sockets.forEach(RedisProxy::closeQuietly);
+        sockets.clear();
+    }
+
+    void restore() throws IOException {
+        start();
+    }
+
+    void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public void close() {
+        kill();
+    }
+
+    private void accept(ServerSocket server) {
+        while (!server.isClosed()) {
+            try {
+                Socket client = server.accept();
+                Socket upstream = new Socket("127.0.0.1", targetPort);
+                client.setTcpNoDelay(true);
+                upstream.setTcpNoDelay(true);
+                sockets.add(client);
+                sockets.add(upstream);
+                startDaemon("redis-proxy-request", () -> pump(client, upstream));
+                startDaemon("redis-proxy-response", () -> pump(upstream, client));
+            } catch (IOException e) {
+                // kill 로 서버 소켓을 닫으면 끝난다
+            }
+        }
+    }
+
+    private void pump(Socket from, Socket to) {
+        byte[] buffer = new byte[8192];
+        try {
+            InputStream in = from.getInputStream();
+            OutputStream out = to.getOutputStream();
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                long delay = delayMillis;
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+                out.write(buffer, 0, read);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // 연결이 끊어졌다
+        } finally {
+            closeQuietly(from);
+            closeQuietly(to);
+        }
+    }
+
+    private static void startDaemon(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.type.ErrorCode;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import redis.embedded.RedisServer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Redis 장애 시 DB 행 Lock 으로 전환
+ * Redisson 은 RedisProxy 를 거쳐 내장 Redis 에 연결하므로 프록시로 Redis 종료와 지연을 흉내 낸다.
+ * Redis Lock 과 DB 행 Lock 의 lock/unlock 지연 시간(중앙값)을 로그로 남긴다.
+ */
+@SpringBootTest(properties = {
+        "spring.redis.port=" + ResilientLockServiceTest.PROXY_PORT,
+        "spring.datasource.url=jdbc:h2:mem:resilient",
+        "account.redis.embedded.enabled=false",
+        "account.lock.resilient.redis.timeout-millis=200",
+        "account.lock.resilient.redis.connect-timeout-millis=200",
+        "account.lock.resilient.redis.retry-attempts=0",
+        "account.lock.resilient.redis.retry-interval-millis=100",
+        "account.lock.type=resilient",
+        "account.lock.resilient.failure-threshold=2",
+        "account.lock.resilient.open-millis=1000",
+        "account.cache.accounts.enabled=false",
+        "account.cache.transactions.enabled=false"
+})
+@DirtiesContext
+class ResilientLockServiceTest {
+    static final int REDIS_PORT = 6384;
+    static final int PROXY_PORT = 6385;
+    private static final int SAMPLES = 200;
+    private static final long RECOVERY_TIMEOUT_MILLIS = 15_000L;
+    private static final Logger log = LoggerFactory.getLogger(ResilientLockServiceTest.class);
+
+    private static RedisServer redisServer;
+    private static RedisProxy redisProxy;
+
+    @Autowired
+    private ResilientLockService lockService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private AccountUser accountUser;
+    private AccountDto account;
+
+    @BeforeAll
+    static void startRedis() throws IOException {
+        redisServer = RedisServer.builder()
+                .port(REDIS_PORT)
+                .setting("maxmemory 128M")
+                .build();
+        redisServer.start();
+        redisProxy = new RedisProxy(PROXY_PORT, REDIS_PORT);
+        redisProxy.start();
+    }
+
+    @AfterAll
+    static void stopRedis() {
+        redisProxy.close();
+        redisServer.stop();
+    }
+
+    @BeforeEach
+    void setUp() {
+        accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("resilient")
+                .build());
+        account = accountService.createAccount(accountUser.getId(), 10_000L);
+    }
+
+    @AfterEach
+    void restoreRedis() throws Exception {
+        redisProxy.setDelayMillis(0);
+        redisProxy.kill();
+        redisProxy.restore();
+        awaitRedisLock();
+    }
+
+    @Test
+    void fallsBackToRowLockWhileRedisIsDownAndReturnsAfterRecovery() throws Exception {
+        // given
+        String accountNumber = account.getAccountNumber();
+        long redisMedian = medianLockNanos(accountNumber, false);
+
+        // when : Redis 종료
+        redisProxy.kill();
+        long failoverStartedAt = System.nanoTime();
+        assertLockedWith(accountNumber, true);
+        long failoverNanos = System.nanoTime() - failoverStartedAt;
+        assertLockedWith(accountNumber, true);
+        long rowLockMedian = medianLockNanos(accountNumber, true);
+
+        // then : 회로가 열려 있는 동안은 Redis 를 기다리지 않고 DB 행 Lock 을 잡는다
+        assertEquals(CircuitBreaker.State.OPEN, lockService.getCircuitState());
+        assertTrue(failoverNanos < TimeUnit.SECONDS.toNanos(5));
+        log.info("lock/unlock median : redis {} us, row lock {} us (penalty {} us). First failover took {} ms.",
+                redisMedian / 1000, rowLockMedian / 1000, (rowLockMedian - redisMedian) / 1000,
+                failoverNanos / 1_000_000);
+
+        // when : Redis 재시작
+        redisProxy.restore();
+        awaitRedisLock();
+
+        // then
+        assertEquals(CircuitBreaker.State.CLOSED, lockService.getCircuitState());
+        assertLockedWith(accountNumber, false);
+    }
+
+    @Test
+    void slowRedisOpensCircuit() throws Exception {
+        // given : 명령 timeout(200ms) 보다 느린 Redis
+        redisProxy.setDelayMillis(500);
+
+        // when
+        assertLockedWith(account.getAccountNumber(), true);
+        assertLockedWith(account.getAccountNumber(), true);
+
+        // then
+        assertEquals(CircuitBreaker.State.OPEN, lockService.getCircuitState());
+    }
+
+    @Test
+    void rowLockSerializesRequestsAndCommitsWorkOnUnlock() throws Exception {
+        // given
+        String accountNumber = account.getAccountNumber();
+        redisProxy.kill();
+        openCircuit(accountNumber);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch locked = new CountDownLatch(1);
+        try {
+            // when : 다른 요청이 행 Lock 을 300ms 동안 잡고 있는 동안 잔액 사용
+            Future<?> holder = executor.submit(() -> {
+                lockService.lock(accountNumber);
+                try {
+                    locked.countDown();
+                    Thread.sleep(300);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    lockService.unlock(accountNumber);
+                }
+            });
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            long startedAt = System.nanoTime();
+            lockService.lock(accountNumber);
+            long waitedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+            try {
+                transactionService.useBalance(accountUser.getId(), accountNumber, 1_000L);
+            } finally {
+                lockService.unlock(accountNumber);
+            }
+            holder.get(5, TimeUnit.SECONDS);
+
+            // then : 앞선 요청이 끝날 때까지 기다렸고, 잔액 사용은 unlock 에서 커밋되었다
+            assertTrue(waitedMillis >= 200, "waited " + waitedMillis + " ms");
+            assertEquals(9_000L, accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow()
+                    .getBalance());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void overlappingRedisAndRowLockHoldersFailWithLockError() throws Exception {
+        // given : Redis 가 죽기 전에 Redis Lock 을 잡은 요청
+        String accountNumber = account.getAccountNumber();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch redisLocked = new CountDownLatch(1);
+        CountDownLatch proceed = new CountDownLatch(1);
+        try {
+            // lease 를 짧게 두어 Redis 를 되살린 뒤 남은 Lock 이 바로 풀리게 한다
+            Future<?> redisHolder = executor.submit(() -> {
+                lockService.lock(accountNumber, 1000L, 1000L);
+                try {
+                    redisLocked.countDown();
+                    assertTrue(proceed.await(5, TimeUnit.SECONDS));
+                    return transactionService.useBalance(accountUser.getId(), accountNumber, 2_000L);
+                } finally {
+                    lockService.unlock(accountNumber);
+                }
+            });
+            assertTrue(redisLocked.await(5, TimeUnit.SECONDS));
+
+            // when : 전환 뒤 DB 행 Lock 을 잡은 요청이 같은 계좌를 먼저 바꾸고, Redis Lock 요청은 그 뒤에 커밋한다
+            redisProxy.kill();
+            openCircuit(accountNumber);
+            lockService.lock(accountNumber);
+            try {
+                transactionService.useBalance(accountUser.getId(), accountNumber, 1_000L);
+                proceed.countDown();
+                Thread.sleep(300);
+            } finally {
+                lockService.unlock(accountNumber);
+            }
+
+            // then : 500 이 아닌 Lock 실패로 응답하고 한 요청만 반영된다
+            ExecutionException failed = assertThrows(ExecutionException.class,
+                    () -> redisHolder.get(5, TimeUnit.SECONDS));
+            assertEquals(ErrorCode.ACCOUNT_TRANSACTION_LOCK, ((AccountException) failed.getCause()).getErrorCode());
+            assertEquals(9_000L, accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow()
+                    .getBalance());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void openCircuit(String accountNumber) {
+        while (lockService.getCircuitState() != CircuitBreaker.State.OPEN) {
+            assertLockedWith(accountNumber, true);
+        }
+    }
+
+    // DB 행 Lock 을 잡은 동안에는 스레드에 트랜잭션이 열려 있다
+    private void assertLockedWith(String accountNumber, boolean rowLock) {
+        lockService.lock(accountNumber);
+        try {
+            assertEquals(rowLock, TransactionSynchronizationManager.isActualTransactionActive());
+        } finally {
+            lockService.unlock(accountNumber);
+        }
+    }
+
+    private long medianLockNanos(String accountNumber, boolean rowLock) {
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long startedAt = System.nanoTime();
+            assertLockedWith(accountNumber, rowLock);
+            samples[i] = System.nanoTime() - startedAt;
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+
+    // Redisson 이 다시 연결되고 회로가 닫힐 때까지 Lock 을 잡아 본다
+    private void awaitRedisLock() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + RECOVERY_TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            lockService.lock(account.getAccountNumber());
+            boolean rowLock = TransactionSynchronizationManager.isActualTransactionActive();
+            lockService.unlock(account.getAccountNumber());
+            if (!rowLock && lockService.getCircuitState() == CircuitBreaker.State.CLOSED) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("Redis lock did not recover");
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.accountproject.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedTransactionIdGeneratorTest {
+    @Test
+    void idsAreUniqueAndSortedInIssueOrder() {
+        // given
+        TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(7);
+        List<String> ids = new ArrayList<>();
+
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            ids.add(generator.generate());
+        }
+
+        // then
+        List<String> sorted = new ArrayList<>(ids);
+        Collections.sort(sorted);
+        assertEquals(ids, sorted);
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+        assertTrue(ids.stream().allMatch(id -> id.length() == 13));
+    }
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        // given
+        TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(7);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // when
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 50_000; j++) {
+                    ids.add(generator.generate());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        // then
+        assertEquals(400_000, ids.size());
+    }
+
+    @Test
+    void nodeIdIsEncodedInTheId() {
+        // given
+        TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(1023);
+
+        // when
+        long id = generator.nextId();
+
+        // then
+        assertEquals(1023L, (id >>> TimeOrderedTransactionIdGenerator.SEQUENCE_BITS)
+                & TimeOrderedTransactionIdGenerator.MAX_NODE_ID);
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedTransactionIdGenerator(1024));
+    }
+
+    @Test
+    void missingNodeIdFailsWhenRequired() {
+        // when
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new TimeOrderedTransactionIdGenerator(-1, true));
+
+        // then
+        assertTrue(exception.getMessage().contains("account.transaction-id.node-id"));
+    }
+
+    @Test
+    void missingNodeIdIsDerivedWhenNotRequired() {
+        // when
+        TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(-1, false);
+
+        // then
+        assertEquals(13, generator.generate().length());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.type.ErrorCode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionExportServiceTest {
+    @Autowired
+    private TransactionExportService transactionExportService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private AccountUser accountUser;
+    private AccountDto account;
+
+    @BeforeEach
+    void setUp() {
+        accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("export")
+                .build());
+        account = accountService.createAccount(accountUser.getId(), 10_000L);
+    }
+
+    @Test
+    void exportsTransactionsInWindowAsNdjson() throws Exception {
+        // given
+        LocalDateTime from = LocalDateTime.now().minusSeconds(1);
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            created.add(transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 100L)
+                    .getTransactionId());
+        }
+        LocalDateTime to = LocalDateTime.now().plusSeconds(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long exported = transactionExportService.export(from, to, out);
+
+        // then
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("\n"));
+        String[] lines = body.split("\n");
+        assertEquals(exported, lines.length);
+
+        List<String> exportedIds = new ArrayList<>();
+        for (String line : lines) {
+            TransactionDto transactionDto = objectMapper.readValue(line, TransactionDto.class);
+            if (account.getAccountNumber().equals(transactionDto.getAccountNumber())) {
+                exportedIds.add(transactionDto.getTransactionId());
+            }
+        }
+        assertEquals(created, exportedIds);
+    }
+
+    @Test
+    void exportsNothingOutsideWindow() throws Exception {
+        // given
+        transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 100L);
+        LocalDateTime from = LocalDateTime.now().plusSeconds(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long exported = transactionExportService.export(from, from.plusDays(1), out);
+
+        // then
+        assertEquals(0, exported);
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void rejectsEmptyWindow() {
+        // given
+        LocalDateTime now = LocalDateTime.now();
+
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionExportService.export(now, now, new ByteArrayOutputStream()));
+
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.TransactionDto;
+import com.example.accountproject.dto.TransactionHistoryDto;
+import com.example.accountproject.exception.AccountException;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class TransactionHistoryTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    private AccountUser accountUser;
+    private AccountDto account;
+
+    @BeforeEach
+    void setUp() {
+        accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("history")
+                .build());
+        account = accountService.createAccount(accountUser.getId(), 10_000L);
+    }
+
+    @Test
+    void pagesThroughHistoryNewestFirst() {
+        // given
+        List<String> created = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            created.add(transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 100L)
+                    .getTransactionId());
+        }
+        Collections.reverse(created);
+
+        // when
+        List<String> read = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionHistoryDto page = transactionService.getTransactionHistory(
+                    account.getAccountNumber(), cursor, 3, null, null);
+            pageSizes.add(page.getTransactions().size());
+            for (TransactionDto transactionDto : page.getTransactions()) {
+                read.add(transactionDto.getTransactionId());
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        // then
+        assertEquals(List.of(3, 3, 1), pageSizes);
+        assertEquals(created, read);
+    }
+
+    @Test
+    void filtersByTransactionType() {
+        // given
+        TransactionDto used = transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 100L);
+        transactionService.useBalance(accountUser.getId(), account.getAccountNumber(), 200L);
+        TransactionDto canceled = transactionService.cancelBalance(
+                used.getTransactionId(), account.getAccountNumber(), 100L);
+
+        // when
+        TransactionHistoryDto page = transactionService.getTransactionHistory(
+                account.getAccountNumber(), null, 20, TransactionType.CANCEL, null);
+
+        // then
+        assertEquals(1, page.getTransactions().size());
+        assertEquals(canceled.getTransactionId(), page.getTransactions().get(0).getTransactionId());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void rejectsInvalidCursor() {
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory(
+                        account.getAccountNumber(), "not-a-cursor", 20, null, null));
+
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+
+    @Test
+    void rejectsOversizedPage() {
+        // when
+        AccountException exception = assertThrows(AccountException.class,
+                () -> transactionService.getTransactionHistory(
+                        account.getAccountNumber(), null, 101, null, null));
+
+        // then
+        assertEquals(ErrorCode.INVALID_REQUEST, exception.getErrorCode());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.accountproject.service;
+
+import com.example.accountproject.domain.AccountUser;
+import com.example.accountproject.dto.AccountDto;
+import com.example.accountproject.dto.UseBalance;
+import com.example.accountproject.dto.UseBalanceBatch;
+import com.example.accountproject.repositorty.AccountRepository;
+import com.example.accountproject.repositorty.AccountUserRepository;
+import com.example.accountproject.repositorty.TransactionRepository;
+import com.example.accountproject.type.ErrorCode;
+import com.example.accountproject.type.TransactionResultType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class UseBalanceGroupTest {
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountUserRepository accountUserRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Test
+    void groupAppliesItemsInOrderAndFailsOnlyInvalidItems() {
+        // given
+        AccountUser accountUser = accountUserRepository.save(AccountUser.builder()
+                .name("group")
+                .build());
+        AccountDto account = accountService.createAccount(accountUser.getId(), 1_000L);
+        String accountNumber = account.getAccountNumber();
+        List<UseBalance.Request> items = List.of(
+                new UseBalance.Request(accountUser.getId(), accountNumber, 300L),
+                new UseBalance.Request(accountUser.getId(), accountNumber, 900L),
+                new UseBalance.Request(accountUser.getId(), accountNumber, 200L),
+                new UseBalance.Request(1L, accountNumber, 100L));
+
+        // when
+        List<UseBalanceBatch.ItemResult> results = transactionService.useBalanceGroup(accountNumber, items);
+
+        // then
+        assertEquals(4, results.size());
+        assertEquals(TransactionResultType.SUCCESS, results.get(0).getTransactionResultType());
+        assertEquals(TransactionResultType.FAIL, results.get(1).getTransactionResultType());
+        assertEquals(ErrorCode.AMOUNT_EXCEED_BALANCE, results.get(1).getErrorCode());
+        assertEquals(TransactionResultType.SUCCESS, results.get(2).getTransactionResultType());
+        assertEquals(TransactionResultType.FAIL, results.get(3).getTransactionResultType());
+        assertEquals(ErrorCode.USER_ACCOUNT_UN_MATCH, results.get(3).getErrorCode());
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).getAmount(), results.get(i).getAmount());
+            // 실패한 항목도 실패 거래로 저장된다
+            assertEquals(results.get(i).getTransactionResultType(),
+                    transactionRepository.findByTransactionId(results.get(i).getTransactionId()).get()
+                            .getTransactionResultType());
+        }
+        assertEquals(500L, accountRepository.findByAccountNumber(accountNumber).get().getBalance());
+    }
+}